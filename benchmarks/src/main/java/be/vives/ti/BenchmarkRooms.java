@@ -0,0 +1,52 @@
+package be.vives.ti;
+
+import java.util.List;
+import java.util.Random;
+
+final class BenchmarkRooms {
+
+    private BenchmarkRooms() {
+    }
+
+    static RoomLayout layout(int capacity) {
+        return switch (capacity) {
+            case 50 -> RoomLayout.rectangular(5, 10);
+            case 1_000 -> RoomLayout.rectangular(25, 40);
+            case 10_000 -> RoomLayout.rectangular(100, 100);
+            case 100_000 -> RoomLayout.rectangular(250, 400);
+            default -> throw new IllegalArgumentException("No benchmark layout with " + capacity + " seats");
+        };
+    }
+
+    static CinemaRoom filledRoom(int capacity, double occupancy, FillPattern pattern, long seed) {
+        return filledRoom(layout(capacity), occupancy, pattern, seed);
+    }
+
+    // the layout must not have aisles or short rows, every position is filled as if it were a seat
+    static CinemaRoom filledRoom(RoomLayout layout, double occupancy, FillPattern pattern, long seed) {
+        CinemaRoom room = new CinemaRoom("Benchmark", layout);
+        boolean[] occupied = pattern.occupiedSeats(layout.getCapacity(), occupancy, new Random(seed));
+        int seatsPerRow = layout.getSeatsPerRow();
+        for (int row = 0; row < layout.getNumberOfRows(); row++) {
+            int seat = 0;
+            while (seat < seatsPerRow) {
+                if (!occupied[row * seatsPerRow + seat]) {
+                    seat++;
+                    continue;
+                }
+                int runStart = seat;
+                while (seat < seatsPerRow && occupied[row * seatsPerRow + seat]) {
+                    seat++;
+                }
+                room.reserveSeatByNumber(row + 1, runStart + 1, seat - runStart);
+            }
+        }
+        return room;
+    }
+
+    // undoes a benchmark booking so every invocation sees the same occupancy
+    static void release(CinemaRoom room, List<Seat> seats) {
+        Seat firstSeat = seats.get(0);
+        room.replaySeatsReleased(firstSeat.getRow(), firstSeat.getSeatNumber(), seats.size());
+    }
+}
@@ -0,0 +1,67 @@
+package be.vives.ti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 100 rows of 100 seats with a premium block of 40 seats in the middle of every row
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategoryReservationBenchmark {
+
+    private static final int PARTY_SIZE = 4;
+
+    @Param({"0.5", "0.9"})
+    double occupancy;
+
+    private CinemaRoom rectangularRoom;
+    private CinemaRoom tieredRoom;
+
+    @Setup
+    public void fillRooms() {
+        List<String> plan = new ArrayList<>();
+        for (int row = 0; row < 100; row++) {
+            plan.add("S".repeat(30) + "P".repeat(40) + "S".repeat(30));
+        }
+        rectangularRoom = BenchmarkRooms.filledRoom(RoomLayout.rectangular(100, 100), occupancy, FillPattern.RANDOM, 42);
+        tieredRoom = BenchmarkRooms.filledRoom(RoomLayout.fromPlan(plan), occupancy, FillPattern.RANDOM, 42);
+    }
+
+    @Benchmark
+    public Object rectangularConsecutiveSeats() {
+        return reserve(rectangularRoom.tryReserveConsecutiveSeats(PARTY_SIZE), rectangularRoom);
+    }
+
+    @Benchmark
+    public Object tieredConsecutiveSeats() {
+        return reserve(tieredRoom.tryReserveConsecutiveSeats(PARTY_SIZE), tieredRoom);
+    }
+
+    @Benchmark
+    public Object tieredConsecutivePremiumSeats() {
+        return reserve(tieredRoom.tryReserveConsecutiveSeats(PARTY_SIZE, SeatCategory.PREMIUM), tieredRoom);
+    }
+
+    private static Object reserve(ReservationAttempt attempt, CinemaRoom room) {
+        if (attempt.isSuccessful()) {
+            BenchmarkRooms.release(room, attempt.getReservation());
+        }
+        return attempt;
+    }
+}
@@ -0,0 +1,57 @@
+package be.vives.ti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// all threads book in one shared room; compare with ReservationBenchmark for the single-threaded numbers
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ContendedReservationBenchmark {
+
+    private static final int PARTY_SIZE = 4;
+
+    @Param({"1000", "10000", "100000"})
+    int capacity;
+
+    @Param({"0.0", "0.9"})
+    double occupancy;
+
+    @Param({"RANDOM", "FRAGMENTED"})
+    FillPattern fill;
+
+    private CinemaRoom room;
+
+    @Setup
+    public void fillRoom() {
+        room = BenchmarkRooms.filledRoom(capacity, occupancy, fill, 42);
+    }
+
+    @Benchmark
+    public Object reserveConsecutiveSeats() {
+        try {
+            List<Seat> seats = room.reserveConsecutiveSeats(PARTY_SIZE);
+            BenchmarkRooms.release(room, seats);
+            return seats;
+        } catch (NotEnoughConsecutiveSeatsInRowException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package be.vives.ti;
+
+import java.util.Random;
+
+public enum FillPattern {
+    // occupied seats chosen uniformly at random, leaving free runs of every length
+    RANDOM {
+        @Override
+        boolean[] occupiedSeats(int capacity, double occupancy, Random random) {
+            boolean[] occupied = new boolean[capacity];
+            int remaining = (int) Math.round(capacity * occupancy);
+            for (int seat = 0; seat < capacity && remaining > 0; seat++) {
+                // selection sampling: exactly `remaining` of the last `capacity - seat` seats get picked
+                if (random.nextInt(capacity - seat) < remaining) {
+                    occupied[seat] = true;
+                    remaining--;
+                }
+            }
+            return occupied;
+        }
+    },
+    // free seats spread as evenly as possible, so free runs are as short as the occupancy allows
+    FRAGMENTED {
+        @Override
+        boolean[] occupiedSeats(int capacity, double occupancy, Random random) {
+            boolean[] occupied = new boolean[capacity];
+            long freeSeats = capacity - Math.round(capacity * occupancy);
+            for (int seat = 0; seat < capacity; seat++) {
+                occupied[seat] = (seat + 1) * freeSeats / capacity == seat * freeSeats / capacity;
+            }
+            return occupied;
+        }
+    };
+
+    abstract boolean[] occupiedSeats(int capacity, double occupancy, Random random);
+}
@@ -0,0 +1,72 @@
+package be.vives.ti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 64 producers book and cancel in one room, either on the row locks or through the single-writer pipeline;
+// sample time mode reports the p99 latency next to the throughput
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class PipelineReservationBenchmark {
+
+    private static final int PARTY_SIZE = 4;
+    private static final ReservationRequest REQUEST = ReservationRequest.consecutiveSeats(PARTY_SIZE);
+
+    @Param({"1000", "10000"})
+    int capacity;
+
+    @Param({"0.0", "0.9"})
+    double occupancy;
+
+    private CinemaRoom room;
+    private ReservationPipeline pipeline;
+
+    @Setup
+    public void fillRoom() {
+        room = BenchmarkRooms.filledRoom(capacity, occupancy, FillPattern.RANDOM, 42);
+        pipeline = new ReservationPipeline(room);
+    }
+
+    @TearDown
+    public void closePipeline() {
+        pipeline.close();
+    }
+
+    @Benchmark
+    public Object locked() {
+        try {
+            Reservation reservation = room.reserveConsecutiveSeats(PARTY_SIZE);
+            room.cancelReservation(reservation.getId());
+            return reservation;
+        } catch (NotEnoughConsecutiveSeatsInRowException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object pipelined() {
+        ReservationOutcome outcome = pipeline.submit(REQUEST).join();
+        if (outcome.isSuccessful()) {
+            pipeline.cancelReservation(outcome.getReservation().getId()).join();
+        }
+        return outcome;
+    }
+}
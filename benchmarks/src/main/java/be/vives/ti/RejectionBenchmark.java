@@ -0,0 +1,96 @@
+package be.vives.ti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// a sold-out night: almost every request is rejected, through an exception or through a ReservationAttempt
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionBenchmark {
+
+    private static final int PARTY_SIZE = 4;
+    private static final int RANDOM_POSITIONS = 1024;
+
+    @Param({"1000", "100000"})
+    int capacity;
+
+    // free seats are spread out, so no party of 4 fits even while a few seats are left
+    @Param({"0.99", "1.0"})
+    double occupancy;
+
+    private CinemaRoom room;
+    private int[] rowNumbers;
+    private int[] startSeatNumbers;
+    private int position;
+
+    @Setup
+    public void fillRoom() {
+        room = BenchmarkRooms.filledRoom(capacity, occupancy, FillPattern.FRAGMENTED, 42);
+        RoomLayout layout = room.getLayout();
+        Random random = new Random(7);
+        rowNumbers = new int[RANDOM_POSITIONS];
+        startSeatNumbers = new int[RANDOM_POSITIONS];
+        for (int i = 0; i < RANDOM_POSITIONS; i++) {
+            rowNumbers[i] = 1 + random.nextInt(layout.getNumberOfRows());
+            startSeatNumbers[i] = 1 + random.nextInt(layout.getSeatsPerRow() - PARTY_SIZE + 1);
+        }
+    }
+
+    @Benchmark
+    public Object reserveConsecutiveSeats() {
+        try {
+            Reservation reservation = room.reserveConsecutiveSeats(PARTY_SIZE);
+            BenchmarkRooms.release(room, reservation);
+            return reservation;
+        } catch (NotEnoughConsecutiveSeatsInRowException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object reserveSeatByNumber() {
+        int next = position++ & (RANDOM_POSITIONS - 1);
+        try {
+            Reservation reservation = room.reserveSeatByNumber(rowNumbers[next], startSeatNumbers[next], PARTY_SIZE);
+            BenchmarkRooms.release(room, reservation);
+            return reservation;
+        } catch (NotEnoughConsecutiveSeatsInRowException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object tryReserveConsecutiveSeats() {
+        ReservationAttempt attempt = room.tryReserveConsecutiveSeats(PARTY_SIZE);
+        if (attempt.isSuccessful()) {
+            BenchmarkRooms.release(room, attempt.getReservation());
+        }
+        return attempt;
+    }
+
+    @Benchmark
+    public Object tryReserveSeatByNumber() {
+        int next = position++ & (RANDOM_POSITIONS - 1);
+        ReservationAttempt attempt = room.tryReserveSeatByNumber(rowNumbers[next], startSeatNumbers[next], PARTY_SIZE);
+        if (attempt.isSuccessful()) {
+            BenchmarkRooms.release(room, attempt.getReservation());
+        }
+        return attempt;
+    }
+}
@@ -0,0 +1,98 @@
+package be.vives.ti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationBenchmark {
+
+    private static final int PARTY_SIZE = 4;
+    private static final int RANDOM_POSITIONS = 1024;
+
+    @Param({"50", "1000", "10000", "100000"})
+    int capacity;
+
+    @Param({"0.0", "0.5", "0.9", "0.99"})
+    double occupancy;
+
+    @Param({"RANDOM", "FRAGMENTED"})
+    FillPattern fill;
+
+    private CinemaRoom room;
+    private int[] rowNumbers;
+    private int[] startSeatNumbers;
+    private int position;
+
+    @Setup
+    public void fillRoom() {
+        room = BenchmarkRooms.filledRoom(capacity, occupancy, fill, 42);
+        RoomLayout layout = room.getLayout();
+        Random random = new Random(7);
+        rowNumbers = new int[RANDOM_POSITIONS];
+        startSeatNumbers = new int[RANDOM_POSITIONS];
+        for (int i = 0; i < RANDOM_POSITIONS; i++) {
+            rowNumbers[i] = 1 + random.nextInt(layout.getNumberOfRows());
+            startSeatNumbers[i] = 1 + random.nextInt(layout.getSeatsPerRow() - 1);
+        }
+    }
+
+    @Benchmark
+    public Object reserveConsecutiveSeats() {
+        try {
+            List<Seat> seats = room.reserveConsecutiveSeats(PARTY_SIZE);
+            BenchmarkRooms.release(room, seats);
+            return seats;
+        } catch (NotEnoughConsecutiveSeatsInRowException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object reserveBestAvailableSeats() {
+        try {
+            List<Seat> seats = room.reserveBestAvailableSeats(PARTY_SIZE);
+            BenchmarkRooms.release(room, seats);
+            return seats;
+        } catch (NotEnoughConsecutiveSeatsInRowException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object reserveSeatByNumber() {
+        int next = position++ & (RANDOM_POSITIONS - 1);
+        try {
+            List<Seat> seats = room.reserveSeatByNumber(rowNumbers[next], startSeatNumbers[next], 2);
+            BenchmarkRooms.release(room, seats);
+            return seats;
+        } catch (NotEnoughConsecutiveSeatsInRowException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public void getAvailableSeats(Blackhole blackhole) {
+        for (Seat seat : room.getAvailableSeats()) {
+            blackhole.consume(seat);
+        }
+    }
+}
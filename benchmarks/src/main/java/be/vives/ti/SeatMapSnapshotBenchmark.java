@@ -0,0 +1,82 @@
+package be.vives.ti;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// four threads book while four threads render the seat map, once from a snapshot and once by copying the available seats
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatMapSnapshotBenchmark {
+
+    private static final int PARTY_SIZE = 4;
+
+    @Param({"1000", "10000"})
+    int capacity;
+
+    @Param({"0.5"})
+    double occupancy;
+
+    private CinemaRoom room;
+
+    @Setup
+    public void fillRoom() {
+        room = BenchmarkRooms.filledRoom(capacity, occupancy, FillPattern.RANDOM, 42);
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(4)
+    public Object bookWhileSnapshotting() {
+        return book();
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(4)
+    public List<Seat> renderFromSnapshot() {
+        return room.snapshot().getAvailableSeats();
+    }
+
+    @Benchmark
+    @Group("copy")
+    @GroupThreads(4)
+    public Object bookWhileCopying() {
+        return book();
+    }
+
+    @Benchmark
+    @Group("copy")
+    @GroupThreads(4)
+    public List<Seat> renderFromCopy() {
+        return new ArrayList<>(room.getAvailableSeats());
+    }
+
+    private Object book() {
+        try {
+            List<Seat> seats = room.reserveConsecutiveSeats(PARTY_SIZE);
+            BenchmarkRooms.release(room, seats);
+            return seats;
+        } catch (NotEnoughConsecutiveSeatsInRowException e) {
+            return e;
+        }
+    }
+}
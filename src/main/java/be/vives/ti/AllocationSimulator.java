@@ -0,0 +1,82 @@
+package be.vives.ti;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class AllocationSimulator {
+
+    private AllocationSimulator() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: AllocationSimulator <number of rows> <seats per row> <request file>");
+            System.exit(1);
+        }
+        RoomLayout layout = RoomLayout.rectangular(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        List<ReservationRequest> requests = readRequests(Path.of(args[2]));
+        Map<String, AllocationStrategy> strategies = new LinkedHashMap<>();
+        strategies.put("first-fit", AllocationStrategy.firstFit());
+        strategies.put("best-fit", AllocationStrategy.bestFit());
+        strategies.put("gap-avoiding", AllocationStrategy.gapAvoiding());
+        System.out.println(layout + ", " + requests.size() + " requests");
+        for (Map.Entry<String, AllocationStrategy> strategy : strategies.entrySet()) {
+            System.out.printf("%-13s %s%n", strategy.getKey(), simulate(layout, requests, strategy.getValue()));
+        }
+    }
+
+    public static SimulationResult simulate(RoomLayout layout, List<ReservationRequest> requests, AllocationStrategy strategy) {
+        CinemaRoom room = new CinemaRoom("Simulation", layout);
+        room.setAllocationStrategy(strategy);
+        int rejectedRequests = 0;
+        for (ReservationRequest request : requests) {
+            try {
+                if (request.isConsecutiveSeats()) {
+                    room.reserveConsecutiveSeats(request.getNumberOfSeats());
+                } else {
+                    room.reserveSeatByNumber(request.getRowNumber(), request.getStartSeatNumber(), request.getNumberOfSeats());
+                }
+            } catch (IllegalArgumentException | NotEnoughConsecutiveSeatsInRowException e) {
+                rejectedRequests++;
+            }
+        }
+        return new SimulationResult(requests.size(), rejectedRequests, room.getReservedSeats().size(), layout.getCapacity());
+    }
+
+    // one request per line: "<party size>" for consecutive seats, "<row> <start seat> <party size>" for a seat by number
+    public static List<ReservationRequest> readRequests(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read request file " + file, e);
+        }
+        List<ReservationRequest> requests = new ArrayList<>(lines.size());
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            try {
+                if (fields.length == 1) {
+                    requests.add(ReservationRequest.consecutiveSeats(Integer.parseInt(fields[0])));
+                } else if (fields.length == 3) {
+                    requests.add(ReservationRequest.seatByNumber(Integer.parseInt(fields[0]),
+                            Integer.parseInt(fields[1]), Integer.parseInt(fields[2])));
+                } else {
+                    throw new IllegalArgumentException("Invalid request on line " + lineNumber + ": " + line);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid request on line " + lineNumber + ": " + line);
+            }
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,25 @@
+package be.vives.ti;
+
+@FunctionalInterface
+public interface AllocationStrategy {
+
+    // cost of seating a party at the start of a free run, -1 when the run must not be used;
+    // the cheapest run wins and ties go to the lowest row and seat number
+    int cost(int runLength, int numberOfSeats);
+
+    static AllocationStrategy firstFit() {
+        return (runLength, numberOfSeats) -> 0;
+    }
+
+    static AllocationStrategy bestFit() {
+        return (runLength, numberOfSeats) -> runLength - numberOfSeats;
+    }
+
+    static AllocationStrategy gapAvoiding() {
+        return (runLength, numberOfSeats) -> {
+            // a single seat left next to the party can only be sold to someone coming alone
+            int remainingSeats = runLength - numberOfSeats;
+            return remainingSeats == 1 ? -1 : remainingSeats;
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package be.vives.ti;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+final class BestBlockIndex {
+
+    private final SeatScores scores;
+    private final int numberOfRows;
+    private final Map<Integer, RowBestBlocks> bestBlocksByPartySize;
+
+    BestBlockIndex(SeatScores scores) {
+        this.scores = scores;
+        this.numberOfRows = scores.getLayout().getNumberOfRows();
+        this.bestBlocksByPartySize = new ConcurrentHashMap<>();
+    }
+
+    SeatScores getScores() {
+        return scores;
+    }
+
+    RowBestBlocks bestBlocks(int numberOfSeats) {
+        RowBestBlocks bestBlocks = bestBlocksByPartySize.get(numberOfSeats);
+        if (bestBlocks == null) {
+            bestBlocks = new RowBestBlocks(numberOfRows);
+            RowBestBlocks existing = bestBlocksByPartySize.putIfAbsent(numberOfSeats, bestBlocks);
+            if (existing != null) {
+                bestBlocks = existing;
+            }
+        }
+        return bestBlocks;
+    }
+
+    // each entry is only read and written while holding the lock of its row
+    static final class RowBestBlocks {
+
+        private final int[] firstSeatIndexes;
+        private final long[] blockScores;
+        private final int[] rowVersions;
+
+        private RowBestBlocks(int numberOfRows) {
+            this.firstSeatIndexes = new int[numberOfRows];
+            this.blockScores = new long[numberOfRows];
+            this.rowVersions = new int[numberOfRows];
+            Arrays.fill(rowVersions, -1);
+        }
+
+        int firstSeatIndex(int rowIndex) {
+            return firstSeatIndexes[rowIndex];
+        }
+
+        long blockScore(int rowIndex) {
+            return blockScores[rowIndex];
+        }
+
+        boolean isCurrent(int rowIndex, int rowVersion) {
+            return rowVersions[rowIndex] == rowVersion;
+        }
+
+        void update(int rowIndex, int rowVersion, int firstSeatIndex, long blockScore) {
+            firstSeatIndexes[rowIndex] = firstSeatIndex;
+            blockScores[rowIndex] = blockScore;
+            rowVersions[rowIndex] = rowVersion;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package be.vives.ti;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x43525331;
+    // version 2 adds the plan of irregular layouts; version 1 snapshots only hold rectangular ones
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final long NO_OCCUPANCY = 0;
+
+    private CatalogSnapshot() {
+    }
+
+    public static void write(ShowtimeCatalog catalog, Path file) {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            Map<RoomLayout, Integer> layoutIndexes = new HashMap<>();
+            List<RoomLayout> layouts = new ArrayList<>();
+            for (RoomLayout layout : catalog.getAuditoriums().values()) {
+                indexOf(layout, layoutIndexes, layouts);
+            }
+
+            // occupancy is copied one room at a time, so bookings in other rooms never wait for the snapshot
+            ByteArrayOutputStream screeningBytes = new ByteArrayOutputStream();
+            DataOutputStream screenings = new DataOutputStream(screeningBytes);
+            int[] numberOfScreenings = new int[1];
+            catalog.forEachScreening((showtimeId, screening) -> {
+                try {
+                    long occupancyOffset = writeReservedRows(channel, screening);
+                    screenings.writeLong(showtimeId);
+                    screenings.writeInt(indexOf(screening.getLayout(), layoutIndexes, layouts));
+                    screenings.writeLong(occupancyOffset);
+                    writeString(screenings, screening.getMovieName());
+                    numberOfScreenings[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            long directoryOffset = channel.position();
+            ByteArrayOutputStream directoryBytes = new ByteArrayOutputStream();
+            DataOutputStream directory = new DataOutputStream(directoryBytes);
+            for (RoomLayout layout : layouts) {
+                directory.writeInt(layout.getNumberOfRows());
+                directory.writeInt(layout.getSeatsPerRow());
+                List<String> plan = layout.plan();
+                directory.writeInt(plan == null ? 0 : plan.size());
+                if (plan != null) {
+                    for (String row : plan) {
+                        writeString(directory, row);
+                    }
+                }
+            }
+            for (Map.Entry<String, RoomLayout> auditorium : catalog.getAuditoriums().entrySet()) {
+                writeString(directory, auditorium.getKey());
+                directory.writeInt(layoutIndexes.get(auditorium.getValue()));
+            }
+            directory.write(screeningBytes.toByteArray());
+            channel.write(ByteBuffer.wrap(directoryBytes.toByteArray()));
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(layouts.size());
+            header.putInt(catalog.getAuditoriums().size());
+            header.putInt(numberOfScreenings[0]);
+            header.putInt(0);
+            header.putLong(directoryOffset);
+            channel.write(header.flip(), 0);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write catalog snapshot " + file, e);
+        }
+        try {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write catalog snapshot " + file, e);
+        }
+    }
+
+    public static ShowtimeCatalog load(Path file) {
+        return load(file, new ShowtimeCatalog());
+    }
+
+    public static ShowtimeCatalog load(Path file, int numberOfShards, Clock clock) {
+        return load(file, new ShowtimeCatalog(numberOfShards, clock));
+    }
+
+    private static ShowtimeCatalog load(Path file, ShowtimeCatalog catalog) {
+        ByteBuffer snapshot;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Catalog snapshot is larger than 2 GB");
+            }
+            // the mapping stays valid after the channel is closed; rooms read their seats from it on first use
+            snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load catalog snapshot " + file, e);
+        }
+        if (snapshot.limit() < HEADER_SIZE || snapshot.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a catalog snapshot");
+        }
+        int version = snapshot.getInt(4);
+        if (version != 1 && version != VERSION) {
+            throw new IllegalStateException("Unsupported catalog snapshot version " + version);
+        }
+
+        ByteBuffer directory = snapshot.duplicate().position((int) snapshot.getLong(24));
+        RoomLayout[] layouts = new RoomLayout[snapshot.getInt(8)];
+        for (int layout = 0; layout < layouts.length; layout++) {
+            int numberOfRows = directory.getInt();
+            int seatsPerRow = directory.getInt();
+            int planRows = version == 1 ? 0 : directory.getInt();
+            if (planRows == 0) {
+                layouts[layout] = RoomLayout.rectangular(numberOfRows, seatsPerRow);
+            } else {
+                List<String> plan = new ArrayList<>(planRows);
+                for (int row = 0; row < planRows; row++) {
+                    plan.add(readString(directory));
+                }
+                layouts[layout] = RoomLayout.fromPlan(plan);
+            }
+        }
+        int numberOfAuditoriums = snapshot.getInt(12);
+        for (int auditorium = 0; auditorium < numberOfAuditoriums; auditorium++) {
+            catalog.addAuditorium(readString(directory), layouts[directory.getInt()]);
+        }
+        int numberOfScreenings = snapshot.getInt(16);
+        for (int screening = 0; screening < numberOfScreenings; screening++) {
+            long showtimeId = directory.getLong();
+            RoomLayout layout = layouts[directory.getInt()];
+            long occupancyOffset = directory.getLong();
+            String movieName = readString(directory);
+            OccupancySnapshot occupancy = occupancyOffset == NO_OCCUPANCY
+                    ? null
+                    : new OccupancySnapshot(snapshot, (int) occupancyOffset, layout);
+            catalog.addScreening(showtimeId, new CinemaRoom(movieName, layout, catalog.getClock(), occupancy));
+        }
+        return catalog;
+    }
+
+    private static long writeReservedRows(FileChannel channel, CinemaRoom screening) throws IOException {
+        long[][] reservedRows = screening.copyReservedRows();
+        if (reservedRows == null || isEmpty(reservedRows)) {
+            return NO_OCCUPANCY;
+        }
+        RoomLayout layout = screening.getLayout();
+        int wordsPerRow = SeatBitmap.wordsFor(layout.getSeatsPerRow());
+        ByteBuffer rows = ByteBuffer.allocate(layout.getNumberOfRows() * wordsPerRow * Long.BYTES);
+        for (long[] words : reservedRows) {
+            for (int word = 0; word < wordsPerRow; word++) {
+                rows.putLong(words == null ? 0 : words[word]);
+            }
+        }
+        long offset = channel.position();
+        channel.write(rows.flip());
+        return offset;
+    }
+
+    private static boolean isEmpty(long[][] reservedRows) {
+        for (long[] words : reservedRows) {
+            if (words != null && SeatBitmap.cardinality(words) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(RoomLayout layout, Map<RoomLayout, Integer> layoutIndexes, List<RoomLayout> layouts) {
+        Integer index = layoutIndexes.get(layout);
+        if (index == null) {
+            index = layouts.size();
+            layoutIndexes.put(layout, index);
+            layouts.add(layout);
+        }
+        return index;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,35 +1,122 @@
 package be.vives.ti;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CinemaRoom {
 
+    private static final SeatStateListener[] NO_LISTENERS = new SeatStateListener[0];
+
     private final String movieName;
+    private final RoomLayout layout;
+    private final Clock clock;
     private final List<Seat> availableSeats;
     private final List<Seat> reservedSeats;
+    private volatile SeatOccupancy occupancy;
+    private volatile HoldRegistry holds;
+    private volatile SeatStateListener[] listeners = NO_LISTENERS;
+    private volatile OccupancySnapshot snapshot;
+    private volatile OffloadedOccupancy offloaded;
+    private volatile ReservationMetrics metrics;
+    private volatile SeatChangeFeed changeFeed;
+    private volatile Thread replayingThread;
+    private volatile AllocationStrategy allocationStrategy = AllocationStrategy.firstFit();
 
     public CinemaRoom(String movieName, int numberOfRows, int seatsPerRow) {
-        if (numberOfRows < 1 || seatsPerRow < 1) {
-            throw new IllegalArgumentException("Number of rows and seats per row must be greater than 0");
-        }
+        this(movieName, numberOfRows, seatsPerRow, Clock.systemUTC());
+    }
+
+    public CinemaRoom(String movieName, int numberOfRows, int seatsPerRow, Clock clock) {
+        this(movieName, RoomLayout.rectangular(numberOfRows, seatsPerRow), clock);
+    }
 
+    public CinemaRoom(String movieName, RoomLayout layout) {
+        this(movieName, layout, Clock.systemUTC());
+    }
+
+    public CinemaRoom(String movieName, RoomLayout layout, Clock clock) {
         this.movieName = movieName;
-        this.availableSeats = new ArrayList<>();
-        this.reservedSeats = new ArrayList<>();
-        for (int row = 1; row <= numberOfRows; row++) {
-            for (int seatNumber = 1; seatNumber <= seatsPerRow; seatNumber++) {
-                availableSeats.add(new Seat(row, seatNumber));
-            }
-        }
+        this.layout = layout;
+        this.clock = clock;
+        this.availableSeats = new SeatView(false);
+        this.reservedSeats = new SeatView(true);
+    }
+
+    CinemaRoom(String movieName, RoomLayout layout, Clock clock, OccupancySnapshot snapshot) {
+        this(movieName, layout, clock);
+        this.snapshot = snapshot;
     }
 
     public String getMovieName() {
         return movieName;
     }
 
+    public RoomLayout getLayout() {
+        return layout;
+    }
+
+    public synchronized void addSeatStateListener(SeatStateListener listener) {
+        SeatStateListener[] extendedListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        extendedListeners[listeners.length] = listener;
+        listeners = extendedListeners;
+    }
+
+    public synchronized void removeSeatStateListener(SeatStateListener listener) {
+        List<SeatStateListener> remainingListeners = new ArrayList<>(Arrays.asList(listeners));
+        remainingListeners.remove(listener);
+        listeners = remainingListeners.toArray(NO_LISTENERS);
+    }
+
+    public AllocationStrategy getAllocationStrategy() {
+        return allocationStrategy;
+    }
+
+    public void setAllocationStrategy(AllocationStrategy allocationStrategy) {
+        if (allocationStrategy == null) {
+            throw new IllegalArgumentException("Allocation strategy must not be null");
+        }
+        this.allocationStrategy = allocationStrategy;
+    }
+
+    public ReservationMetrics getMetrics() {
+        return metrics();
+    }
+
+    public OccupancyGauges getOccupancyGauges() {
+        SeatOccupancy currentOccupancy = occupancy;
+        if (currentOccupancy != null) {
+            return currentOccupancy.gauges();
+        }
+        // reporting must not load every screening of a catalog that was restored from a snapshot
+        OccupancySnapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            return OccupancyGauges.fromReservedRows(layout, currentSnapshot.copyReservedRows());
+        }
+        long[][] offloadedRows = copyOffloadedRows();
+        if (offloadedRows != null) {
+            return OccupancyGauges.fromReservedRows(layout, offloadedRows);
+        }
+        currentOccupancy = occupancy;
+        return currentOccupancy == null
+                ? new OccupancyGauges(layout.getCapacity(), 0, 0, layout.longestRunInEmptyRoom(), layout.sumOfLongestRunsInEmptyRoom())
+                : currentOccupancy.gauges();
+    }
+
+    public void reportMetrics(MetricsReporter reporter) {
+        reporter.reportReservationMetrics(metrics());
+        reporter.reportOccupancy(movieName, getOccupancyGauges());
+    }
+
     public List<Seat> getAvailableSeats() {
+        expireHolds();
         return availableSeats;
     }
 
@@ -37,107 +124,842 @@ public class CinemaRoom {
         return reservedSeats;
     }
 
-    public List<Seat> reserveConsecutiveSeats(int numberOfSeats) {
+    public int getNumberOfAvailableSeats() {
+        expireHolds();
+        SeatOccupancy currentOccupancy = loadedOccupancy();
+        return currentOccupancy == null
+                ? layout.getCapacity()
+                : layout.getCapacity() - currentOccupancy.getNumberOfReservedSeats() - currentOccupancy.getNumberOfHeldSeats();
+    }
+
+    // counted as seats are booked, so no seat list is filtered
+    public int getNumberOfAvailableSeats(SeatCategory category) {
+        validateCategory(category);
+        expireHolds();
+        SeatOccupancy currentOccupancy = loadedOccupancy();
+        return currentOccupancy == null ? layout.getNumberOfSeats(category) : currentOccupancy.getNumberOfAvailableSeats(category);
+    }
+
+    public int getNumberOfAvailableSeatsInRow(int rowNumber) {
+        if (rowNumber <= 0 || rowNumber > layout.getNumberOfRows()) {
+            throw new IllegalArgumentException("Rownumber must be between 1 and " + layout.getNumberOfRows());
+        }
+        expireHolds();
+        SeatOccupancy currentOccupancy = loadedOccupancy();
+        return currentOccupancy == null ? layout.seatsInRow(rowNumber - 1) : currentOccupancy.getNumberOfAvailableSeatsInRow(rowNumber - 1);
+    }
+
+    public int getLongestFreeRun() {
+        expireHolds();
+        SeatOccupancy currentOccupancy = loadedOccupancy();
+        return currentOccupancy == null ? layout.longestRunInEmptyRoom() : currentOccupancy.getLongestFreeRun();
+    }
+
+    public int getLongestFreeRun(SeatCategory category) {
+        validateCategory(category);
+        expireHolds();
+        SeatOccupancy currentOccupancy = loadedOccupancy();
+        return currentOccupancy == null ? layout.longestRunInEmptyRoom(category) : currentOccupancy.getLongestFreeRun(category);
+    }
+
+    public boolean canSeatParty(int numberOfSeats) {
+        validateNumberOfSeats(numberOfSeats);
+        return getLongestFreeRun() >= numberOfSeats;
+    }
+
+    public int[] getFreeRunHistogram() {
+        expireHolds();
+        SeatOccupancy currentOccupancy = loadedOccupancy();
+        return currentOccupancy == null ? layout.freeRunsInEmptyRoom().clone() : currentOccupancy.copyFreeRunHistogram();
+    }
+
+    public SeatChanges getChangesSince(long version) {
+        expireHolds();
+        SeatChangeFeed currentChangeFeed = changeFeed();
+        SeatChanges changes = currentChangeFeed.changesSince(version);
+        return changes != null ? changes : seatMapSnapshot(currentChangeFeed);
+    }
+
+    // a consistent seat map of one moment during the call; bookings go on while it is taken and read
+    public SeatMapSnapshot snapshot() {
+        expireHolds();
+        while (true) {
+            SeatOccupancy currentOccupancy = occupancy;
+            if (currentOccupancy != null) {
+                SeatMapSnapshot seatMap = currentOccupancy.seatMapSnapshot();
+                if (seatMap != null) {
+                    return seatMap;
+                }
+                // the seats moved off the heap while they were read, read them from there
+                continue;
+            }
+            // a room that is not loaded does not change, so it is read without loading it
+            OccupancySnapshot currentSnapshot = snapshot;
+            if (currentSnapshot != null) {
+                return SeatMapSnapshot.fromReservedRows(layout, 0, currentSnapshot.copyReservedRows());
+            }
+            SeatMapSnapshot offloadedSeatMap = offloadedSeatMap();
+            if (offloadedSeatMap != null) {
+                return offloadedSeatMap;
+            }
+            if (occupancy == null) {
+                return SeatMapSnapshot.fromReservedRows(layout, 0, null);
+            }
+        }
+    }
+
+    public Reservation reserveConsecutiveSeats(int numberOfSeats) {
+        validateNumberOfSeats(numberOfSeats);
+        ReservationAttempt attempt = tryReserveConsecutiveSeats(numberOfSeats);
+        if (!attempt.isSuccessful()) {
+            throw NotEnoughConsecutiveSeatsInRowException.IN_ANY_ROW;
+        }
+        return attempt.getReservation();
+    }
+
+    // only seats of the category, found as fast as reserveConsecutiveSeats finds any seats
+    public Reservation reserveConsecutiveSeats(int numberOfSeats, SeatCategory category) {
+        validateNumberOfSeats(numberOfSeats);
+        validateCategory(category);
+        ReservationAttempt attempt = tryReserveConsecutiveSeats(numberOfSeats, category);
+        if (!attempt.isSuccessful()) {
+            throw NotEnoughConsecutiveSeatsInRowException.IN_ANY_ROW;
+        }
+        return attempt.getReservation();
+    }
+
+    public Reservation reserveSeatByNumber(int rowNumber, int startSeatNumber, int numberOfSeats) {
+        validateSeatByNumber(rowNumber, startSeatNumber, numberOfSeats);
+        ReservationAttempt attempt = tryReserveSeatByNumber(rowNumber, startSeatNumber, numberOfSeats);
+        if (!attempt.isSuccessful()) {
+            throw new NotEnoughConsecutiveSeatsInRowException(startSeatNumber);
+        }
+        return attempt.getReservation();
+    }
+
+    // like reserveConsecutiveSeats, but a rejection is returned instead of thrown
+    public ReservationAttempt tryReserveConsecutiveSeats(int numberOfSeats) {
+        return attemptConsecutiveSeats(numberOfSeats, null);
+    }
+
+    public ReservationAttempt tryReserveConsecutiveSeats(int numberOfSeats, SeatCategory category) {
+        validateCategory(category);
+        return attemptConsecutiveSeats(numberOfSeats, category);
+    }
+
+    private ReservationAttempt attemptConsecutiveSeats(int numberOfSeats, SeatCategory category) {
         if (numberOfSeats <= 0) {
-            throw new IllegalArgumentException("Number of seats must be greater than zero");
+            return ReservationAttempt.rejected(RejectionReason.INVALID_NUMBER_OF_SEATS);
+        }
+        expireHolds();
+
+        ReservationMetrics currentMetrics = metrics();
+        long startNanos = System.nanoTime();
+        try {
+            SeatOccupancy currentOccupancy = occupancy();
+            int sequence = currentOccupancy.nextReservationSequence();
+            int firstSeatId = numberOfSeats > layout.getSeatsPerRow()
+                    ? -1
+                    : currentOccupancy.occupyConsecutiveSeats(numberOfSeats, category, false, sequence, allocationStrategy, currentMetrics);
+            if (firstSeatId < 0) {
+                currentOccupancy.returnReservationSequence(sequence);
+                currentMetrics.recordRejection(numberOfSeats);
+                return ReservationAttempt.rejected(RejectionReason.NO_FREE_RUN);
+            }
+            return ReservationAttempt.reserved(newReservation(sequence, firstSeatId, numberOfSeats));
+        } finally {
+            currentMetrics.recordConsecutiveSeatsLatency(System.nanoTime() - startNanos);
+        }
+    }
+
+    // like reserveSeatByNumber, but a rejection is returned instead of thrown
+    public ReservationAttempt tryReserveSeatByNumber(int rowNumber, int startSeatNumber, int numberOfSeats) {
+        if (numberOfSeats <= 0) {
+            return ReservationAttempt.rejected(RejectionReason.INVALID_NUMBER_OF_SEATS);
+        }
+        if (rowNumber <= 0) {
+            return ReservationAttempt.rejected(RejectionReason.INVALID_ROW);
+        }
+        if (startSeatNumber <= 0) {
+            return ReservationAttempt.rejected(RejectionReason.INVALID_SEAT);
         }
+        expireHolds();
 
-        List<Seat> reservedConsecutiveSeats = new ArrayList<>();
-        int row = 1;
-        while (reservedConsecutiveSeats.isEmpty() && row <= getMaxRow()) {
-            reservedConsecutiveSeats = reserveConsecutiveSeatsInRow(numberOfSeats, row);
-            row++;
+        ReservationMetrics currentMetrics = metrics();
+        long startNanos = System.nanoTime();
+        try {
+            RejectionReason outsideRoom = rowNumber > layout.getNumberOfRows() ? RejectionReason.INVALID_ROW
+                    : runsPastEndOfRow(startSeatNumber, numberOfSeats) ? RejectionReason.INVALID_SEAT
+                    : null;
+            if (outsideRoom != null) {
+                currentMetrics.recordRejection(numberOfSeats);
+                return ReservationAttempt.rejected(outsideRoom);
+            }
+            SeatOccupancy currentOccupancy = occupancy();
+            int sequence = currentOccupancy.nextReservationSequence();
+            int takenSeatIndex = currentOccupancy.occupySeats(rowNumber - 1, startSeatNumber - 1, numberOfSeats, false, sequence);
+            if (takenSeatIndex >= 0) {
+                currentOccupancy.returnReservationSequence(sequence);
+                currentMetrics.recordRejection(numberOfSeats);
+                // an aisle or a missing seat in the range looks taken in the bitmap, but no booking will ever free it
+                return layout.isSeat(rowNumber, takenSeatIndex + 1)
+                        ? ReservationAttempt.seatTaken(layout.seat((rowNumber - 1) * layout.getSeatsPerRow() + takenSeatIndex))
+                        : ReservationAttempt.rejected(RejectionReason.INVALID_SEAT);
+            }
+            return ReservationAttempt.reserved(newReservation(sequence, layout.seatId(rowNumber, startSeatNumber), numberOfSeats));
+        } finally {
+            currentMetrics.recordSeatByNumberLatency(System.nanoTime() - startNanos);
+        }
+    }
+
+    public Reservation reserveBestAvailableSeats(int numberOfSeats) {
+        return reserveBestAvailableSeats(numberOfSeats, layout.getCentreOfRoomScores());
+    }
+
+    public Reservation reserveBestAvailableSeats(int numberOfSeats, SeatScores scores) {
+        validateNumberOfSeats(numberOfSeats);
+        if (scores.getLayout() != layout) {
+            throw new IllegalArgumentException("Seat scores belong to another layout");
+        }
+        expireHolds();
+
+        if (numberOfSeats > layout.getSeatsPerRow()) {
+            throw NotEnoughConsecutiveSeatsInRowException.IN_ANY_ROW;
         }
-        if (reservedConsecutiveSeats.isEmpty()) {
-            throw new NotEnoughConsecutiveSeatsInRowException();
+        SeatOccupancy currentOccupancy = occupancy();
+        int sequence = currentOccupancy.nextReservationSequence();
+        int firstSeatId = currentOccupancy.occupyBestSeats(numberOfSeats, false, sequence, scores);
+        if (firstSeatId < 0) {
+            currentOccupancy.returnReservationSequence(sequence);
+            throw NotEnoughConsecutiveSeatsInRowException.IN_ANY_ROW;
         }
-        return reservedConsecutiveSeats;
+        return newReservation(sequence, firstSeatId, numberOfSeats);
     }
 
-    private List<Seat> reserveConsecutiveSeatsInRow(int numberOfSeats, int row) {
-        List<Seat> availableSeatsInRow = getAvailableSeatsInRow(row);
-        List<Seat> consecutiveSeats = new ArrayList<>();
-        if (availableSeatsInRow.size() >= numberOfSeats) {
-            consecutiveSeats = findConsecutiveSeats(availableSeatsInRow, numberOfSeats);
-            if (!consecutiveSeats.isEmpty()) {
-                reserveSeats(consecutiveSeats);
+    public List<Reservation> reserveSeatsAllowingSplit(int numberOfSeats) {
+        validateNumberOfSeats(numberOfSeats);
+        expireHolds();
+
+        ReservationMetrics currentMetrics = metrics();
+        long startNanos = System.nanoTime();
+        try {
+            SeatOccupancy currentOccupancy = occupancy();
+            int sequence = currentOccupancy.nextReservationSequence();
+            if (numberOfSeats <= layout.getSeatsPerRow()) {
+                int firstSeatId = currentOccupancy.occupyConsecutiveSeats(numberOfSeats, false, sequence, allocationStrategy, currentMetrics);
+                if (firstSeatId >= 0) {
+                    return List.of(newReservation(sequence, firstSeatId, numberOfSeats));
+                }
+            }
+            // every block shares the sequence but has its own id, so each block can be cancelled on its own
+            int[] blocks = currentOccupancy.occupySplitSeats(numberOfSeats, sequence);
+            if (blocks == null) {
+                currentMetrics.recordRejection(numberOfSeats);
+                throw new NotEnoughSeatsAvailableException(numberOfSeats);
             }
+            List<Reservation> reservations = new ArrayList<>(blocks.length / 2);
+            for (int block = 0; block < blocks.length; block += 2) {
+                reservations.add(newReservation(sequence, blocks[block], blocks[block + 1]));
+            }
+            return reservations;
+        } finally {
+            currentMetrics.recordConsecutiveSeatsLatency(System.nanoTime() - startNanos);
         }
-        return consecutiveSeats;
     }
 
-    private List<Seat> findConsecutiveSeats(List<Seat> availableSeatsInRow, int numberOfSeats) {
-        List<Seat> consecutiveSeats = new ArrayList<>();
-        Collections.sort(availableSeatsInRow);
+    public List<ReservationOutcome> reserveBatch(List<ReservationRequest> requests) {
+        return reserveBatch(requests, false);
+    }
+
+    public List<ReservationOutcome> reserveBatch(List<ReservationRequest> requests, boolean allOrNothing) {
+        expireHolds();
 
-        int firstSeatInConsecutiveRow = 0;
-        while (consecutiveSeats.isEmpty() && firstSeatInConsecutiveRow <= availableSeatsInRow.size() - numberOfSeats) {
-            boolean isConsecutive = true;
-            int numberOfConsecutiveSeatsFound = 0;
-            while (isConsecutive && numberOfConsecutiveSeatsFound < numberOfSeats - 1) {
-                if (availableSeatsInRow.get(firstSeatInConsecutiveRow + numberOfConsecutiveSeatsFound).getSeatNumber() + 1 != availableSeatsInRow.get(firstSeatInConsecutiveRow + numberOfConsecutiveSeatsFound + 1).getSeatNumber()) {
-                    isConsecutive = false;
+        List<ReservationOutcome> outcomes = new ArrayList<>(requests.size());
+        boolean failed = false;
+        SeatOccupancy currentOccupancy = lockAllRows();
+        try {
+            for (ReservationRequest request : requests) {
+                ReservationOutcome outcome = reserve(request);
+                failed |= !outcome.isSuccessful();
+                outcomes.add(outcome);
+                if (failed && allOrNothing) {
+                    break;
                 }
-                numberOfConsecutiveSeatsFound++;
             }
-            if (isConsecutive) {
-                consecutiveSeats.addAll(availableSeatsInRow.subList(firstSeatInConsecutiveRow, firstSeatInConsecutiveRow + numberOfSeats));
+            if (failed && allOrNothing) {
+                return rollBack(requests, outcomes);
             }
-            firstSeatInConsecutiveRow++;
+        } finally {
+            currentOccupancy.unlockAllRows();
         }
-        return consecutiveSeats;
+        return outcomes;
     }
 
-    public List<Seat> reserveSeatByNumber(int rowNumber, int startSeatNumber, int numberOfSeats) {
-        if (rowNumber <= 0) {
-            throw new IllegalArgumentException("Rownumber must be greater than zero");
+    // runs the changes with every row locked once; the free run indexes and published copies of the rows they
+    // take seats in are updated once when the changes end, instead of after every change
+    void applyBatch(Runnable changes) {
+        SeatOccupancy currentOccupancy = lockAllRows();
+        try {
+            changes.run();
+        } finally {
+            currentOccupancy.unlockAllRows();
+        }
+    }
+
+    public SeatHold holdConsecutiveSeats(int numberOfSeats, Duration timeToLive) {
+        validateNumberOfSeats(numberOfSeats);
+        validateTimeToLive(timeToLive);
+        expireHolds();
+
+        int firstSeatId = occupyConsecutiveSeats(numberOfSeats, true, SeatOccupancy.NO_OWNER);
+        return registerHold(firstSeatId, numberOfSeats, timeToLive);
+    }
+
+    public SeatHold holdSeatByNumber(int rowNumber, int startSeatNumber, int numberOfSeats, Duration timeToLive) {
+        validateSeatByNumber(rowNumber, startSeatNumber, numberOfSeats);
+        validateTimeToLive(timeToLive);
+        expireHolds();
+
+        occupySeatsByNumber(rowNumber, startSeatNumber, numberOfSeats, true, SeatOccupancy.NO_OWNER);
+        return registerHold(layout.seatId(rowNumber, startSeatNumber), numberOfSeats, timeToLive);
+    }
+
+    public Reservation confirm(long holdId) {
+        expireHolds();
+        SeatHold hold = removeActiveHold(holdId);
+
+        SeatOccupancy currentOccupancy = occupancy();
+        int sequence = currentOccupancy.nextReservationSequence();
+        currentOccupancy.confirmHeldSeats(hold.getRow() - 1, hold.getStartSeatNumber() - 1, hold.getNumberOfSeats(), sequence);
+        return newReservation(sequence, layout.seatId(hold.getRow(), hold.getStartSeatNumber()), hold.getNumberOfSeats());
+    }
+
+    public void release(long holdId) {
+        expireHolds();
+        freeHeldSeats(removeActiveHold(holdId));
+    }
+
+    public void releaseSeats(int rowNumber, int startSeatNumber, int numberOfSeats) {
+        validateSeatByNumber(rowNumber, startSeatNumber, numberOfSeats);
+        if (rowNumber > layout.getNumberOfRows()
+                || runsPastEndOfRow(startSeatNumber, numberOfSeats)
+                || !occupancy().releaseSeats(rowNumber - 1, startSeatNumber - 1, numberOfSeats)) {
+            throw new ReservationNotFoundException(rowNumber, startSeatNumber, numberOfSeats);
+        }
+    }
+
+    public void cancelReservation(long reservationId) {
+        int sequence = Reservation.sequence(reservationId);
+        int firstSeatId = Reservation.firstSeatId(reservationId);
+        int numberOfSeats = Reservation.numberOfSeats(reservationId);
+        int seatsPerRow = layout.getSeatsPerRow();
+        // ids are only handed out by a loaded room, so only an offloaded room has to be loaded again;
+        // offloading clears the occupancy after it set the offloaded seats, so read them in that order
+        SeatOccupancy currentOccupancy = occupancy;
+        if (currentOccupancy == null && offloaded != null) {
+            currentOccupancy = occupancy();
+        }
+        if (currentOccupancy == null
+                || sequence == SeatOccupancy.NO_OWNER
+                || numberOfSeats == 0
+                || firstSeatId / seatsPerRow >= layout.getNumberOfRows()
+                || firstSeatId % seatsPerRow + numberOfSeats > seatsPerRow
+                || currentOccupancy.cancelReservation(firstSeatId / seatsPerRow, firstSeatId % seatsPerRow, numberOfSeats, sequence) == 0) {
+            throw new ReservationNotFoundException(reservationId);
+        }
+    }
+
+    public void expireHolds() {
+        HoldRegistry currentHolds = holds;
+        if (currentHolds == null) {
+            return;
+        }
+        for (SeatHold expiredHold : currentHolds.expire(clock.millis())) {
+            freeHeldSeats(expiredHold);
+        }
+    }
+
+    void useMetrics(ReservationMetrics sharedMetrics) {
+        metrics = sharedMetrics;
+    }
+
+    // a journal replayed over a catalog snapshot repeats changes the snapshot already holds, so a record only
+    // changes the seats that are not yet in the recorded state; replaying a record twice changes nothing.
+    // Replayed seats were already recorded, so the seat state listeners (a journal among them) are not told;
+    // only the seat map feed follows them
+    void replaySeatsReserved(int rowNumber, int startSeatNumber, int numberOfSeats) {
+        replaySeats(rowNumber, startSeatNumber, numberOfSeats, true);
+    }
+
+    void replaySeatsReleased(int rowNumber, int startSeatNumber, int numberOfSeats) {
+        replaySeats(rowNumber, startSeatNumber, numberOfSeats, false);
+    }
+
+    private void replaySeats(int rowNumber, int startSeatNumber, int numberOfSeats, boolean reserved) {
+        if (rowNumber > layout.getNumberOfRows() || runsPastEndOfRow(startSeatNumber, numberOfSeats)) {
+            throw new NotEnoughConsecutiveSeatsInRowException(startSeatNumber);
         }
+        SeatOccupancy currentOccupancy = occupancy();
+        long[] occupiedWords = currentOccupancy.occupiedWords(rowNumber - 1);
+        int endIndex = startSeatNumber - 1 + numberOfSeats;
+        int seatIndex = startSeatNumber - 1;
+        replayingThread = Thread.currentThread();
+        try {
+            while (seatIndex < endIndex) {
+            int runStart = reserved
+                    ? SeatBitmap.nextClearBit(occupiedWords, seatIndex, endIndex)
+                    : SeatBitmap.nextSetBit(occupiedWords, seatIndex, endIndex);
+            int runEnd = reserved
+                    ? SeatBitmap.nextSetBit(occupiedWords, runStart, endIndex)
+                    : SeatBitmap.nextClearBit(occupiedWords, runStart, endIndex);
+                if (runStart < runEnd) {
+                    if (reserved) {
+                        occupySeatsByNumber(rowNumber, runStart + 1, runEnd - runStart, false, SeatOccupancy.NO_OWNER);
+                    } else {
+                        currentOccupancy.freeSeats(rowNumber - 1, runStart, runEnd - runStart, false);
+                    }
+                }
+                seatIndex = runEnd;
+            }
+        } finally {
+            replayingThread = null;
+        }
+    }
+
+    long[][] copyReservedRows() {
+        SeatOccupancy currentOccupancy = occupancy;
+        if (currentOccupancy != null) {
+            return currentOccupancy.copyReservedRows();
+        }
+        // a room loaded from a snapshot that nobody touched yet is copied without loading it
+        OccupancySnapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null) {
+            return currentSnapshot.copyReservedRows();
+        }
+        long[][] offloadedRows = copyOffloadedRows();
+        if (offloadedRows != null) {
+            return offloadedRows;
+        }
+        // the snapshot is only cleared after the room was loaded, so read the occupancy again
+        currentOccupancy = occupancy;
+        return currentOccupancy == null ? null : currentOccupancy.copyReservedRows();
+    }
+
+    // moves the seats into the store when no seat is held and nothing changed since the previous call;
+    // the first call after the room was loaded only takes note of its state
+    boolean offload(OffHeapOccupancyStore store) {
+        SeatOccupancy currentOccupancy = occupancy;
+        if (currentOccupancy == null || !currentOccupancy.lockAllRows()) {
+            return false;
+        }
+        try {
+            if (!currentOccupancy.isIdleSinceLastCheck()) {
+                return false;
+            }
+            synchronized (this) {
+                // threads that still hold the old occupancy are sent to the loaded one from now on
+                offloaded = currentOccupancy.offload(store);
+                occupancy = null;
+            }
+            return true;
+        } finally {
+            currentOccupancy.unlockAllRows();
+        }
+    }
+
+    // a screening removed from the catalog gives its slot back without loading its seats; only its reservation
+    // sequence is kept, so a reference that is still around never hands out an id twice
+    synchronized void discardOffloadedSeats() {
+        OffloadedOccupancy currentOffloaded = offloaded;
+        if (currentOffloaded != null) {
+            offloaded = new OffloadedOccupancy(layout, currentOffloaded.reservationSequence(), currentOffloaded.version());
+            currentOffloaded.discard();
+        }
+    }
+
+    // null when the room is not offloaded; the slot is only read under the lock that guards loading it back
+    private synchronized long[][] copyOffloadedRows() {
+        OffloadedOccupancy currentOffloaded = offloaded;
+        return currentOffloaded == null ? null : currentOffloaded.copyReservedRows();
+    }
+
+    private synchronized SeatMapSnapshot offloadedSeatMap() {
+        OffloadedOccupancy currentOffloaded = offloaded;
+        return currentOffloaded == null
+                ? null
+                : SeatMapSnapshot.fromReservedRows(layout, currentOffloaded.version(), currentOffloaded.copyReservedRows());
+    }
+
+    private SeatOccupancy occupancy() {
+        SeatOccupancy currentOccupancy = occupancy;
+        if (currentOccupancy == null) {
+            synchronized (this) {
+                currentOccupancy = occupancy;
+                if (currentOccupancy == null) {
+                    OffloadedOccupancy currentOffloaded = offloaded;
+                    currentOccupancy = new SeatOccupancy(layout, this::notifyListeners,
+                            currentOffloaded == null ? new AtomicInteger() : currentOffloaded.reservationSequence(), this::occupancy);
+                    if (snapshot != null) {
+                        currentOccupancy.restoreReservedRows(snapshot.copyReservedRows());
+                    } else if (currentOffloaded != null) {
+                        currentOffloaded.restoreInto(currentOccupancy);
+                        currentOffloaded.discard();
+                    }
+                    occupancy = currentOccupancy;
+                    snapshot = null;
+                    offloaded = null;
+                }
+            }
+        }
+        return currentOccupancy;
+    }
+
+    private SeatOccupancy loadedOccupancy() {
+        SeatOccupancy currentOccupancy = occupancy;
+        if (currentOccupancy == null && (snapshot != null || offloaded != null)) {
+            return occupancy();
+        }
+        return currentOccupancy;
+    }
+
+    private ReservationMetrics metrics() {
+        ReservationMetrics currentMetrics = metrics;
+        if (currentMetrics == null) {
+            synchronized (this) {
+                currentMetrics = metrics;
+                if (currentMetrics == null) {
+                    currentMetrics = new ReservationMetrics();
+                    metrics = currentMetrics;
+                }
+            }
+        }
+        return currentMetrics;
+    }
+
+    // when a listener fails the change is rolled back, so the listeners that already saw it see it undone
+    private void notifyListeners(int rowNumber, int startSeatNumber, int numberOfSeats, SeatState previousState, SeatState newState) {
+        if (replayingThread == Thread.currentThread()) {
+            SeatChangeFeed currentChangeFeed = changeFeed;
+            if (currentChangeFeed != null) {
+                currentChangeFeed.seatsChanged(rowNumber, startSeatNumber, numberOfSeats, previousState, newState);
+            }
+            return;
+        }
+        SeatStateListener[] currentListeners = listeners;
+        for (int index = 0; index < currentListeners.length; index++) {
+            try {
+                currentListeners[index].seatsChanged(rowNumber, startSeatNumber, numberOfSeats, previousState, newState);
+            } catch (RuntimeException e) {
+                for (int notified = 0; notified < index; notified++) {
+                    currentListeners[notified].seatsChanged(rowNumber, startSeatNumber, numberOfSeats, newState, previousState);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private SeatChangeFeed changeFeed() {
+        SeatChangeFeed currentChangeFeed = changeFeed;
+        if (currentChangeFeed == null) {
+            synchronized (this) {
+                currentChangeFeed = changeFeed;
+                if (currentChangeFeed == null) {
+                    // rooms nobody watches do not pay for the feed
+                    currentChangeFeed = new SeatChangeFeed(layout);
+                    addSeatStateListener(currentChangeFeed);
+                    changeFeed = currentChangeFeed;
+                }
+            }
+        }
+        return currentChangeFeed;
+    }
+
+    private SeatChanges seatMapSnapshot(SeatChangeFeed currentChangeFeed) {
+        // changes after this version may already show in the copy; applying them again later does no harm
+        long version = currentChangeFeed.getLastVersion();
+        List<SeatChange> changes = new ArrayList<>();
+        SeatOccupancy currentOccupancy = loadedOccupancy();
+        if (currentOccupancy != null) {
+            long[][] reservedRows = new long[layout.getNumberOfRows()][];
+            long[][] heldRows = new long[layout.getNumberOfRows()][];
+            currentOccupancy.copySeatStates(reservedRows, heldRows);
+            for (int rowIndex = 0; rowIndex < reservedRows.length; rowIndex++) {
+                if (reservedRows[rowIndex] != null) {
+                    addSnapshotChanges(changes, rowIndex, reservedRows[rowIndex], SeatState.RESERVED, version);
+                    addSnapshotChanges(changes, rowIndex, heldRows[rowIndex], SeatState.HELD, version);
+                }
+            }
+        }
+        return new SeatChanges(version, true, changes);
+    }
+
+    private void addSnapshotChanges(List<SeatChange> changes, int rowIndex, long[] words, SeatState state, long version) {
+        int seatsPerRow = layout.getSeatsPerRow();
+        for (int seatIndex = SeatBitmap.nextSetBit(words, 0, seatsPerRow);
+             seatIndex < seatsPerRow;
+             seatIndex = SeatBitmap.nextSetBit(words, seatIndex + 1, seatsPerRow)) {
+            changes.add(new SeatChange(layout.seat(rowIndex * seatsPerRow + seatIndex), SeatState.AVAILABLE, state, version));
+        }
+    }
+
+    private HoldRegistry holds() {
+        HoldRegistry currentHolds = holds;
+        if (currentHolds == null) {
+            synchronized (this) {
+                currentHolds = holds;
+                if (currentHolds == null) {
+                    currentHolds = new HoldRegistry(clock.millis());
+                    holds = currentHolds;
+                }
+            }
+        }
+        return currentHolds;
+    }
+
+    private void validateNumberOfSeats(int numberOfSeats) {
         if (numberOfSeats <= 0) {
             throw new IllegalArgumentException("Number of seats must be greater than zero");
         }
+    }
+
+    private void validateCategory(SeatCategory category) {
+        if (category == null) {
+            throw new IllegalArgumentException("Seat category must not be null");
+        }
+    }
+
+    private void validateSeatByNumber(int rowNumber, int startSeatNumber, int numberOfSeats) {
+        if (rowNumber <= 0) {
+            throw new IllegalArgumentException("Rownumber must be greater than zero");
+        }
+        validateNumberOfSeats(numberOfSeats);
         if (startSeatNumber <= 0) {
             throw new IllegalArgumentException("Start seat number must be greater than zero");
         }
+    }
 
-        List<Seat> availableSeatsInRow = getAvailableSeatsInRow(rowNumber);
-        List<Seat> consecutiveSeats = new ArrayList<>();
-        for (int i = 0; i < numberOfSeats; i++) {
-            int seatToCheck = startSeatNumber + i;
-            Seat seat = new Seat(rowNumber, seatToCheck);
-            if (availableSeatsInRow.contains(seat)) {
-                consecutiveSeats.add(seat);
-            } else {
-                throw new NotEnoughConsecutiveSeatsInRowException(startSeatNumber);
-            }
+    private void validateTimeToLive(Duration timeToLive) {
+        if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be greater than zero");
+        }
+    }
+
+    private int occupyConsecutiveSeats(int numberOfSeats, boolean held, int owner) {
+        if (numberOfSeats > layout.getSeatsPerRow()) {
+            throw NotEnoughConsecutiveSeatsInRowException.IN_ANY_ROW;
+        }
+        int firstSeatId = occupancy().occupyConsecutiveSeats(numberOfSeats, held, owner, allocationStrategy, metrics());
+        if (firstSeatId < 0) {
+            throw NotEnoughConsecutiveSeatsInRowException.IN_ANY_ROW;
+        }
+        return firstSeatId;
+    }
+
+    private void occupySeatsByNumber(int rowNumber, int startSeatNumber, int numberOfSeats, boolean held, int owner) {
+        if (rowNumber > layout.getNumberOfRows()
+                || runsPastEndOfRow(startSeatNumber, numberOfSeats)
+                || occupancy().occupySeats(rowNumber - 1, startSeatNumber - 1, numberOfSeats, held, owner) >= 0) {
+            throw new NotEnoughConsecutiveSeatsInRowException(startSeatNumber);
         }
+    }
+
+    // compared without adding both numbers, so a huge start seat cannot overflow into a seat inside the row
+    private boolean runsPastEndOfRow(int startSeatNumber, int numberOfSeats) {
+        int seatsPerRow = layout.getSeatsPerRow();
+        return numberOfSeats > seatsPerRow || startSeatNumber > seatsPerRow - numberOfSeats + 1;
+    }
 
-        reserveSeats(consecutiveSeats);
-        return consecutiveSeats;
+    private SeatOccupancy lockAllRows() {
+        SeatOccupancy currentOccupancy = occupancy();
+        while (!currentOccupancy.lockAllRows()) {
+            // the room was offloaded in the meantime
+            currentOccupancy = occupancy();
+        }
+        return currentOccupancy;
     }
 
-    private int getMaxRow() {
-        int maxRow = 0;
-        for (Seat seat : availableSeats) {
-            if (seat.getRow() > maxRow) {
-                maxRow = seat.getRow();
+    private ReservationOutcome reserve(ReservationRequest request) {
+        try {
+            int sequence = occupancy().nextReservationSequence();
+            if (request.isConsecutiveSeats()) {
+                validateNumberOfSeats(request.getNumberOfSeats());
+                int firstSeatId = occupyConsecutiveSeats(request.getNumberOfSeats(), false, sequence);
+                return ReservationOutcome.success(request, newReservation(sequence, firstSeatId, request.getNumberOfSeats()));
             }
+            validateSeatByNumber(request.getRowNumber(), request.getStartSeatNumber(), request.getNumberOfSeats());
+            occupySeatsByNumber(request.getRowNumber(), request.getStartSeatNumber(), request.getNumberOfSeats(), false, sequence);
+            int firstSeatId = layout.seatId(request.getRowNumber(), request.getStartSeatNumber());
+            return ReservationOutcome.success(request, newReservation(sequence, firstSeatId, request.getNumberOfSeats()));
+        } catch (IllegalArgumentException | NotEnoughConsecutiveSeatsInRowException e) {
+            return ReservationOutcome.failure(request, e.getMessage());
         }
-        return maxRow;
     }
 
-    private List<Seat> getAvailableSeatsInRow(int row) {
-        List<Seat> availableSeatsInRow = new ArrayList<>();
-        for (Seat availableSeat : availableSeats) {
-            if (availableSeat.getRow() == row) {
-                availableSeatsInRow.add(availableSeat);
+    private List<ReservationOutcome> rollBack(List<ReservationRequest> requests, List<ReservationOutcome> outcomes) {
+        List<ReservationOutcome> rolledBack = new ArrayList<>(requests.size());
+        for (ReservationOutcome outcome : outcomes) {
+            if (outcome.isSuccessful()) {
+                Seat firstSeat = outcome.getSeats().get(0);
+                occupancy().freeSeats(firstSeat.getRow() - 1, firstSeat.getSeatNumber() - 1, outcome.getSeats().size(), false);
+                rolledBack.add(ReservationOutcome.failure(outcome.getRequest(), "Batch rolled back because another request failed"));
+            } else {
+                rolledBack.add(outcome);
             }
         }
-        return availableSeatsInRow;
+        for (int i = outcomes.size(); i < requests.size(); i++) {
+            rolledBack.add(ReservationOutcome.failure(requests.get(i), "Batch rolled back because another request failed"));
+        }
+        return rolledBack;
+    }
+
+    private Reservation newReservation(int sequence, int firstSeatId, int numberOfSeats) {
+        return new Reservation(layout, Reservation.id(sequence, firstSeatId, numberOfSeats));
+    }
+
+    private SeatHold registerHold(int firstSeatId, int numberOfSeats, Duration timeToLive) {
+        return holds().add(new SeatRange(layout, firstSeatId, numberOfSeats), clock.instant().plus(timeToLive));
+    }
+
+    private SeatHold removeActiveHold(long holdId) {
+        HoldRegistry currentHolds = holds;
+        SeatHold hold = currentHolds == null ? null : currentHolds.remove(holdId);
+        if (hold == null) {
+            throw new HoldNotFoundException(holdId);
+        }
+        return hold;
+    }
+
+    private void freeHeldSeats(SeatHold hold) {
+        occupancy().freeSeats(hold.getRow() - 1, hold.getStartSeatNumber() - 1, hold.getNumberOfSeats(), true);
     }
 
-    private void reserveSeats(List<Seat> seatsToReserve) {
-        reservedSeats.addAll(seatsToReserve);
-        availableSeats.removeAll(seatsToReserve);
+    private class SeatView extends AbstractList<Seat> {
+
+        private final boolean reserved;
+
+        SeatView(boolean reserved) {
+            this.reserved = reserved;
+        }
+
+        @Override
+        public int size() {
+            SeatOccupancy currentOccupancy = loadedOccupancy();
+            if (currentOccupancy == null) {
+                return reserved ? 0 : layout.getCapacity();
+            }
+            int reservedCount = currentOccupancy.getNumberOfReservedSeats();
+            return reserved ? reservedCount : layout.getCapacity() - reservedCount - currentOccupancy.getNumberOfHeldSeats();
+        }
+
+        // whole rows are skipped on their seat counts, within the row the seat is picked a word at a time
+        @Override
+        public Seat get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+            }
+            SeatOccupancy currentOccupancy = loadedOccupancy();
+            int remaining = index;
+            int row = 0;
+            int seatsInRow = countSeatsInRow(currentOccupancy, row);
+            while (remaining >= seatsInRow) {
+                remaining -= seatsInRow;
+                row++;
+                if (row == layout.getNumberOfRows()) {
+                    throw new ConcurrentModificationException();
+                }
+                seatsInRow = countSeatsInRow(currentOccupancy, row);
+            }
+            int seatsPerRow = layout.getSeatsPerRow();
+            for (int word = 0; word < SeatBitmap.wordsFor(seatsPerRow); word++) {
+                long seatBits = seatWord(row, word);
+                int seatsInWord = Long.bitCount(seatBits);
+                if (remaining < seatsInWord) {
+                    for (int i = 0; i < remaining; i++) {
+                        seatBits &= seatBits - 1;
+                    }
+                    return layout.seat(row * seatsPerRow + word * Long.SIZE + Long.numberOfTrailingZeros(seatBits));
+                }
+                remaining -= seatsInWord;
+            }
+            throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Seat seat)
+                    || seat.getRow() < 1 || seat.getRow() > layout.getNumberOfRows()
+                    || !layout.isSeat(seat.getRow(), seat.getSeatNumber())) {
+                return false;
+            }
+            int row = seat.getRow() - 1;
+            int seatIndex = seat.getSeatNumber() - 1;
+            boolean occupied = SeatBitmap.isSet(occupiedWords(row), seatIndex);
+            return reserved ? occupied && !SeatBitmap.isSet(heldWords(row), seatIndex) : !occupied;
+        }
+
+        @Override
+        public Iterator<Seat> iterator() {
+            return new Iterator<>() {
+                private int row;
+                private int seatIndex = nextSeatIndex(0, 0);
+
+                @Override
+                public boolean hasNext() {
+                    while (seatIndex >= layout.getSeatsPerRow() && row < layout.getNumberOfRows() - 1) {
+                        row++;
+                        seatIndex = nextSeatIndex(row, 0);
+                    }
+                    return seatIndex < layout.getSeatsPerRow();
+                }
+
+                @Override
+                public Seat next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Seat seat = layout.seat(row * layout.getSeatsPerRow() + seatIndex);
+                    seatIndex = nextSeatIndex(row, seatIndex + 1);
+                    return seat;
+                }
+            };
+        }
+
+        private int countSeatsInRow(SeatOccupancy currentOccupancy, int row) {
+            if (currentOccupancy == null) {
+                return reserved ? 0 : layout.seatsInRow(row);
+            }
+            int occupiedInRow = currentOccupancy.occupiedSeatsInRow(row);
+            if (!reserved) {
+                return layout.seatsInRow(row) - occupiedInRow;
+            }
+            return currentOccupancy.getNumberOfHeldSeats() == 0 ? occupiedInRow : occupiedInRow - SeatBitmap.cardinality(heldWords(row));
+        }
+
+        // the seats of the view in one word of the row
+        private long seatWord(int row, int word) {
+            long occupied = occupiedWords(row)[word];
+            if (reserved) {
+                return occupied & ~heldWords(row)[word] & ~layout.blockedWords(row)[word];
+            }
+            int bitsInWord = Math.min(Long.SIZE, layout.getSeatsPerRow() - word * Long.SIZE);
+            return bitsInWord == Long.SIZE ? ~occupied : ~occupied & ((1L << bitsInWord) - 1);
+        }
+
+        private int nextSeatIndex(int row, int fromIndex) {
+            return reserved
+                    ? SeatBitmap.nextSetBit(occupiedWords(row), heldWords(row), layout.blockedWords(row), fromIndex, layout.getSeatsPerRow())
+                    : SeatBitmap.nextClearBit(occupiedWords(row), fromIndex, layout.getSeatsPerRow());
+        }
+
+        private long[] occupiedWords(int row) {
+            SeatOccupancy currentOccupancy = loadedOccupancy();
+            return currentOccupancy == null ? layout.blockedWords(row) : currentOccupancy.occupiedWords(row);
+        }
+
+        private long[] heldWords(int row) {
+            SeatOccupancy currentOccupancy = loadedOccupancy();
+            return currentOccupancy == null ? layout.emptyRowWords() : currentOccupancy.heldWords(row);
+        }
     }
 
 }
@@ -0,0 +1,103 @@
+package be.vives.ti;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// a max tree over the longest free run per row; a row is only updated under its own row lock, so the tree itself
+// takes no lock and a search never waits for a booking in another row
+final class FreeRunIndex {
+
+    // an inner node holds its run length in the low half and counts its changes in the high half, so a node that
+    // was recomputed from children that changed in the meantime can never be written back
+    private static final long VALUE_MASK = 0xFFFF_FFFFL;
+    private static final long ONE_CHANGE = 1L << 32;
+
+    private final int leafOffset;
+    private final AtomicLongArray nodes;
+
+    FreeRunIndex(int[] initialRunLengths) {
+        int numberOfRows = initialRunLengths.length;
+        int leaves = Integer.highestOneBit(Math.max(1, numberOfRows - 1)) << 1;
+        this.leafOffset = numberOfRows == 1 ? 1 : leaves;
+        long[] longestRun = new long[2 * leafOffset];
+        for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            longestRun[leafOffset + rowIndex] = initialRunLengths[rowIndex];
+        }
+        for (int node = leafOffset - 1; node > 0; node--) {
+            longestRun[node] = Math.max(longestRun[2 * node], longestRun[2 * node + 1]);
+        }
+        this.nodes = new AtomicLongArray(longestRun);
+    }
+
+    int longestRun() {
+        return longestRun(1);
+    }
+
+    int longestRunInRow(int rowIndex) {
+        return longestRun(leafOffset + rowIndex);
+    }
+
+    // while other rows change the answer can be a row that just lost its run; the caller checks the row under its lock.
+    // A node can also still show a run its children no longer have, so the search never assumes a child has it
+    int nextRowWithRun(int runLength, int fromRowIndex) {
+        if (fromRowIndex >= leafOffset) {
+            return -1;
+        }
+        int node = leafOffset + fromRowIndex;
+        while (true) {
+            if (longestRun(node) >= runLength) {
+                if (node >= leafOffset) {
+                    return node - leafOffset;
+                }
+                // descend left first; when the left child has no run the right one is next
+                node = 2 * node;
+                continue;
+            }
+            // climb while we are a right child, then continue with the subtree to the right
+            while ((node & 1) == 1) {
+                if (node == 1) {
+                    return -1;
+                }
+                node >>>= 1;
+            }
+            node++;
+        }
+    }
+
+    int sumOfLongestRuns() {
+        int sum = 0;
+        for (int node = leafOffset; node < nodes.length(); node++) {
+            sum += longestRun(node);
+        }
+        return sum;
+    }
+
+    // call with the row locked
+    void update(int rowIndex, int runLength) {
+        int node = leafOffset + rowIndex;
+        nodes.set(node, runLength);
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            long current = nodes.get(node);
+            int longest = Math.max(longestRun(2 * node), longestRun(2 * node + 1));
+            if (!nodes.compareAndSet(node, current, changed(current, longest))) {
+                // when the second attempt loses too, the update that won it read the children after this row
+                // changed, so it carries this row's run further up
+                current = nodes.get(node);
+                longest = Math.max(longestRun(2 * node), longestRun(2 * node + 1));
+                if (!nodes.compareAndSet(node, current, changed(current, longest))) {
+                    return;
+                }
+            }
+            if ((int) (current & VALUE_MASK) == longest) {
+                return;
+            }
+        }
+    }
+
+    private int longestRun(int node) {
+        return (int) (nodes.get(node) & VALUE_MASK);
+    }
+
+    private static long changed(long node, int longestRun) {
+        return (node & ~VALUE_MASK) + ONE_CHANGE | longestRun;
+    }
+}
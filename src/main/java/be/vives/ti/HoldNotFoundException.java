@@ -0,0 +1,8 @@
+package be.vives.ti;
+
+public class HoldNotFoundException extends RuntimeException {
+
+    public HoldNotFoundException(long holdId) {
+        super("No active hold with id " + holdId);
+    }
+}
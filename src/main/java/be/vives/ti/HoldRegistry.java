@@ -0,0 +1,54 @@
+package be.vives.ti;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class HoldRegistry {
+
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SLOTS = 1024;
+
+    private final AtomicLong holdIds;
+    private final Map<Long, HoldTimingWheel.Entry> activeHolds;
+    private final HoldTimingWheel timingWheel;
+
+    HoldRegistry(long startMillis) {
+        this.holdIds = new AtomicLong();
+        this.activeHolds = new ConcurrentHashMap<>();
+        this.timingWheel = new HoldTimingWheel(TICK_MILLIS, WHEEL_SLOTS, startMillis);
+    }
+
+    SeatHold add(List<Seat> seats, Instant expiresAt) {
+        SeatHold hold = new SeatHold(holdIds.incrementAndGet(), seats, expiresAt);
+        activeHolds.put(hold.getId(), timingWheel.schedule(hold, expiresAt.toEpochMilli()));
+        return hold;
+    }
+
+    SeatHold remove(long holdId) {
+        HoldTimingWheel.Entry entry = activeHolds.remove(holdId);
+        if (entry == null) {
+            return null;
+        }
+        timingWheel.cancel(entry);
+        return entry.getHold();
+    }
+
+    List<SeatHold> expire(long nowMillis) {
+        List<SeatHold> expiredHolds = timingWheel.expire(nowMillis);
+        if (expiredHolds.isEmpty()) {
+            return expiredHolds;
+        }
+        // a hold that is confirmed or released concurrently is no longer ours to free
+        List<SeatHold> claimedHolds = new ArrayList<>(expiredHolds.size());
+        for (SeatHold expiredHold : expiredHolds) {
+            if (activeHolds.remove(expiredHold.getId()) != null) {
+                claimedHolds.add(expiredHold);
+            }
+        }
+        return claimedHolds;
+    }
+}
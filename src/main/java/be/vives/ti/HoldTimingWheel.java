@@ -0,0 +1,101 @@
+package be.vives.ti;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class HoldTimingWheel {
+
+    private final long tickMillis;
+    private final Entry[] slots;
+    private final int slotMask;
+    private volatile long currentTick;
+
+    HoldTimingWheel(long tickMillis, int numberOfSlots, long startMillis) {
+        if (Integer.bitCount(numberOfSlots) != 1) {
+            throw new IllegalArgumentException("Number of slots must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new Entry[numberOfSlots];
+        this.slotMask = numberOfSlots - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    synchronized Entry schedule(SeatHold hold, long deadlineMillis) {
+        long deadlineTick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        Entry entry = new Entry(hold, deadlineTick);
+        int slot = (int) (deadlineTick & slotMask);
+        entry.next = slots[slot];
+        if (entry.next != null) {
+            entry.next.previous = entry;
+        }
+        slots[slot] = entry;
+        return entry;
+    }
+
+    synchronized void cancel(Entry entry) {
+        unlink(entry);
+    }
+
+    List<SeatHold> expire(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        if (nowTick <= currentTick) {
+            return List.of();
+        }
+        synchronized (this) {
+            List<SeatHold> expiredHolds = null;
+            // after a full turn every slot has been visited, so longer pauses only cost one turn
+            long lastTick = Math.min(nowTick, currentTick + slots.length);
+            for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+                Entry entry = slots[(int) (tick & slotMask)];
+                while (entry != null) {
+                    Entry next = entry.next;
+                    if (entry.deadlineTick <= nowTick) {
+                        unlink(entry);
+                        if (expiredHolds == null) {
+                            expiredHolds = new ArrayList<>();
+                        }
+                        expiredHolds.add(entry.hold);
+                    }
+                    entry = next;
+                }
+            }
+            currentTick = Math.max(currentTick, nowTick);
+            return expiredHolds == null ? List.of() : expiredHolds;
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.unlinked) {
+            return;
+        }
+        if (entry.previous != null) {
+            entry.previous.next = entry.next;
+        } else {
+            slots[(int) (entry.deadlineTick & slotMask)] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.previous = entry.previous;
+        }
+        entry.previous = null;
+        entry.next = null;
+        entry.unlinked = true;
+    }
+
+    static final class Entry {
+
+        private final SeatHold hold;
+        private final long deadlineTick;
+        private Entry previous;
+        private Entry next;
+        private boolean unlinked;
+
+        private Entry(SeatHold hold, long deadlineTick) {
+            this.hold = hold;
+            this.deadlineTick = deadlineTick;
+        }
+
+        SeatHold getHold() {
+            return hold;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package be.vives.ti;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryMetricsReporter implements MetricsReporter {
+
+    private final Map<String, OccupancyGauges> occupancyByScreening = new ConcurrentHashMap<>();
+    private volatile ReservationMetrics reservationMetrics;
+
+    @Override
+    public void reportReservationMetrics(ReservationMetrics metrics) {
+        this.reservationMetrics = metrics;
+    }
+
+    @Override
+    public void reportOccupancy(String screeningName, OccupancyGauges gauges) {
+        occupancyByScreening.put(screeningName, gauges);
+    }
+
+    public ReservationMetrics getReservationMetrics() {
+        return reservationMetrics;
+    }
+
+    public OccupancyGauges getOccupancy(String screeningName) {
+        return occupancyByScreening.get(screeningName);
+    }
+
+    public Set<String> getReportedScreenings() {
+        return Set.copyOf(occupancyByScreening.keySet());
+    }
+}
@@ -0,0 +1,55 @@
+package be.vives.ti;
+
+import java.time.Duration;
+
+public final class LoadTestResult {
+
+    private final int connections;
+    private final Duration duration;
+    private final long rejectedRequests;
+    private final long failedRequests;
+    private final Histogram latencies;
+
+    LoadTestResult(int connections, Duration duration, long rejectedRequests, long failedRequests, Histogram latencies) {
+        this.connections = connections;
+        this.duration = duration;
+        this.rejectedRequests = rejectedRequests;
+        this.failedRequests = failedRequests;
+        this.latencies = latencies;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public long getNumberOfRequests() {
+        return latencies.getCount();
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests;
+    }
+
+    public long getFailedRequests() {
+        return failedRequests;
+    }
+
+    public double getRequestsPerSecond() {
+        return getNumberOfRequests() / (duration.toNanos() / 1e9);
+    }
+
+    // latencies in nanoseconds, from sending the request until the whole response was read
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d connections, %d requests in %.1f s (%.0f requests/s), %d rejected, %d failed, "
+                        + "latency p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms",
+                connections, getNumberOfRequests(), duration.toNanos() / 1e9, getRequestsPerSecond(),
+                rejectedRequests, failedRequests,
+                latencies.getValueAtPercentile(50) / 1e6, latencies.getValueAtPercentile(99) / 1e6,
+                latencies.getValueAtPercentile(99.9) / 1e6, latencies.getMax() / 1e6);
+    }
+}
@@ -0,0 +1,8 @@
+package be.vives.ti;
+
+public interface MetricsReporter {
+
+    void reportReservationMetrics(ReservationMetrics metrics);
+
+    void reportOccupancy(String screeningName, OccupancyGauges gauges);
+}
@@ -2,11 +2,25 @@ package be.vives.ti;
 
 public class NotEnoughConsecutiveSeatsInRowException extends RuntimeException {
 
+    // on a sold-out night most requests end here, so the exception has no stack trace and builds its message when asked
+    static final NotEnoughConsecutiveSeatsInRowException IN_ANY_ROW = new NotEnoughConsecutiveSeatsInRowException();
+
+    private final int startSeatNumber;
+
     public NotEnoughConsecutiveSeatsInRowException() {
-        super("Not enough consecutive seats available in any row");
+        this(0);
     }
 
     public NotEnoughConsecutiveSeatsInRowException(int startSeatNumber) {
-        super("Not enough consecutive seats available starting from seat " + startSeatNumber);
+        super(null, null, false, false);
+        this.startSeatNumber = startSeatNumber;
+    }
+
+    @Override
+    public String getMessage() {
+        if (startSeatNumber == 0) {
+            return "Not enough consecutive seats available in any row";
+        }
+        return "Not enough consecutive seats available starting from seat " + startSeatNumber;
     }
 }
@@ -0,0 +1,8 @@
+package be.vives.ti;
+
+public class NotEnoughSeatsAvailableException extends RuntimeException {
+
+    public NotEnoughSeatsAvailableException(int numberOfSeats) {
+        super("Not enough seats available for a party of " + numberOfSeats);
+    }
+}
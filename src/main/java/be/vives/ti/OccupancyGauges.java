@@ -0,0 +1,78 @@
+package be.vives.ti;
+
+public final class OccupancyGauges {
+
+    private final int capacity;
+    private final int reservedSeats;
+    private final int heldSeats;
+    private final int longestFreeRun;
+    private final int sumOfLongestFreeRunsPerRow;
+
+    OccupancyGauges(int capacity, int reservedSeats, int heldSeats, int longestFreeRun, int sumOfLongestFreeRunsPerRow) {
+        this.capacity = capacity;
+        this.reservedSeats = reservedSeats;
+        this.heldSeats = heldSeats;
+        this.longestFreeRun = longestFreeRun;
+        this.sumOfLongestFreeRunsPerRow = sumOfLongestFreeRunsPerRow;
+    }
+
+    static OccupancyGauges fromReservedRows(RoomLayout layout, long[][] reservedRows) {
+        int reservedSeats = 0;
+        int longestFreeRun = 0;
+        int sumOfLongestFreeRuns = 0;
+        for (int rowIndex = 0; rowIndex < reservedRows.length; rowIndex++) {
+            long[] words = reservedRows[rowIndex];
+            int longestInRow;
+            if (words == null) {
+                longestInRow = layout.longestRunInEmptyRow(rowIndex);
+            } else {
+                reservedSeats += SeatBitmap.cardinality(words);
+                long[] blocked = layout.blockedWords(rowIndex);
+                long[] occupiedWords = new long[words.length];
+                for (int word = 0; word < words.length; word++) {
+                    occupiedWords[word] = words[word] | blocked[word];
+                }
+                longestInRow = SeatBitmap.longestClearRun(occupiedWords, layout.getSeatsPerRow());
+            }
+            longestFreeRun = Math.max(longestFreeRun, longestInRow);
+            sumOfLongestFreeRuns += longestInRow;
+        }
+        return new OccupancyGauges(layout.getCapacity(), reservedSeats, 0, longestFreeRun, sumOfLongestFreeRuns);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getReservedSeats() {
+        return reservedSeats;
+    }
+
+    public int getHeldSeats() {
+        return heldSeats;
+    }
+
+    public int getAvailableSeats() {
+        return capacity - reservedSeats - heldSeats;
+    }
+
+    public int getLongestFreeRun() {
+        return longestFreeRun;
+    }
+
+    public double getOccupancy() {
+        return (double) (reservedSeats + heldSeats) / capacity;
+    }
+
+    // 0 when every row's free seats form one block, close to 1 when free seats are scattered single seats
+    public double getFragmentation() {
+        int availableSeats = getAvailableSeats();
+        return availableSeats == 0 ? 0 : 1 - (double) sumOfLongestFreeRunsPerRow / availableSeats;
+    }
+
+    @Override
+    public String toString() {
+        return "Occupancy " + reservedSeats + " reserved and " + heldSeats + " held of " + capacity
+                + " seats, longest free run " + longestFreeRun;
+    }
+}
@@ -0,0 +1,37 @@
+package be.vives.ti;
+
+import java.nio.ByteBuffer;
+
+final class OccupancySnapshot {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final RoomLayout layout;
+
+    OccupancySnapshot(ByteBuffer buffer, int offset, RoomLayout layout) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.layout = layout;
+    }
+
+    long[][] copyReservedRows() {
+        int wordsPerRow = SeatBitmap.wordsFor(layout.getSeatsPerRow());
+        long[][] rows = new long[layout.getNumberOfRows()][];
+        int position = offset;
+        for (int row = 0; row < rows.length; row++) {
+            long[] words = null;
+            for (int word = 0; word < wordsPerRow; word++, position += Long.BYTES) {
+                long bits = buffer.getLong(position);
+                if (bits != 0) {
+                    if (words == null) {
+                        words = new long[wordsPerRow];
+                    }
+                    words[word] = bits;
+                }
+            }
+            // empty rows stay null, exactly like rows of a room that was never touched
+            rows[row] = words;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,228 @@
+package be.vives.ti;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// keeps the reserved seats and reservation owners of offloaded rooms in direct memory, outside the garbage collected heap;
+// memory is taken in large slabs, a freed slot is reused by the next room of the same size and a slab whose last
+// room left is given back
+public final class OffHeapOccupancyStore {
+
+    private static final int DEFAULT_SLAB_SIZE = 16 << 20;
+    // the slot size, so freeing a slot needs nothing but its handle
+    private static final int HEADER_SIZE = Long.BYTES;
+
+    private final int slabSize;
+    // a slab keeps its index while a room uses it, so a slot handle stays valid; a released slab leaves null behind
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+    private int[] slotsPerSlab = new int[0];
+    // per slot size the freed slots that can be handed out again; a layout only has a size per number of rows with
+    // owners, so most freed slots fit a later room
+    private final Map<Integer, ArrayDeque<Long>> freeSlots = new HashMap<>();
+    private int currentSlab = -1;
+    private int slabOffset;
+    private long allocatedBytes;
+    private long usedBytes;
+    private int numberOfStoredRooms;
+
+    public OffHeapOccupancyStore() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    public OffHeapOccupancyStore(int slabSize) {
+        if (slabSize < Long.BYTES) {
+            throw new IllegalArgumentException("Slab size must be at least " + Long.BYTES + " bytes");
+        }
+        this.slabSize = slabSize;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized int getNumberOfStoredRooms() {
+        return numberOfStoredRooms;
+    }
+
+    // a slot holds the reserved seat bits of every row, then per row where its owners are (0 when it has none) and
+    // finally the owners of the rows that have any; most rows have none, and an owner takes 32 times a seat bit
+    long store(RoomLayout layout, long[][] reservedRows, int[][] seatOwners) {
+        int numberOfRows = layout.getNumberOfRows();
+        int rowsWithOwners = 0;
+        for (int[] owners : seatOwners) {
+            if (hasOwner(owners)) {
+                rowsWithOwners++;
+            }
+        }
+        int slotSize = ownersOffset(layout) + rowsWithOwners * ownersSize(layout);
+        long slot = allocate(slotSize);
+        ByteBuffer slab = slab(slot);
+        int wordsPerRow = SeatBitmap.wordsFor(layout.getSeatsPerRow());
+        int position = offset(slot) + HEADER_SIZE;
+        for (long[] words : reservedRows) {
+            for (int word = 0; word < wordsPerRow; word++, position += Long.BYTES) {
+                slab.putLong(position, words == null ? 0 : words[word]);
+            }
+        }
+        int ownersPosition = ownersOffset(layout);
+        for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            int[] owners = seatOwners[rowIndex];
+            if (!hasOwner(owners)) {
+                slab.putInt(offset(slot) + directoryOffset(layout) + rowIndex * Integer.BYTES, 0);
+                continue;
+            }
+            slab.putInt(offset(slot) + directoryOffset(layout) + rowIndex * Integer.BYTES, ownersPosition);
+            for (int seatIndex = 0; seatIndex < owners.length; seatIndex++) {
+                slab.putInt(offset(slot) + ownersPosition + seatIndex * Integer.BYTES, owners[seatIndex]);
+            }
+            ownersPosition += ownersSize(layout);
+        }
+        return slot;
+    }
+
+    long[][] reservedRows(long slot, RoomLayout layout) {
+        int wordsPerRow = SeatBitmap.wordsFor(layout.getSeatsPerRow());
+        ByteBuffer slab = slab(slot);
+        long[][] rows = new long[layout.getNumberOfRows()][];
+        int position = offset(slot) + HEADER_SIZE;
+        for (int rowIndex = 0; rowIndex < rows.length; rowIndex++) {
+            long[] words = null;
+            for (int word = 0; word < wordsPerRow; word++, position += Long.BYTES) {
+                long bits = slab.getLong(position);
+                if (bits != 0) {
+                    if (words == null) {
+                        words = new long[wordsPerRow];
+                    }
+                    words[word] = bits;
+                }
+            }
+            // empty rows stay null, exactly like rows of a room that was never touched
+            rows[rowIndex] = words;
+        }
+        return rows;
+    }
+
+    int[][] seatOwners(long slot, RoomLayout layout) {
+        int seatsPerRow = layout.getSeatsPerRow();
+        ByteBuffer slab = slab(slot);
+        int[][] owners = new int[layout.getNumberOfRows()][];
+        for (int rowIndex = 0; rowIndex < owners.length; rowIndex++) {
+            int ownersPosition = slab.getInt(offset(slot) + directoryOffset(layout) + rowIndex * Integer.BYTES);
+            if (ownersPosition == 0) {
+                continue;
+            }
+            int[] rowOwners = new int[seatsPerRow];
+            for (int seatIndex = 0; seatIndex < seatsPerRow; seatIndex++) {
+                rowOwners[seatIndex] = slab.getInt(offset(slot) + ownersPosition + seatIndex * Integer.BYTES);
+            }
+            owners[rowIndex] = rowOwners;
+        }
+        return owners;
+    }
+
+    synchronized void free(long slot) {
+        int slabIndex = slabIndex(slot);
+        int slotSize = (int) slab(slot).getLong(offset(slot));
+        usedBytes -= slotSize;
+        numberOfStoredRooms--;
+        if (--slotsPerSlab[slabIndex] > 0) {
+            freeSlots.computeIfAbsent(slotSize, size -> new ArrayDeque<>()).push(slot);
+            return;
+        }
+        // the last room left the slab: its free slots are forgotten and the slab is given back, unless it is the
+        // regular slab that is being filled, which then starts over
+        freeSlots.values().forEach(slots -> slots.removeIf(freeSlot -> slabIndex(freeSlot) == slabIndex));
+        if (slabIndex == currentSlab && slabs[slabIndex].capacity() == slabSize) {
+            slabOffset = 0;
+            return;
+        }
+        if (slabIndex == currentSlab) {
+            currentSlab = -1;
+        }
+        ByteBuffer[] remainingSlabs = slabs.clone();
+        allocatedBytes -= remainingSlabs[slabIndex].capacity();
+        remainingSlabs[slabIndex] = null;
+        slabs = remainingSlabs;
+    }
+
+    private synchronized long allocate(int slotSize) {
+        usedBytes += slotSize;
+        numberOfStoredRooms++;
+        ArrayDeque<Long> free = freeSlots.get(slotSize);
+        long slot;
+        if (free != null && !free.isEmpty()) {
+            slot = free.pop();
+        } else {
+            if (currentSlab < 0 || slabOffset + slotSize > slabs[currentSlab].capacity()) {
+                addSlab(Math.max(slabSize, slotSize));
+            }
+            slot = ((long) currentSlab << 32) | slabOffset;
+            slabOffset += slotSize;
+        }
+        slotsPerSlab[slabIndex(slot)]++;
+        slab(slot).putLong(offset(slot), slotSize);
+        return slot;
+    }
+
+    // a room larger than a slab gets a slab of its own
+    private void addSlab(int size) {
+        ByteBuffer[] currentSlabs = slabs;
+        int slabIndex = 0;
+        while (slabIndex < currentSlabs.length && currentSlabs[slabIndex] != null) {
+            slabIndex++;
+        }
+        ByteBuffer[] grownSlabs = slabIndex < currentSlabs.length ? currentSlabs.clone() : Arrays.copyOf(currentSlabs, slabIndex + 1);
+        grownSlabs[slabIndex] = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        slabs = grownSlabs;
+        if (slotsPerSlab.length < grownSlabs.length) {
+            slotsPerSlab = Arrays.copyOf(slotsPerSlab, grownSlabs.length);
+        }
+        allocatedBytes += size;
+        currentSlab = slabIndex;
+        slabOffset = 0;
+    }
+
+    private ByteBuffer slab(long slot) {
+        return slabs[slabIndex(slot)];
+    }
+
+    private static int slabIndex(long slot) {
+        return (int) (slot >>> 32);
+    }
+
+    private static int offset(long slot) {
+        return (int) slot;
+    }
+
+    private static boolean hasOwner(int[] owners) {
+        if (owners != null) {
+            for (int owner : owners) {
+                if (owner != SeatOccupancy.NO_OWNER) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int directoryOffset(RoomLayout layout) {
+        return HEADER_SIZE + layout.getNumberOfRows() * SeatBitmap.wordsFor(layout.getSeatsPerRow()) * Long.BYTES;
+    }
+
+    // multiples of 8, so every part of a slot stays aligned
+    private static int ownersOffset(RoomLayout layout) {
+        return directoryOffset(layout) + ((layout.getNumberOfRows() * Integer.BYTES + Long.BYTES - 1) & -Long.BYTES);
+    }
+
+    private static int ownersSize(RoomLayout layout) {
+        return (layout.getSeatsPerRow() * Integer.BYTES + Long.BYTES - 1) & -Long.BYTES;
+    }
+}
@@ -0,0 +1,53 @@
+package be.vives.ti;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// what stays on the heap of a room whose seats moved to an OffHeapOccupancyStore
+final class OffloadedOccupancy {
+
+    private final RoomLayout layout;
+    // null when no seat was reserved, then there is nothing to store
+    private final OffHeapOccupancyStore store;
+    private final long slot;
+    private final AtomicInteger reservationSequence;
+    private final long version;
+
+    OffloadedOccupancy(RoomLayout layout, AtomicInteger reservationSequence, long version) {
+        this(layout, null, -1, reservationSequence, version);
+    }
+
+    OffloadedOccupancy(RoomLayout layout, OffHeapOccupancyStore store, long slot, AtomicInteger reservationSequence, long version) {
+        this.layout = layout;
+        this.store = store;
+        this.slot = slot;
+        this.reservationSequence = reservationSequence;
+        this.version = version;
+    }
+
+    AtomicInteger reservationSequence() {
+        return reservationSequence;
+    }
+
+    long version() {
+        return version;
+    }
+
+    long[][] copyReservedRows() {
+        return store == null ? new long[layout.getNumberOfRows()][] : store.reservedRows(slot, layout);
+    }
+
+    void restoreInto(SeatOccupancy occupancy) {
+        occupancy.restoreVersion(version);
+        if (store != null) {
+            occupancy.restoreReservedRows(store.reservedRows(slot, layout));
+            occupancy.restoreSeatOwners(store.seatOwners(slot, layout));
+        }
+    }
+
+    // the slot may be handed to another room right after, so this must be the last use
+    void discard() {
+        if (store != null) {
+            store.free(slot);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package be.vives.ti;
+
+public enum RejectionReason {
+    // a seat in the requested range is reserved or held; the attempt tells which one
+    SEAT_TAKEN,
+    // no row has enough consecutive free seats for the party
+    NO_FREE_RUN,
+    INVALID_ROW,
+    // the start seat is not in the row, or the party does not fit between the start seat and the end of the row
+    INVALID_SEAT,
+    INVALID_NUMBER_OF_SEATS
+}
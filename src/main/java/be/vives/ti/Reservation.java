@@ -0,0 +1,57 @@
+package be.vives.ti;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+public final class Reservation extends AbstractList<Seat> implements RandomAccess {
+
+    // an id packs the first seat (24 bits), the number of seats (16 bits) and a per-room sequence (24 bits),
+    // so a cancellation finds its seats without a lookup table; a room hands out at most SEQUENCE_MASK ids
+    private static final int SEAT_ID_BITS = 24;
+    private static final int NUMBER_OF_SEATS_BITS = 16;
+    static final int SEQUENCE_MASK = (1 << 24) - 1;
+
+    private final RoomLayout layout;
+    private final long id;
+
+    Reservation(RoomLayout layout, long id) {
+        this.layout = layout;
+        this.id = id;
+    }
+
+    static long id(int sequence, int firstSeatId, int numberOfSeats) {
+        return ((long) sequence << (SEAT_ID_BITS + NUMBER_OF_SEATS_BITS))
+                | ((long) numberOfSeats << SEAT_ID_BITS)
+                | firstSeatId;
+    }
+
+    static int sequence(long id) {
+        return (int) (id >>> (SEAT_ID_BITS + NUMBER_OF_SEATS_BITS));
+    }
+
+    static int firstSeatId(long id) {
+        return (int) (id & ((1 << SEAT_ID_BITS) - 1));
+    }
+
+    static int numberOfSeats(long id) {
+        return (int) ((id >>> SEAT_ID_BITS) & ((1 << NUMBER_OF_SEATS_BITS) - 1));
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public Seat get(int index) {
+        int numberOfSeats = numberOfSeats(id);
+        if (index < 0 || index >= numberOfSeats) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + numberOfSeats);
+        }
+        return layout.seat(firstSeatId(id) + index);
+    }
+
+    @Override
+    public int size() {
+        return numberOfSeats(id);
+    }
+}
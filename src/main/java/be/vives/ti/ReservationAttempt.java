@@ -0,0 +1,59 @@
+package be.vives.ti;
+
+public final class ReservationAttempt {
+
+    // only a taken seat needs its own instance, every other rejection is shared
+    private static final ReservationAttempt[] REJECTIONS = new ReservationAttempt[RejectionReason.values().length];
+
+    static {
+        for (RejectionReason reason : RejectionReason.values()) {
+            REJECTIONS[reason.ordinal()] = new ReservationAttempt(null, reason, null);
+        }
+    }
+
+    private final Reservation reservation;
+    private final RejectionReason rejectionReason;
+    private final Seat takenSeat;
+
+    private ReservationAttempt(Reservation reservation, RejectionReason rejectionReason, Seat takenSeat) {
+        this.reservation = reservation;
+        this.rejectionReason = rejectionReason;
+        this.takenSeat = takenSeat;
+    }
+
+    static ReservationAttempt reserved(Reservation reservation) {
+        return new ReservationAttempt(reservation, null, null);
+    }
+
+    static ReservationAttempt seatTaken(Seat takenSeat) {
+        return new ReservationAttempt(null, RejectionReason.SEAT_TAKEN, takenSeat);
+    }
+
+    static ReservationAttempt rejected(RejectionReason reason) {
+        return REJECTIONS[reason.ordinal()];
+    }
+
+    public boolean isSuccessful() {
+        return reservation != null;
+    }
+
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    public RejectionReason getRejectionReason() {
+        return rejectionReason;
+    }
+
+    public Seat getTakenSeat() {
+        return takenSeat;
+    }
+
+    @Override
+    public String toString() {
+        if (isSuccessful()) {
+            return "Reserved " + reservation;
+        }
+        return rejectionReason == RejectionReason.SEAT_TAKEN ? "Rejected: " + takenSeat + " is taken" : "Rejected: " + rejectionReason;
+    }
+}
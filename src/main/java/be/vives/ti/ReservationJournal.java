@@ -0,0 +1,304 @@
+package be.vives.ti;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+// records are forced to disk every sync interval, so after a crash of the operating system (not just of the JVM)
+// the bookings of the last interval can be missing although they were confirmed; use Duration.ZERO when that is
+// not acceptable. A record is only valid when its type, written last, and its checksum match. Appends claim their
+// slot without a lock and can finish out of order, so a slot whose append never finished is skipped on replay;
+// the booking it belonged to was never confirmed and was rolled back.
+public class ReservationJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x43524A31;
+    private static final int VERSION = 2;
+    // a power of two as large as a record, so records never cross a segment or a page
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 32;
+    private static final int CHECKSUMMED_BYTES = 20;
+    private static final int CHECKSUM_OFFSET = 20;
+    private static final int TYPE_OFFSET = 24;
+    private static final byte SEATS_RESERVED = 1;
+    private static final byte SEATS_RELEASED = 2;
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofMillis(10);
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final FileChannel channel;
+    private final boolean syncEveryRecord;
+    private final ScheduledExecutorService syncScheduler;
+    // the next free slot; close adds CLOSED, so every later claim is negative and refused
+    private final AtomicLong nextPosition;
+    // moves one record further whenever an append ends, so it reaches the claimed position once none is in flight
+    private final AtomicLong finishedPosition;
+    private volatile Segment segment;
+    // a slow append can still write into the segment before the current one; it is forced at the next sync
+    private Segment previousSegment;
+    private volatile boolean unsynced;
+    private boolean closed;
+
+    private ReservationJournal(FileChannel channel, long position, Duration syncInterval) throws IOException {
+        this.channel = channel;
+        this.nextPosition = new AtomicLong(position);
+        this.finishedPosition = new AtomicLong(position);
+        this.syncEveryRecord = syncInterval.isZero();
+        this.segment = mapSegment(position, SEGMENT_SIZE);
+        if (syncEveryRecord) {
+            this.syncScheduler = null;
+        } else {
+            this.syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reservation-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalNanos = syncInterval.toNanos();
+            syncScheduler.scheduleAtFixedRate(this::sync, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public static ReservationJournal open(Path file) {
+        return open(file, DEFAULT_SYNC_INTERVAL);
+    }
+
+    public static ReservationJournal open(Path file, Duration syncInterval) {
+        if (syncInterval == null || syncInterval.isNegative()) {
+            throw new IllegalArgumentException("Sync interval must not be negative");
+        }
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long position;
+            if (channel.size() == 0) {
+                writeHeader(channel);
+                position = HEADER_SIZE;
+            } else {
+                position = findEndOfJournal(channel);
+                // the next append continues right behind the last valid record
+                channel.truncate(position);
+            }
+            return new ReservationJournal(channel, position, syncInterval);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open reservation journal " + file, e);
+        }
+    }
+
+    public static long replay(Path file, ShowtimeCatalog catalog) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long replayedRecords = 0;
+            long lastShowtimeId = 0;
+            CinemaRoom lastScreening = null;
+            CRC32C checksum = new CRC32C();
+            for (long chunkStart = 0; chunkStart < channel.size(); chunkStart += SEGMENT_SIZE) {
+                MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart,
+                        Math.min(SEGMENT_SIZE, channel.size() - chunkStart));
+                int offset = 0;
+                if (chunkStart == 0) {
+                    validateHeader(records);
+                    offset = HEADER_SIZE;
+                }
+                for (; offset + RECORD_SIZE <= records.limit(); offset += RECORD_SIZE) {
+                    if (!isValidRecord(records, offset, checksum)) {
+                        continue;
+                    }
+                    byte type = records.get(offset + TYPE_OFFSET);
+                    long showtimeId = records.getLong(offset);
+                    if (lastScreening == null || showtimeId != lastShowtimeId) {
+                        // records of screenings that were removed from the catalog are skipped
+                        lastScreening = catalog.containsScreening(showtimeId) ? catalog.getScreening(showtimeId) : null;
+                        lastShowtimeId = showtimeId;
+                    }
+                    if (lastScreening != null) {
+                        int rowNumber = records.getInt(offset + 8);
+                        int startSeatNumber = records.getInt(offset + 12);
+                        int numberOfSeats = records.getInt(offset + 16);
+                        if (type == SEATS_RESERVED) {
+                            lastScreening.replaySeatsReserved(rowNumber, startSeatNumber, numberOfSeats);
+                        } else {
+                            lastScreening.replaySeatsReleased(rowNumber, startSeatNumber, numberOfSeats);
+                        }
+                        replayedRecords++;
+                    }
+                }
+            }
+            return replayedRecords;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replay reservation journal " + file, e);
+        }
+    }
+
+    public void attach(long showtimeId, CinemaRoom screening) {
+        screening.addSeatStateListener((rowNumber, startSeatNumber, numberOfSeats, previousState, newState) -> {
+            if (newState == SeatState.RESERVED) {
+                append(SEATS_RESERVED, showtimeId, rowNumber, startSeatNumber, numberOfSeats);
+            } else if (previousState == SeatState.RESERVED) {
+                append(SEATS_RELEASED, showtimeId, rowNumber, startSeatNumber, numberOfSeats);
+            }
+        });
+    }
+
+    public long getNumberOfRecords() {
+        return (finishedPosition.get() - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    public void sync() {
+        Segment segmentToSync;
+        Segment earlierSegment;
+        synchronized (this) {
+            if (closed || !unsynced) {
+                return;
+            }
+            unsynced = false;
+            segmentToSync = segment;
+            earlierSegment = previousSegment;
+            previousSegment = null;
+        }
+        // forcing outside the lock lets bookings continue while the disk catches up
+        if (earlierSegment != null) {
+            earlierSegment.buffer().force();
+        }
+        segmentToSync.buffer().force();
+    }
+
+    @Override
+    public void close() {
+        if (syncScheduler != null) {
+            syncScheduler.shutdownNow();
+        }
+        long end = nextPosition.getAndAdd(CLOSED);
+        if (end < 0) {
+            return;
+        }
+        while (finishedPosition.get() < end) {
+            Thread.onSpinWait();
+        }
+        synchronized (this) {
+            closed = true;
+            try {
+                if (previousSegment != null) {
+                    previousSegment.buffer().force();
+                }
+                segment.buffer().force();
+                channel.truncate(end);
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not close reservation journal", e);
+            }
+        }
+    }
+
+    void append(byte type, long showtimeId, int rowNumber, int startSeatNumber, int numberOfSeats) {
+        long position = nextPosition.getAndAdd(RECORD_SIZE);
+        if (position < 0) {
+            throw new IllegalStateException("Reservation journal is closed");
+        }
+        try {
+            Segment current = segment;
+            if (position < current.start() || position >= current.start() + SEGMENT_SIZE) {
+                current = segmentFor(position);
+            }
+            MappedByteBuffer records = current.buffer();
+            int offset = (int) (position - current.start());
+            records.putLong(offset, showtimeId);
+            records.putInt(offset + 8, rowNumber);
+            records.putInt(offset + 12, startSeatNumber);
+            records.putInt(offset + 16, numberOfSeats);
+            records.putInt(offset + CHECKSUM_OFFSET, checksum(records, offset, type, new CRC32C()));
+            // the type makes the record visible, so a record that was cut off halfway is no record at all
+            records.put(offset + TYPE_OFFSET, type);
+            if (syncEveryRecord) {
+                records.force(offset, RECORD_SIZE);
+            } else if (!unsynced) {
+                unsynced = true;
+            }
+        } finally {
+            finishedPosition.addAndGet(RECORD_SIZE);
+        }
+    }
+
+    // segments follow each other without gap; a slot before the previous segment only occurs when its append
+    // stalled for a whole segment and is mapped on its own
+    private synchronized Segment segmentFor(long position) {
+        while (position >= segment.start() + SEGMENT_SIZE) {
+            previousSegment = segment;
+            segment = mapSegment(segment.start() + SEGMENT_SIZE, SEGMENT_SIZE);
+        }
+        if (position >= segment.start()) {
+            return segment;
+        }
+        if (previousSegment != null && position >= previousSegment.start()) {
+            return previousSegment;
+        }
+        return mapSegment(position, RECORD_SIZE);
+    }
+
+    private Segment mapSegment(long start, long size) {
+        try {
+            return new Segment(channel.map(FileChannel.MapMode.READ_WRITE, start, size), start);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map reservation journal segment", e);
+        }
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, RECORD_SIZE);
+        header.force();
+    }
+
+    private static boolean isValidRecord(MappedByteBuffer records, int offset, CRC32C checksum) {
+        byte type = records.get(offset + TYPE_OFFSET);
+        return (type == SEATS_RESERVED || type == SEATS_RELEASED)
+                && records.getInt(offset + CHECKSUM_OFFSET) == checksum(records, offset, type, checksum);
+    }
+
+    private static int checksum(MappedByteBuffer records, int offset, byte type, CRC32C checksum) {
+        checksum.reset();
+        checksum.update(records.slice(offset, CHECKSUMMED_BYTES));
+        checksum.update(type);
+        return (int) checksum.getValue();
+    }
+
+    private static void validateHeader(MappedByteBuffer buffer) {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a reservation journal");
+        }
+        if (buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_SIZE) {
+            throw new IllegalStateException("Unsupported reservation journal version " + buffer.getInt(4));
+        }
+    }
+
+    private static long findEndOfJournal(FileChannel channel) throws IOException {
+        long end = HEADER_SIZE;
+        for (long chunkStart = 0; chunkStart < channel.size(); chunkStart += SEGMENT_SIZE) {
+            MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart,
+                    Math.min(SEGMENT_SIZE, channel.size() - chunkStart));
+            int offset = 0;
+            if (chunkStart == 0) {
+                validateHeader(records);
+                offset = HEADER_SIZE;
+            }
+            // a crash can leave the pre-allocated, zero-filled tail of the last segment or torn records behind
+            CRC32C checksum = new CRC32C();
+            for (; offset + RECORD_SIZE <= records.limit(); offset += RECORD_SIZE) {
+                if (isValidRecord(records, offset, checksum)) {
+                    end = chunkStart + offset + RECORD_SIZE;
+                }
+            }
+        }
+        return end;
+    }
+
+    private record Segment(MappedByteBuffer buffer, long start) {
+    }
+}
@@ -0,0 +1,133 @@
+package be.vives.ti;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class ReservationLoadGenerator {
+
+    private static final int FILE_DESCRIPTOR_HEADROOM = 1024;
+
+    private ReservationLoadGenerator() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Usage: ReservationLoadGenerator <connections> <seconds> <number of rows> <seats per row>");
+            System.exit(1);
+        }
+        int connections = Integer.parseInt(args[0]);
+        checkFileDescriptorLimit(connections);
+        RoomLayout layout = RoomLayout.rectangular(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        ShowtimeCatalog catalog = new ShowtimeCatalog();
+        catalog.addAuditorium("Zaal 1", layout);
+        catalog.addScreening(1, "Zaal 1", "Premiere");
+        try (ReservationServer server = ReservationServer.start(catalog, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            URI screening = URI.create("http://127.0.0.1:" + server.getPort() + "/screenings/1/");
+            System.out.println(run(screening, layout, connections, Duration.ofSeconds(Long.parseLong(args[1])), 42));
+        }
+    }
+
+    private static void checkFileDescriptorLimit(int connections) {
+        // client and server run in this process, so every connection holds two file descriptors here
+        long neededFileDescriptors = 2L * connections + FILE_DESCRIPTOR_HEADROOM;
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof UnixOperatingSystemMXBean system
+                && system.getMaxFileDescriptorCount() < neededFileDescriptors) {
+            throw new IllegalArgumentException(connections + " connections need about " + neededFileDescriptors
+                    + " file descriptors, the limit is " + system.getMaxFileDescriptorCount() + " (raise it with ulimit -n)");
+        }
+    }
+
+    // every connection is a virtual thread that books, cancels what it booked and now and then asks for the availability,
+    // so the room stays partly free for the whole run
+    public static LoadTestResult run(URI screening, RoomLayout layout, int connections, Duration duration, long seed) {
+        Histogram latencies = new Histogram();
+        AtomicLong rejectedRequests = new AtomicLong();
+        AtomicLong failedRequests = new AtomicLong();
+        AtomicLong deadline = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        long startNanos;
+        long endNanos;
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            // closing the executor waits until every connection passed the deadline
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int connection = 0; connection < connections; connection++) {
+                    Random random = new Random(seed + connection);
+                    executor.execute(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        while (System.nanoTime() < deadline.get()) {
+                            String reservationId = send(client, nextRequest(screening, layout, random),
+                                    latencies, rejectedRequests, failedRequests);
+                            if (reservationId != null) {
+                                HttpRequest cancellation = HttpRequest.newBuilder(screening.resolve("reservations/" + reservationId))
+                                        .DELETE()
+                                        .build();
+                                send(client, cancellation, latencies, rejectedRequests, failedRequests);
+                            }
+                        }
+                    });
+                }
+                startNanos = System.nanoTime();
+                deadline.set(startNanos + duration.toNanos());
+                start.countDown();
+            }
+            endNanos = System.nanoTime();
+        }
+        return new LoadTestResult(connections, Duration.ofNanos(endNanos - startNanos),
+                rejectedRequests.get(), failedRequests.get(), latencies);
+    }
+
+    private static HttpRequest nextRequest(URI screening, RoomLayout layout, Random random) {
+        int choice = random.nextInt(10);
+        if (choice == 0) {
+            return HttpRequest.newBuilder(screening.resolve("availability")).GET().build();
+        }
+        int numberOfSeats = 1 + random.nextInt(Math.min(6, layout.getSeatsPerRow()));
+        String query = choice < 6
+                ? "reservations/consecutive?seats=" + numberOfSeats
+                : "reservations/by-number?row=" + (1 + random.nextInt(layout.getNumberOfRows()))
+                + "&seat=" + (1 + random.nextInt(layout.getSeatsPerRow() - numberOfSeats + 1)) + "&seats=" + numberOfSeats;
+        return HttpRequest.newBuilder(screening.resolve(query)).POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    // returns the id of a new reservation, if the request made one
+    private static String send(HttpClient client, HttpRequest request, Histogram latencies,
+                               AtomicLong rejectedRequests, AtomicLong failedRequests) {
+        long startNanos = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            latencies.record(System.nanoTime() - startNanos);
+            if (response.statusCode() == 409) {
+                rejectedRequests.incrementAndGet();
+            } else if (response.statusCode() >= 300) {
+                failedRequests.incrementAndGet();
+            } else if (response.statusCode() == 201) {
+                String body = response.body();
+                return body.substring(body.indexOf(':') + 1, body.indexOf(','));
+            }
+        } catch (IOException e) {
+            latencies.record(System.nanoTime() - startNanos);
+            failedRequests.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
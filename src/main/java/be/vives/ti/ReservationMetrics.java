@@ -0,0 +1,64 @@
+package be.vives.ti;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class ReservationMetrics {
+
+    // parties of this size or larger share the last rejection counter
+    public static final int LARGEST_TRACKED_PARTY_SIZE = 32;
+
+    private final Histogram consecutiveSeatsLatency;
+    private final Histogram seatByNumberLatency;
+    private final Histogram rowsScanned;
+    private final AtomicLongArray rejectionsByPartySize;
+
+    public ReservationMetrics() {
+        this.consecutiveSeatsLatency = new Histogram();
+        this.seatByNumberLatency = new Histogram();
+        this.rowsScanned = new Histogram();
+        this.rejectionsByPartySize = new AtomicLongArray(LARGEST_TRACKED_PARTY_SIZE + 1);
+    }
+
+    public Histogram getConsecutiveSeatsLatency() {
+        return consecutiveSeatsLatency;
+    }
+
+    public Histogram getSeatByNumberLatency() {
+        return seatByNumberLatency;
+    }
+
+    public Histogram getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public long getRejections(int partySize) {
+        if (partySize <= 0) {
+            throw new IllegalArgumentException("Party size must be greater than zero");
+        }
+        return rejectionsByPartySize.get(Math.min(partySize, LARGEST_TRACKED_PARTY_SIZE));
+    }
+
+    public long getRejections() {
+        long rejections = 0;
+        for (int partySize = 1; partySize <= LARGEST_TRACKED_PARTY_SIZE; partySize++) {
+            rejections += rejectionsByPartySize.get(partySize);
+        }
+        return rejections;
+    }
+
+    void recordConsecutiveSeatsLatency(long nanos) {
+        consecutiveSeatsLatency.record(nanos);
+    }
+
+    void recordSeatByNumberLatency(long nanos) {
+        seatByNumberLatency.record(nanos);
+    }
+
+    void recordRowsScanned(int numberOfRows) {
+        rowsScanned.record(numberOfRows);
+    }
+
+    void recordRejection(int partySize) {
+        rejectionsByPartySize.incrementAndGet(Math.min(partySize, LARGEST_TRACKED_PARTY_SIZE));
+    }
+}
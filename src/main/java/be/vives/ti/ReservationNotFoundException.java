@@ -0,0 +1,13 @@
+package be.vives.ti;
+
+public class ReservationNotFoundException extends RuntimeException {
+
+    public ReservationNotFoundException(long reservationId) {
+        super("No reservation with id " + reservationId);
+    }
+
+    public ReservationNotFoundException(int rowNumber, int startSeatNumber, int numberOfSeats) {
+        super("Seats " + startSeatNumber + " to " + (startSeatNumber + numberOfSeats - 1) + " in row " + rowNumber
+                + " are not all reserved");
+    }
+}
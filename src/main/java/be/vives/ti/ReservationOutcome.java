@@ -0,0 +1,49 @@
+package be.vives.ti;
+
+import java.util.List;
+
+public final class ReservationOutcome {
+
+    private final ReservationRequest request;
+    private final Reservation reservation;
+    private final String failureMessage;
+
+    private ReservationOutcome(ReservationRequest request, Reservation reservation, String failureMessage) {
+        this.request = request;
+        this.reservation = reservation;
+        this.failureMessage = failureMessage;
+    }
+
+    static ReservationOutcome success(ReservationRequest request, Reservation reservation) {
+        return new ReservationOutcome(request, reservation, null);
+    }
+
+    static ReservationOutcome failure(ReservationRequest request, String failureMessage) {
+        return new ReservationOutcome(request, null, failureMessage);
+    }
+
+    public ReservationRequest getRequest() {
+        return request;
+    }
+
+    public boolean isSuccessful() {
+        return failureMessage == null;
+    }
+
+    public List<Seat> getSeats() {
+        return reservation == null ? List.of() : reservation;
+    }
+
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccessful() ? "Reserved " + reservation : "Failed to reserve " + request + ": " + failureMessage;
+    }
+}
@@ -0,0 +1,226 @@
+package be.vives.ti;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+public final class ReservationPipeline implements AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_BATCH_SIZE = 256;
+    // added to the claimed sequence when the writer stops, so every later claim comes out negative
+    private static final long SEALED = Long.MIN_VALUE;
+
+    private final CinemaRoom room;
+    private final AtomicReferenceArray<Command> slots;
+    private final int mask;
+    private final AtomicLong claimedSequence;
+    private final Thread writer;
+    private volatile long consumedSequence;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+
+    public ReservationPipeline(CinemaRoom room) {
+        this(room, DEFAULT_CAPACITY);
+    }
+
+    public ReservationPipeline(CinemaRoom room, int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.room = room;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.claimedSequence = new AtomicLong();
+        this.writer = new Thread(this::applyCommands, "reservation-pipeline-" + room.getMovieName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public CompletableFuture<ReservationOutcome> submit(ReservationRequest request) {
+        Objects.requireNonNull(request, "Request must not be null");
+        Command command = Command.reservation(request);
+        publish(command);
+        return command.outcome;
+    }
+
+    public CompletableFuture<Void> cancelReservation(long reservationId) {
+        Command command = Command.cancellation(reservationId);
+        publish(command);
+        return command.cancellation;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(Command command) {
+        if (closed) {
+            throw new IllegalStateException("Reservation pipeline is closed");
+        }
+        long sequence = claimedSequence.getAndIncrement();
+        if (sequence < 0) {
+            throw new IllegalStateException("Reservation pipeline is closed");
+        }
+        // the slot is free once the writer consumed the command one lap earlier; a sequence claimed before the
+        // writer stopped is always consumed, so this wait ends even while the pipeline closes
+        while (sequence - consumedSequence >= slots.length()) {
+            Thread.yield();
+        }
+        slots.set((int) (sequence & mask), command);
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void applyCommands() {
+        List<Command> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        long nextSequence = 0;
+        while (true) {
+            nextSequence = drain(batch, nextSequence);
+            if (!batch.isEmpty()) {
+                applySafely(batch);
+                continue;
+            }
+            if (closed) {
+                break;
+            }
+            writerParked = true;
+            if (slots.get((int) (nextSequence & mask)) == null && !closed) {
+                LockSupport.park(this);
+            }
+            writerParked = false;
+        }
+        // commands published while the writer was stopping are still applied; a producer that claimed a sequence
+        // may not have stored its command yet, and the commands behind it wait until it did
+        long endSequence = claimedSequence.getAndAdd(SEALED);
+        while (nextSequence < endSequence) {
+            nextSequence = drain(batch, nextSequence);
+            if (batch.isEmpty()) {
+                Thread.onSpinWait();
+            } else {
+                applySafely(batch);
+            }
+        }
+    }
+
+    // the pipeline has a single writer, so nothing a command throws may stop it; the commands still open fail instead
+    private void applySafely(List<Command> batch) {
+        try {
+            room.applyBatch(() -> apply(batch));
+        } catch (Throwable e) {
+            for (Command command : batch) {
+                command.fail(e);
+            }
+            batch.clear();
+        }
+    }
+
+    private long drain(List<Command> batch, long nextSequence) {
+        while (batch.size() < MAX_BATCH_SIZE) {
+            int slot = (int) (nextSequence & mask);
+            Command command = slots.get(slot);
+            if (command == null || !slots.compareAndSet(slot, command, null)) {
+                break;
+            }
+            batch.add(command);
+            nextSequence++;
+        }
+        consumedSequence = nextSequence;
+        return nextSequence;
+    }
+
+    private void apply(List<Command> batch) {
+        // the whole batch runs with the row locks taken once, and consecutive reservations share one reserveBatch
+        List<ReservationRequest> requests = new ArrayList<>(batch.size());
+        int firstCommand = 0;
+        for (int command = 0; command <= batch.size(); command++) {
+            if (command < batch.size() && batch.get(command).kind == Kind.RESERVATION) {
+                requests.add(batch.get(command).request);
+                continue;
+            }
+            if (!requests.isEmpty()) {
+                reserve(batch.subList(firstCommand, command), requests);
+                requests.clear();
+            }
+            if (command < batch.size()) {
+                cancel(batch.get(command));
+            }
+            firstCommand = command + 1;
+        }
+        batch.clear();
+    }
+
+    private void reserve(List<Command> commands, List<ReservationRequest> requests) {
+        try {
+            List<ReservationOutcome> outcomes = room.reserveBatch(requests);
+            for (int command = 0; command < commands.size(); command++) {
+                commands.get(command).outcome.complete(outcomes.get(command));
+            }
+        } catch (RuntimeException e) {
+            for (Command command : commands) {
+                command.fail(e);
+            }
+        }
+    }
+
+    private void cancel(Command command) {
+        try {
+            room.cancelReservation(command.reservationId);
+            command.cancellation.complete(null);
+        } catch (RuntimeException e) {
+            command.fail(e);
+        }
+    }
+
+    private enum Kind {
+        RESERVATION,
+        CANCELLATION
+    }
+
+    private static final class Command {
+
+        private final Kind kind;
+        private final ReservationRequest request;
+        private final CompletableFuture<ReservationOutcome> outcome;
+        private final long reservationId;
+        private final CompletableFuture<Void> cancellation;
+
+        private Command(Kind kind, ReservationRequest request, CompletableFuture<ReservationOutcome> outcome,
+                        long reservationId, CompletableFuture<Void> cancellation) {
+            this.kind = kind;
+            this.request = request;
+            this.outcome = outcome;
+            this.reservationId = reservationId;
+            this.cancellation = cancellation;
+        }
+
+        static Command reservation(ReservationRequest request) {
+            return new Command(Kind.RESERVATION, request, new CompletableFuture<>(), 0, null);
+        }
+
+        static Command cancellation(long reservationId) {
+            return new Command(Kind.CANCELLATION, null, null, reservationId, new CompletableFuture<>());
+        }
+
+        // a command that already completed keeps its result
+        void fail(Throwable e) {
+            if (kind == Kind.RESERVATION) {
+                outcome.completeExceptionally(e);
+            } else {
+                cancellation.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package be.vives.ti;
+
+public final class ReservationRequest {
+
+    private final boolean consecutiveSeats;
+    private final int rowNumber;
+    private final int startSeatNumber;
+    private final int numberOfSeats;
+
+    private ReservationRequest(boolean consecutiveSeats, int rowNumber, int startSeatNumber, int numberOfSeats) {
+        this.consecutiveSeats = consecutiveSeats;
+        this.rowNumber = rowNumber;
+        this.startSeatNumber = startSeatNumber;
+        this.numberOfSeats = numberOfSeats;
+    }
+
+    public static ReservationRequest consecutiveSeats(int numberOfSeats) {
+        return new ReservationRequest(true, 0, 0, numberOfSeats);
+    }
+
+    public static ReservationRequest seatByNumber(int rowNumber, int startSeatNumber, int numberOfSeats) {
+        return new ReservationRequest(false, rowNumber, startSeatNumber, numberOfSeats);
+    }
+
+    public boolean isConsecutiveSeats() {
+        return consecutiveSeats;
+    }
+
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public int getStartSeatNumber() {
+        return startSeatNumber;
+    }
+
+    public int getNumberOfSeats() {
+        return numberOfSeats;
+    }
+
+    @Override
+    public String toString() {
+        if (isConsecutiveSeats()) {
+            return numberOfSeats + " consecutive seats";
+        }
+        return numberOfSeats + " seats on row " + rowNumber + " starting from seat " + startSeatNumber;
+    }
+}
@@ -0,0 +1,190 @@
+package be.vives.ti;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// GET    /screenings/{id}/availability
+// POST   /screenings/{id}/reservations/consecutive?seats=4
+// POST   /screenings/{id}/reservations/by-number?row=3&seat=7&seats=2
+// DELETE /screenings/{id}/reservations/{reservationId}
+public final class ReservationServer implements AutoCloseable {
+
+    private static final int BACKLOG = 4096;
+
+    private final ShowtimeCatalog catalog;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private ReservationServer(ShowtimeCatalog catalog, HttpServer server) {
+        this.catalog = catalog;
+        this.server = server;
+        // every request gets its own virtual thread, so a waiting client never holds a platform thread
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/screenings/", this::handle);
+    }
+
+    public static ReservationServer start(ShowtimeCatalog catalog, InetSocketAddress address) {
+        HttpServer server;
+        try {
+            server = HttpServer.create(address, BACKLOG);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start reservation server on " + address, e);
+        }
+        ReservationServer reservationServer = new ReservationServer(catalog, server);
+        server.start();
+        return reservationServer;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: ReservationServer <port> <number of rows> <seats per row>");
+            System.exit(1);
+        }
+        ShowtimeCatalog catalog = new ShowtimeCatalog();
+        catalog.addAuditorium("Zaal 1", RoomLayout.rectangular(Integer.parseInt(args[1]), Integer.parseInt(args[2])));
+        catalog.addScreening(1, "Zaal 1", "Premiere");
+        ReservationServer server = start(catalog, new InetSocketAddress(Integer.parseInt(args[0])));
+        System.out.println("Serving screening 1 on port " + server.getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+            try {
+                if (path.length < 4) {
+                    respond(exchange, 404, error("Unknown resource"));
+                    return;
+                }
+                CinemaRoom room = catalog.getScreening(Long.parseLong(path[2]));
+                String method = exchange.getRequestMethod();
+                if (path.length == 4 && path[3].equals("availability") && method.equals("GET")) {
+                    respond(exchange, 200, availability(room));
+                } else if (path.length == 5 && path[3].equals("reservations") && path[4].equals("consecutive") && method.equals("POST")) {
+                    respond(exchange, 201, reservation(room.reserveConsecutiveSeats(intParameter(parameters, "seats"))));
+                } else if (path.length == 5 && path[3].equals("reservations") && path[4].equals("by-number") && method.equals("POST")) {
+                    respond(exchange, 201, reservation(reserveSeatByNumber(room, intParameter(parameters, "row"),
+                            intParameter(parameters, "seat"), intParameter(parameters, "seats"))));
+                } else if (path.length == 5 && path[3].equals("reservations") && method.equals("DELETE")) {
+                    room.cancelReservation(Long.parseLong(path[4]));
+                    respond(exchange, 204, null);
+                } else {
+                    respond(exchange, 404, error("Unknown resource"));
+                }
+            } catch (ScreeningNotFoundException | ReservationNotFoundException e) {
+                respond(exchange, 404, error(e.getMessage()));
+            } catch (NotEnoughConsecutiveSeatsInRowException e) {
+                respond(exchange, 409, error(e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException is an IllegalArgumentException too
+                respond(exchange, 400, error(e.getMessage()));
+            } catch (RuntimeException e) {
+                respond(exchange, 500, error(e.getMessage()));
+            }
+        }
+    }
+
+    // seats outside the room are a bad request; only seats that are taken are a conflict
+    private static Reservation reserveSeatByNumber(CinemaRoom room, int rowNumber, int startSeatNumber, int numberOfSeats) {
+        ReservationAttempt attempt = room.tryReserveSeatByNumber(rowNumber, startSeatNumber, numberOfSeats);
+        if (attempt.isSuccessful()) {
+            return attempt.getReservation();
+        }
+        throw switch (attempt.getRejectionReason()) {
+            case INVALID_NUMBER_OF_SEATS -> new IllegalArgumentException("Number of seats must be greater than zero");
+            case INVALID_ROW -> new IllegalArgumentException("Row " + rowNumber + " is not in the room");
+            case INVALID_SEAT -> new IllegalArgumentException("Seats " + startSeatNumber + " to "
+                    + (startSeatNumber + numberOfSeats - 1) + " are not all in row " + rowNumber);
+            default -> new NotEnoughConsecutiveSeatsInRowException(startSeatNumber);
+        };
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String availability(CinemaRoom room) {
+        return "{\"available\":" + room.getNumberOfAvailableSeats()
+                + ",\"reserved\":" + room.getReservedSeats().size()
+                + ",\"longestFreeRun\":" + room.getLongestFreeRun() + "}";
+    }
+
+    private static String reservation(Reservation reservation) {
+        StringBuilder json = new StringBuilder(32 + 24 * reservation.size());
+        json.append("{\"id\":").append(reservation.getId()).append(",\"seats\":[");
+        for (int i = 0; i < reservation.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"row\":").append(reservation.get(i).getRow())
+                    .append(",\"seat\":").append(reservation.get(i).getSeatNumber()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":\"");
+        for (char c : String.valueOf(message).toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append("\"}").toString();
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+            }
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,361 @@
+package be.vives.ti;
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class RoomLayout {
+
+    // limits of the packed reservation id
+    private static final int MAX_SEATS_PER_ROW = 65_535;
+    private static final int MAX_CAPACITY = 1 << 24;
+
+    private static final char SEAT = 'S';
+    private static final char PREMIUM_SEAT = 'P';
+    private static final char LOVE_SEAT = 'L';
+    private static final char WHEELCHAIR_SPACE = 'W';
+    private static final char NO_SEAT = '.';
+
+    private static final SeatCategory[] CATEGORIES = SeatCategory.values();
+
+    private static final WeakValueCache<Long, RoomLayout> RECTANGULAR_LAYOUTS = new WeakValueCache<>();
+    private static final WeakValueCache<List<String>, RoomLayout> PLANNED_LAYOUTS = new WeakValueCache<>();
+
+    private final int numberOfRows;
+    private final int seatsPerRow;
+    private final int capacity;
+    private final Seat[] seats;
+    private final long[] emptyRowWords;
+    private final long[] fullRowWords;
+    // per row the positions that are no seat, or null when every position of the row is a seat
+    private final long[][] blockedWords;
+    // per category and row the positions that are no seat of that category; null for a category without seats,
+    // and null for a row whose seats all have that category, then the blocked positions are exactly the others
+    private final long[][][] outsideCategoryWords;
+    // per row one bit for every category that has a seat in it, by ordinal
+    private final int[] categoriesInRow;
+    private final int[] seatsPerCategory;
+    private final int[][] longestCategoryRunInEmptyRow;
+    private final int[] seatsInRow;
+    private final int[] longestRunInEmptyRow;
+    private final int[] freeRunsInEmptyRoom;
+    private final List<String> plan;
+    private volatile SeatScores centreOfRoomScores;
+
+    private RoomLayout(int numberOfRows, int seatsPerRow) {
+        this.numberOfRows = numberOfRows;
+        this.seatsPerRow = seatsPerRow;
+        this.capacity = numberOfRows * seatsPerRow;
+        this.seats = new Seat[numberOfRows * seatsPerRow];
+        this.emptyRowWords = new long[SeatBitmap.wordsFor(seatsPerRow)];
+        this.fullRowWords = fullRowWords(seatsPerRow);
+        this.blockedWords = new long[numberOfRows][];
+        this.seatsInRow = new int[numberOfRows];
+        Arrays.fill(seatsInRow, seatsPerRow);
+        this.longestRunInEmptyRow = seatsInRow;
+        this.freeRunsInEmptyRoom = new int[seatsPerRow + 1];
+        freeRunsInEmptyRoom[seatsPerRow] = numberOfRows;
+        // every seat of a rectangular room is a standard seat
+        int standard = SeatCategory.STANDARD.ordinal();
+        this.outsideCategoryWords = new long[CATEGORIES.length][][];
+        outsideCategoryWords[standard] = new long[numberOfRows][];
+        this.categoriesInRow = new int[numberOfRows];
+        Arrays.fill(categoriesInRow, 1 << standard);
+        this.seatsPerCategory = new int[CATEGORIES.length];
+        seatsPerCategory[standard] = capacity;
+        this.longestCategoryRunInEmptyRow = new int[CATEGORIES.length][];
+        longestCategoryRunInEmptyRow[standard] = longestRunInEmptyRow;
+        this.plan = null;
+    }
+
+    private RoomLayout(List<String> plan) {
+        this.numberOfRows = plan.size();
+        this.seatsPerRow = plan.stream().mapToInt(String::length).max().orElse(0);
+        this.seats = new Seat[numberOfRows * seatsPerRow];
+        this.emptyRowWords = new long[SeatBitmap.wordsFor(seatsPerRow)];
+        this.fullRowWords = fullRowWords(seatsPerRow);
+        this.blockedWords = new long[numberOfRows][];
+        this.outsideCategoryWords = new long[CATEGORIES.length][][];
+        this.categoriesInRow = new int[numberOfRows];
+        this.seatsPerCategory = new int[CATEGORIES.length];
+        this.longestCategoryRunInEmptyRow = new int[CATEGORIES.length][];
+        this.seatsInRow = new int[numberOfRows];
+        this.longestRunInEmptyRow = new int[numberOfRows];
+        this.freeRunsInEmptyRoom = new int[seatsPerRow + 1];
+        int numberOfSeats = 0;
+        for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+            String row = plan.get(rowIndex);
+            // positions past the end of a short row are no seats either
+            long[] blocked = fullRowWords.clone();
+            long[][] outsideInRow = new long[CATEGORIES.length][];
+            for (int seatIndex = 0; seatIndex < row.length(); seatIndex++) {
+                SeatCategory category = category(row.charAt(seatIndex), rowIndex);
+                if (category != null) {
+                    int ordinal = category.ordinal();
+                    if (outsideInRow[ordinal] == null) {
+                        outsideInRow[ordinal] = fullRowWords.clone();
+                        categoriesInRow[rowIndex] |= 1 << ordinal;
+                    }
+                    SeatBitmap.clearRange(blocked, seatIndex, 1);
+                    SeatBitmap.clearRange(outsideInRow[ordinal], seatIndex, 1);
+                    seatsInRow[rowIndex]++;
+                    seatsPerCategory[ordinal]++;
+                }
+            }
+            blockedWords[rowIndex] = seatsInRow[rowIndex] == seatsPerRow ? null : blocked;
+            for (int ordinal = 0; ordinal < CATEGORIES.length; ordinal++) {
+                if (outsideInRow[ordinal] != null) {
+                    if (outsideCategoryWords[ordinal] == null) {
+                        outsideCategoryWords[ordinal] = new long[numberOfRows][];
+                    }
+                    outsideCategoryWords[ordinal][rowIndex] = categoriesInRow[rowIndex] == 1 << ordinal ? null : outsideInRow[ordinal];
+                }
+            }
+            numberOfSeats += seatsInRow[rowIndex];
+            int start = SeatBitmap.nextClearBit(blocked, 0, seatsPerRow);
+            while (start < seatsPerRow) {
+                int end = SeatBitmap.nextSetBit(blocked, start, seatsPerRow);
+                freeRunsInEmptyRoom[end - start]++;
+                longestRunInEmptyRow[rowIndex] = Math.max(longestRunInEmptyRow[rowIndex], end - start);
+                start = SeatBitmap.nextClearBit(blocked, end, seatsPerRow);
+            }
+        }
+        if (numberOfSeats == 0) {
+            throw new IllegalArgumentException("A plan needs at least one seat");
+        }
+        for (int ordinal = 0; ordinal < CATEGORIES.length; ordinal++) {
+            if (outsideCategoryWords[ordinal] != null) {
+                longestCategoryRunInEmptyRow[ordinal] = new int[numberOfRows];
+                for (int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+                    if ((categoriesInRow[rowIndex] & 1 << ordinal) == 0) {
+                        outsideCategoryWords[ordinal][rowIndex] = fullRowWords;
+                    }
+                    longestCategoryRunInEmptyRow[ordinal][rowIndex] =
+                            SeatBitmap.longestClearRun(outsideCategoryWords(ordinal, rowIndex), seatsPerRow);
+                }
+            }
+        }
+        this.capacity = numberOfSeats;
+        this.plan = List.copyOf(plan);
+    }
+
+    public static RoomLayout rectangular(int numberOfRows, int seatsPerRow) {
+        if (numberOfRows < 1 || seatsPerRow < 1) {
+            throw new IllegalArgumentException("Number of rows and seats per row must be greater than 0");
+        }
+        validateSize(numberOfRows, seatsPerRow);
+        return RECTANGULAR_LAYOUTS.computeIfAbsent(((long) numberOfRows << 32) | seatsPerRow,
+                key -> new RoomLayout(numberOfRows, seatsPerRow));
+    }
+
+    // one string per row, front row first: S is a standard seat, P a premium seat, L a love seat, W a wheelchair space
+    // and . an aisle or a missing seat, e.g. "SSSS..SPPPPS..SSSS"; seat numbers count positions,
+    // so the seat after an aisle of two is numbered two higher
+    public static RoomLayout fromPlan(List<String> rows) {
+        int widestRow = rows.stream().mapToInt(String::length).max().orElse(0);
+        if (widestRow == 0) {
+            throw new IllegalArgumentException("A plan needs at least one seat");
+        }
+        validateSize(rows.size(), widestRow);
+        // screenings of the same auditorium share one layout, however often the plan is parsed, for as long as it is used
+        return PLANNED_LAYOUTS.computeIfAbsent(List.copyOf(rows), RoomLayout::new);
+    }
+
+    public static RoomLayout fromPlan(String... rows) {
+        return fromPlan(List.of(rows));
+    }
+
+    public int getNumberOfRows() {
+        return numberOfRows;
+    }
+
+    // the number of positions in the widest row
+    public int getSeatsPerRow() {
+        return seatsPerRow;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getNumberOfSeatsInRow(int rowNumber) {
+        validateRowNumber(rowNumber);
+        return seatsInRow[rowNumber - 1];
+    }
+
+    public boolean isSeat(int rowNumber, int seatNumber) {
+        validateRowNumber(rowNumber);
+        if (seatNumber < 1 || seatNumber > seatsPerRow) {
+            return false;
+        }
+        long[] blocked = blockedWords[rowNumber - 1];
+        return blocked == null || !SeatBitmap.isSet(blocked, seatNumber - 1);
+    }
+
+    public boolean isWheelchairSpace(int rowNumber, int seatNumber) {
+        return getCategory(rowNumber, seatNumber) == SeatCategory.ACCESSIBLE;
+    }
+
+    // null for a position that is no seat
+    public SeatCategory getCategory(int rowNumber, int seatNumber) {
+        if (!isSeat(rowNumber, seatNumber)) {
+            return null;
+        }
+        int categories = categoriesInRow[rowNumber - 1];
+        for (int ordinal = 0; ordinal < CATEGORIES.length; ordinal++) {
+            if ((categories & 1 << ordinal) != 0 && !SeatBitmap.isSet(outsideCategoryWords(ordinal, rowNumber - 1), seatNumber - 1)) {
+                return CATEGORIES[ordinal];
+            }
+        }
+        throw new IllegalStateException("Seat " + seatNumber + " in row " + rowNumber + " has no category");
+    }
+
+    public int getNumberOfSeats(SeatCategory category) {
+        return seatsPerCategory[category.ordinal()];
+    }
+
+    public SeatScores getCentreOfRoomScores() {
+        SeatScores scores = centreOfRoomScores;
+        if (scores == null) {
+            // computed once per layout and shared by every screening in it
+            scores = SeatScores.of(this, SeatScoring.centreOfRoom());
+            centreOfRoomScores = scores;
+        }
+        return scores;
+    }
+
+    int seatId(int row, int seatNumber) {
+        return (row - 1) * seatsPerRow + seatNumber - 1;
+    }
+
+    long[] emptyRowWords() {
+        return emptyRowWords;
+    }
+
+    // the occupancy bitmap of a row in an empty room: positions that are no seat look taken, so no search ever picks them
+    long[] blockedWords(int rowIndex) {
+        long[] blocked = blockedWords[rowIndex];
+        return blocked == null ? emptyRowWords : blocked;
+    }
+
+    boolean hasSingleCategory() {
+        int categories = 0;
+        for (int seats : seatsPerCategory) {
+            categories += seats > 0 ? 1 : 0;
+        }
+        return categories == 1;
+    }
+
+    int categoriesInRow(int rowIndex) {
+        return categoriesInRow[rowIndex];
+    }
+
+    // like blockedWords, but the seats of the other categories look taken as well
+    long[] outsideCategoryWords(int categoryOrdinal, int rowIndex) {
+        long[][] outside = outsideCategoryWords[categoryOrdinal];
+        if (outside == null) {
+            return fullRowWords;
+        }
+        long[] words = outside[rowIndex];
+        return words == null ? blockedWords(rowIndex) : words;
+    }
+
+    // null for a category without seats
+    int[] longestCategoryRunsInEmptyRows(int categoryOrdinal) {
+        return longestCategoryRunInEmptyRow[categoryOrdinal];
+    }
+
+    int longestRunInEmptyRoom(SeatCategory category) {
+        int[] runs = longestCategoryRunInEmptyRow[category.ordinal()];
+        int longestRun = 0;
+        if (runs != null) {
+            for (int run : runs) {
+                longestRun = Math.max(longestRun, run);
+            }
+        }
+        return longestRun;
+    }
+
+    int seatsInRow(int rowIndex) {
+        return seatsInRow[rowIndex];
+    }
+
+    int longestRunInEmptyRow(int rowIndex) {
+        return longestRunInEmptyRow[rowIndex];
+    }
+
+    int longestRunInEmptyRoom() {
+        int longestRun = 0;
+        for (int run : longestRunInEmptyRow) {
+            longestRun = Math.max(longestRun, run);
+        }
+        return longestRun;
+    }
+
+    int sumOfLongestRunsInEmptyRoom() {
+        int sum = 0;
+        for (int run : longestRunInEmptyRow) {
+            sum += run;
+        }
+        return sum;
+    }
+
+    // index is the length of a run; shared, so callers copy it before changing it
+    int[] freeRunsInEmptyRoom() {
+        return freeRunsInEmptyRoom;
+    }
+
+    List<String> plan() {
+        return plan;
+    }
+
+    Seat seat(int seatId) {
+        Seat seat = seats[seatId];
+        if (seat == null) {
+            // racing threads may both create the seat; Seat is immutable, so either instance is fine
+            seat = new Seat(seatId / seatsPerRow + 1, seatId % seatsPerRow + 1);
+            seats[seatId] = seat;
+        }
+        return seat;
+    }
+
+    private static SeatCategory category(char position, int rowIndex) {
+        return switch (position) {
+            case SEAT -> SeatCategory.STANDARD;
+            case PREMIUM_SEAT -> SeatCategory.PREMIUM;
+            case LOVE_SEAT -> SeatCategory.LOVE_SEAT;
+            case WHEELCHAIR_SPACE -> SeatCategory.ACCESSIBLE;
+            case NO_SEAT -> null;
+            default -> throw new IllegalArgumentException("Unknown position '" + position + "' in row " + (rowIndex + 1)
+                    + ", use " + SEAT + " for a standard seat, " + PREMIUM_SEAT + " for a premium seat, " + LOVE_SEAT
+                    + " for a love seat, " + WHEELCHAIR_SPACE + " for a wheelchair space and " + NO_SEAT
+                    + " for an aisle or a missing seat");
+        };
+    }
+
+    private static long[] fullRowWords(int seatsPerRow) {
+        long[] words = new long[SeatBitmap.wordsFor(seatsPerRow)];
+        SeatBitmap.setRange(words, 0, seatsPerRow);
+        return words;
+    }
+
+    private static void validateSize(int numberOfRows, int seatsPerRow) {
+        if (seatsPerRow > MAX_SEATS_PER_ROW || (long) numberOfRows * seatsPerRow > MAX_CAPACITY) {
+            throw new IllegalArgumentException("A room can hold at most " + MAX_SEATS_PER_ROW + " seats per row and "
+                    + MAX_CAPACITY + " seats in total");
+        }
+    }
+
+    private void validateRowNumber(int rowNumber) {
+        if (rowNumber <= 0 || rowNumber > numberOfRows) {
+            throw new IllegalArgumentException("Rownumber must be between 1 and " + numberOfRows);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (plan != null) {
+            return "Layout with " + numberOfRows + " rows and " + capacity + " seats";
+        }
+        return "Layout with " + numberOfRows + " rows of " + seatsPerRow + " seats";
+    }
+}
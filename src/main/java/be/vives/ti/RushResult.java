@@ -0,0 +1,84 @@
+package be.vives.ti;
+
+import java.time.Duration;
+import java.util.Locale;
+
+public final class RushResult {
+
+    private final RoomLayout layout;
+    private final RushScenario scenario;
+    private final Duration duration;
+    private final long rejectedRequests;
+    private final long abandonedHolds;
+    private final Histogram latencies;
+    private final OccupancyGauges finalOccupancy;
+
+    RushResult(RoomLayout layout, RushScenario scenario, Duration duration, long rejectedRequests, long abandonedHolds,
+               Histogram latencies, OccupancyGauges finalOccupancy) {
+        this.layout = layout;
+        this.scenario = scenario;
+        this.duration = duration;
+        this.rejectedRequests = rejectedRequests;
+        this.abandonedHolds = abandonedHolds;
+        this.latencies = latencies;
+        this.finalOccupancy = finalOccupancy;
+    }
+
+    public RushScenario getScenario() {
+        return scenario;
+    }
+
+    public long getNumberOfRequests() {
+        return latencies.getCount();
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests;
+    }
+
+    public double getRejectionRate() {
+        return getNumberOfRequests() == 0 ? 0 : (double) rejectedRequests / getNumberOfRequests();
+    }
+
+    public long getAbandonedHolds() {
+        return abandonedHolds;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public double getRequestsPerSecond() {
+        return getNumberOfRequests() / (duration.toNanos() / 1e9);
+    }
+
+    // latencies in nanoseconds, from the planned arrival of a request until it was served
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    // after the run, once the abandoned holds expired
+    public OccupancyGauges getFinalOccupancy() {
+        return finalOccupancy;
+    }
+
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"rows\":%d,\"seatsPerRow\":%d,\"scenario\":%s,"
+                        + "\"requests\":%d,\"rejectedRequests\":%d,\"rejectionRate\":%.4f,\"abandonedHolds\":%d,"
+                        + "\"durationMillis\":%.3f,\"requestsPerSecond\":%.1f,"
+                        + "\"latencyNanos\":{\"p50\":%d,\"p90\":%d,\"p99\":%d,\"p999\":%d,\"max\":%d},"
+                        + "\"seatsSold\":%d,\"fillRate\":%.4f,\"longestFreeRun\":%d,\"fragmentation\":%.4f}",
+                layout.getNumberOfRows(), layout.getSeatsPerRow(), scenario.toJson(),
+                getNumberOfRequests(), rejectedRequests, getRejectionRate(), abandonedHolds,
+                duration.toNanos() / 1e6, getRequestsPerSecond(),
+                latencies.getValueAtPercentile(50), latencies.getValueAtPercentile(90), latencies.getValueAtPercentile(99),
+                latencies.getValueAtPercentile(99.9), latencies.getMax(),
+                finalOccupancy.getReservedSeats(), finalOccupancy.getOccupancy(), finalOccupancy.getLongestFreeRun(),
+                finalOccupancy.getFragmentation());
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,195 @@
+package be.vives.ti;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+
+public final class RushScenario {
+
+    private static final int DEFAULT_CONCURRENCY = 8;
+
+    private final long seed;
+    private final int numberOfRequests;
+    private final int[] partySizeWeights;
+    private final double byNumberShare;
+    private final double holdShare;
+    private final double abandonShare;
+    private final Duration holdTimeToLive;
+    private final int meanBurstSize;
+    private final Duration meanBurstInterval;
+    private final int concurrency;
+
+    private RushScenario(long seed, int numberOfRequests, int[] partySizeWeights, double byNumberShare, double holdShare,
+                         double abandonShare, Duration holdTimeToLive, int meanBurstSize, Duration meanBurstInterval,
+                         int concurrency) {
+        if (numberOfRequests <= 0) {
+            throw new IllegalArgumentException("Number of requests must be positive");
+        }
+        if (partySizeWeights.length == 0 || Arrays.stream(partySizeWeights).anyMatch(weight -> weight < 0)
+                || Arrays.stream(partySizeWeights).sum() == 0) {
+            throw new IllegalArgumentException("Party size weights must not be negative and must not all be 0");
+        }
+        validateShare("By-number share", byNumberShare);
+        validateShare("Hold share", holdShare);
+        validateShare("Abandon share", abandonShare);
+        if (holdTimeToLive.isNegative() || holdTimeToLive.isZero()) {
+            throw new IllegalArgumentException("Hold time to live must be positive");
+        }
+        if (meanBurstSize <= 0) {
+            throw new IllegalArgumentException("Mean burst size must be positive");
+        }
+        if (meanBurstInterval.isNegative()) {
+            throw new IllegalArgumentException("Mean burst interval must not be negative");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        this.seed = seed;
+        this.numberOfRequests = numberOfRequests;
+        this.partySizeWeights = partySizeWeights.clone();
+        this.byNumberShare = byNumberShare;
+        this.holdShare = holdShare;
+        this.abandonShare = abandonShare;
+        this.holdTimeToLive = holdTimeToLive;
+        this.meanBurstSize = meanBurstSize;
+        this.meanBurstInterval = meanBurstInterval;
+        this.concurrency = concurrency;
+    }
+
+    // mostly couples and small groups, 40% picked from the seat map, 30% going through a hold of which a quarter is
+    // abandoned, sent by 8 workers; the worker count does not follow the machine, so a run is the same rush everywhere
+    public static RushScenario defaults() {
+        return new RushScenario(42, 10_000, new int[]{20, 45, 10, 15, 5, 5}, 0.4, 0.3, 0.25,
+                Duration.ofMillis(20), 200, Duration.ofMillis(5), DEFAULT_CONCURRENCY);
+    }
+
+    // keys are the names of the with-methods without "with", e.g. partySizeWeights=20,45,10,15,5,5 or holdTimeToLiveMillis=20
+    public static RushScenario fromProperties(Properties properties) {
+        RushScenario scenario = defaults();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).strip();
+            scenario = switch (key) {
+                case "seed" -> scenario.withSeed(Long.parseLong(value));
+                case "numberOfRequests" -> scenario.withNumberOfRequests(Integer.parseInt(value));
+                case "partySizeWeights" -> scenario.withPartySizeWeights(
+                        Arrays.stream(value.split(",")).map(String::strip).mapToInt(Integer::parseInt).toArray());
+                case "byNumberShare" -> scenario.withByNumberShare(Double.parseDouble(value));
+                case "holdShare" -> scenario.withHoldShare(Double.parseDouble(value));
+                case "abandonShare" -> scenario.withAbandonShare(Double.parseDouble(value));
+                case "holdTimeToLiveMillis" -> scenario.withHoldTimeToLive(Duration.ofMillis(Long.parseLong(value)));
+                case "meanBurstSize" -> scenario.withMeanBurstSize(Integer.parseInt(value));
+                case "meanBurstIntervalMillis" -> scenario.withMeanBurstInterval(Duration.ofMillis(Long.parseLong(value)));
+                case "concurrency" -> scenario.withConcurrency(Integer.parseInt(value));
+                default -> throw new IllegalArgumentException("Unknown scenario property " + key);
+            };
+        }
+        return scenario;
+    }
+
+    public RushScenario withSeed(long seed) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    public RushScenario withNumberOfRequests(int numberOfRequests) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    // index 0 is the weight of a party of 1, index 1 of a party of 2, ...
+    public RushScenario withPartySizeWeights(int... partySizeWeights) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    public RushScenario withByNumberShare(double byNumberShare) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    public RushScenario withHoldShare(double holdShare) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    // the share of holds that is never confirmed and left to expire
+    public RushScenario withAbandonShare(double abandonShare) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    public RushScenario withHoldTimeToLive(Duration holdTimeToLive) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    public RushScenario withMeanBurstSize(int meanBurstSize) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    public RushScenario withMeanBurstInterval(Duration meanBurstInterval) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    public RushScenario withConcurrency(int concurrency) {
+        return new RushScenario(seed, numberOfRequests, partySizeWeights, byNumberShare, holdShare, abandonShare,
+                holdTimeToLive, meanBurstSize, meanBurstInterval, concurrency);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumberOfRequests() {
+        return numberOfRequests;
+    }
+
+    public int[] getPartySizeWeights() {
+        return partySizeWeights.clone();
+    }
+
+    public double getByNumberShare() {
+        return byNumberShare;
+    }
+
+    public double getHoldShare() {
+        return holdShare;
+    }
+
+    public double getAbandonShare() {
+        return abandonShare;
+    }
+
+    public Duration getHoldTimeToLive() {
+        return holdTimeToLive;
+    }
+
+    public int getMeanBurstSize() {
+        return meanBurstSize;
+    }
+
+    public Duration getMeanBurstInterval() {
+        return meanBurstInterval;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    String toJson() {
+        return String.format(Locale.ROOT, "{\"seed\":%d,\"numberOfRequests\":%d,\"partySizeWeights\":%s,"
+                        + "\"byNumberShare\":%s,\"holdShare\":%s,\"abandonShare\":%s,\"holdTimeToLiveMillis\":%d,"
+                        + "\"meanBurstSize\":%d,\"meanBurstIntervalMillis\":%d,\"concurrency\":%d}",
+                seed, numberOfRequests, Arrays.toString(partySizeWeights).replace(" ", ""), byNumberShare, holdShare,
+                abandonShare, holdTimeToLive.toMillis(), meanBurstSize, meanBurstInterval.toMillis(), concurrency);
+    }
+
+    private static void validateShare(String name, double share) {
+        if (!(share >= 0 && share <= 1)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1");
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package be.vives.ti;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public final class RushSimulator {
+
+    private static final long HOLD_EXPIRY_POLL_NANOS = 10_000_000;
+
+    private RushSimulator() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Usage: RushSimulator <number of rows> <seats per row> [scenario properties file]");
+            System.exit(1);
+        }
+        RoomLayout layout = RoomLayout.rectangular(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        RushScenario scenario = args.length == 3 ? readScenario(Path.of(args[2])) : RushScenario.defaults();
+        System.out.println(simulate(layout, scenario).toJson());
+    }
+
+    public static RushScenario readScenario(Path file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read scenario file " + file, e);
+        }
+        return RushScenario.fromProperties(properties);
+    }
+
+    // the demand only depends on the seed; with a concurrency above 1 the order in which it reaches the room does not
+    public static RushResult simulate(RoomLayout layout, RushScenario scenario) {
+        List<Arrival> arrivals = generateDemand(layout, scenario);
+        CinemaRoom room = new CinemaRoom("Rush", layout);
+        Histogram latencies = new Histogram();
+        AtomicInteger nextArrival = new AtomicInteger();
+        AtomicLong rejectedRequests = new AtomicLong();
+        AtomicLong abandonedHolds = new AtomicLong();
+        long startNanos = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(scenario.getConcurrency())) {
+            for (int worker = 0; worker < scenario.getConcurrency(); worker++) {
+                executor.execute(() -> {
+                    for (int index = nextArrival.getAndIncrement(); index < arrivals.size(); index = nextArrival.getAndIncrement()) {
+                        Arrival arrival = arrivals.get(index);
+                        long arrivalNanos = startNanos + arrival.offsetNanos;
+                        while (System.nanoTime() < arrivalNanos) {
+                            LockSupport.parkNanos(arrivalNanos - System.nanoTime());
+                        }
+                        if (!serve(room, arrival, scenario.getHoldTimeToLive())) {
+                            rejectedRequests.incrementAndGet();
+                        } else if (arrival.abandoned) {
+                            abandonedHolds.incrementAndGet();
+                        }
+                        // measured from the planned arrival, so the time a request waits behind a burst counts as well
+                        latencies.record(System.nanoTime() - arrivalNanos);
+                    }
+                });
+            }
+        }
+        Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+        // abandoned holds still on the map would hide the fragmentation the sold seats leave behind;
+        // the timing wheel expires them a tick after their time to live at the latest
+        room.expireHolds();
+        while (room.getOccupancyGauges().getHeldSeats() > 0) {
+            LockSupport.parkNanos(HOLD_EXPIRY_POLL_NANOS);
+            room.expireHolds();
+        }
+        return new RushResult(layout, scenario, duration, rejectedRequests.get(), abandonedHolds.get(), latencies,
+                room.getOccupancyGauges());
+    }
+
+    static List<Arrival> generateDemand(RoomLayout layout, RushScenario scenario) {
+        Random random = new Random(scenario.getSeed());
+        int[] partySizeWeights = scenario.getPartySizeWeights();
+        int totalWeight = 0;
+        for (int weight : partySizeWeights) {
+            totalWeight += weight;
+        }
+        List<Arrival> arrivals = new ArrayList<>(scenario.getNumberOfRequests());
+        long offsetNanos = 0;
+        while (arrivals.size() < scenario.getNumberOfRequests()) {
+            // bursts arrive as a Poisson process and their sizes are geometric, so a few bursts are much larger than the mean
+            int burstSize = 1 + (int) (-(scenario.getMeanBurstSize() - 1) * Math.log(1 - random.nextDouble()));
+            for (int i = 0; i < burstSize && arrivals.size() < scenario.getNumberOfRequests(); i++) {
+                int numberOfSeats = Math.min(partySize(random, partySizeWeights, totalWeight), layout.getSeatsPerRow());
+                ReservationRequest request = random.nextDouble() < scenario.getByNumberShare()
+                        ? ReservationRequest.seatByNumber(1 + random.nextInt(layout.getNumberOfRows()),
+                        1 + random.nextInt(layout.getSeatsPerRow() - numberOfSeats + 1), numberOfSeats)
+                        : ReservationRequest.consecutiveSeats(numberOfSeats);
+                boolean held = random.nextDouble() < scenario.getHoldShare();
+                boolean abandoned = held && random.nextDouble() < scenario.getAbandonShare();
+                arrivals.add(new Arrival(offsetNanos, request, held, abandoned));
+            }
+            offsetNanos += (long) (-scenario.getMeanBurstInterval().toNanos() * Math.log(1 - random.nextDouble()));
+        }
+        return arrivals;
+    }
+
+    private static int partySize(Random random, int[] partySizeWeights, int totalWeight) {
+        int pick = random.nextInt(totalWeight);
+        int partySize = 0;
+        while (pick >= partySizeWeights[partySize]) {
+            pick -= partySizeWeights[partySize++];
+        }
+        return partySize + 1;
+    }
+
+    // returns false when the request was rejected
+    private static boolean serve(CinemaRoom room, Arrival arrival, Duration holdTimeToLive) {
+        ReservationRequest request = arrival.request;
+        try {
+            if (!arrival.held) {
+                if (request.isConsecutiveSeats()) {
+                    room.reserveConsecutiveSeats(request.getNumberOfSeats());
+                } else {
+                    room.reserveSeatByNumber(request.getRowNumber(), request.getStartSeatNumber(), request.getNumberOfSeats());
+                }
+                return true;
+            }
+            SeatHold hold = request.isConsecutiveSeats()
+                    ? room.holdConsecutiveSeats(request.getNumberOfSeats(), holdTimeToLive)
+                    : room.holdSeatByNumber(request.getRowNumber(), request.getStartSeatNumber(), request.getNumberOfSeats(), holdTimeToLive);
+            if (!arrival.abandoned) {
+                room.confirm(hold.getId());
+            }
+            return true;
+        } catch (NotEnoughConsecutiveSeatsInRowException | HoldNotFoundException e) {
+            // a hold that expired before it was confirmed is a lost sale, just like a rejection
+            return false;
+        }
+    }
+
+    static final class Arrival {
+
+        private final long offsetNanos;
+        private final ReservationRequest request;
+        private final boolean held;
+        private final boolean abandoned;
+
+        Arrival(long offsetNanos, ReservationRequest request, boolean held, boolean abandoned) {
+            this.offsetNanos = offsetNanos;
+            this.request = request;
+            this.held = held;
+            this.abandoned = abandoned;
+        }
+
+        long getOffsetNanos() {
+            return offsetNanos;
+        }
+
+        ReservationRequest getRequest() {
+            return request;
+        }
+
+        boolean isHeld() {
+            return held;
+        }
+
+        boolean isAbandoned() {
+            return abandoned;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package be.vives.ti;
+
+public class ScreeningNotFoundException extends RuntimeException {
+
+    public ScreeningNotFoundException(long showtimeId) {
+        super("No screening with showtime id " + showtimeId);
+    }
+}
@@ -1,7 +1,5 @@
 package be.vives.ti;
 
-import java.util.Objects;
-
 public class Seat implements Comparable<Seat> {
 
     private final int row;
@@ -52,6 +50,6 @@ public class Seat implements Comparable<Seat> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, seatNumber);
+        return 31 * row + seatNumber;
     }
 }
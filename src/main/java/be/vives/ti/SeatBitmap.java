@@ -0,0 +1,267 @@
+package be.vives.ti;
+
+final class SeatBitmap {
+
+    private static final long WORD_MASK = 0xFFFFFFFFFFFFFFFFL;
+
+    private SeatBitmap() {
+    }
+
+    static int wordsFor(int numberOfBits) {
+        return (numberOfBits + 63) >>> 6;
+    }
+
+    static boolean isSet(long[] words, int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    static boolean isRangeClear(long[] words, int fromIndex, int count) {
+        int toIndex = fromIndex + count;
+        int firstWord = fromIndex >>> 6;
+        int lastWord = (toIndex - 1) >>> 6;
+        long firstWordMask = WORD_MASK << fromIndex;
+        long lastWordMask = WORD_MASK >>> -toIndex;
+        if (firstWord == lastWord) {
+            return (words[firstWord] & firstWordMask & lastWordMask) == 0;
+        }
+        if ((words[firstWord] & firstWordMask) != 0) {
+            return false;
+        }
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            if (words[i] != 0) {
+                return false;
+            }
+        }
+        return (words[lastWord] & lastWordMask) == 0;
+    }
+
+    static void setRange(long[] words, int fromIndex, int count) {
+        int toIndex = fromIndex + count;
+        int firstWord = fromIndex >>> 6;
+        int lastWord = (toIndex - 1) >>> 6;
+        long firstWordMask = WORD_MASK << fromIndex;
+        long lastWordMask = WORD_MASK >>> -toIndex;
+        if (firstWord == lastWord) {
+            words[firstWord] |= firstWordMask & lastWordMask;
+            return;
+        }
+        words[firstWord] |= firstWordMask;
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            words[i] = WORD_MASK;
+        }
+        words[lastWord] |= lastWordMask;
+    }
+
+    static void clearRange(long[] words, int fromIndex, int count) {
+        int toIndex = fromIndex + count;
+        int firstWord = fromIndex >>> 6;
+        int lastWord = (toIndex - 1) >>> 6;
+        long firstWordMask = WORD_MASK << fromIndex;
+        long lastWordMask = WORD_MASK >>> -toIndex;
+        if (firstWord == lastWord) {
+            words[firstWord] &= ~(firstWordMask & lastWordMask);
+            return;
+        }
+        words[firstWord] &= ~firstWordMask;
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            words[i] = 0;
+        }
+        words[lastWord] &= ~lastWordMask;
+    }
+
+    static int cardinality(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    static int cardinality(long[] words, int fromIndex, int count) {
+        int toIndex = fromIndex + count;
+        int firstWord = fromIndex >>> 6;
+        int lastWord = (toIndex - 1) >>> 6;
+        long firstWordMask = WORD_MASK << fromIndex;
+        long lastWordMask = WORD_MASK >>> -toIndex;
+        if (firstWord == lastWord) {
+            return Long.bitCount(words[firstWord] & firstWordMask & lastWordMask);
+        }
+        int bits = Long.bitCount(words[firstWord] & firstWordMask);
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            bits += Long.bitCount(words[i]);
+        }
+        return bits + Long.bitCount(words[lastWord] & lastWordMask);
+    }
+
+    static int nextSetBit(long[] words, int fromIndex, int width) {
+        if (fromIndex >= width) {
+            return width;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = words[wordIndex] & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return Math.min((wordIndex << 6) + Long.numberOfTrailingZeros(word), width);
+            }
+            if (++wordIndex == words.length) {
+                return width;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    static int nextSetBit(long[] words, long[] excludedWords, int fromIndex, int width) {
+        if (fromIndex >= width) {
+            return width;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = words[wordIndex] & ~excludedWords[wordIndex] & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return Math.min((wordIndex << 6) + Long.numberOfTrailingZeros(word), width);
+            }
+            if (++wordIndex == words.length) {
+                return width;
+            }
+            word = words[wordIndex] & ~excludedWords[wordIndex];
+        }
+    }
+
+    static int nextSetBit(long[] words, long[] excludedWords, long[] otherExcludedWords, int fromIndex, int width) {
+        if (fromIndex >= width) {
+            return width;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = words[wordIndex] & ~excludedWords[wordIndex] & ~otherExcludedWords[wordIndex] & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return Math.min((wordIndex << 6) + Long.numberOfTrailingZeros(word), width);
+            }
+            if (++wordIndex == words.length) {
+                return width;
+            }
+            word = words[wordIndex] & ~excludedWords[wordIndex] & ~otherExcludedWords[wordIndex];
+        }
+    }
+
+    static int previousSetBit(long[] words, int fromIndex) {
+        if (fromIndex < 0) {
+            return -1;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = words[wordIndex] & (WORD_MASK >>> (63 - (fromIndex & 63)));
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (wordIndex-- == 0) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    static int nextClearBit(long[] words, int fromIndex, int width) {
+        if (fromIndex >= width) {
+            return width;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = ~words[wordIndex] & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return Math.min((wordIndex << 6) + Long.numberOfTrailingZeros(word), width);
+            }
+            if (++wordIndex == words.length) {
+                return width;
+            }
+            word = ~words[wordIndex];
+        }
+    }
+
+    // the union variants treat a bit as set when it is set in either bitmap, without building the union
+    static int nextSetBitOfUnion(long[] words, long[] otherWords, int fromIndex, int width) {
+        if (fromIndex >= width) {
+            return width;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = (words[wordIndex] | otherWords[wordIndex]) & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return Math.min((wordIndex << 6) + Long.numberOfTrailingZeros(word), width);
+            }
+            if (++wordIndex == words.length) {
+                return width;
+            }
+            word = words[wordIndex] | otherWords[wordIndex];
+        }
+    }
+
+    static int nextClearBitOfUnion(long[] words, long[] otherWords, int fromIndex, int width) {
+        if (fromIndex >= width) {
+            return width;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = ~(words[wordIndex] | otherWords[wordIndex]) & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return Math.min((wordIndex << 6) + Long.numberOfTrailingZeros(word), width);
+            }
+            if (++wordIndex == words.length) {
+                return width;
+            }
+            word = ~(words[wordIndex] | otherWords[wordIndex]);
+        }
+    }
+
+    static int longestClearRunOfUnion(long[] words, long[] otherWords, int width) {
+        int longest = 0;
+        int start = nextClearBitOfUnion(words, otherWords, 0, width);
+        while (width - start > longest) {
+            int end = nextSetBitOfUnion(words, otherWords, start, width);
+            longest = Math.max(longest, end - start);
+            start = nextClearBitOfUnion(words, otherWords, end, width);
+        }
+        return longest;
+    }
+
+    static int findClearRun(long[] words, int width, int length) {
+        int start = nextClearBit(words, 0, width);
+        while (start + length <= width) {
+            int end = nextSetBit(words, start, width);
+            if (end - start >= length) {
+                return start;
+            }
+            start = nextClearBit(words, end, width);
+        }
+        return -1;
+    }
+
+    static int closestClearRun(long[] words, int width, int length, int target) {
+        int closest = -1;
+        int start = nextClearBit(words, 0, width);
+        while (start + length <= width) {
+            int end = nextSetBit(words, start, width);
+            if (end - start >= length) {
+                int candidate = Math.max(start, Math.min(target, end - length));
+                if (closest < 0 || Math.abs(candidate - target) < Math.abs(closest - target)) {
+                    closest = candidate;
+                } else if (start > target) {
+                    return closest;
+                }
+            }
+            start = nextClearBit(words, end, width);
+        }
+        return closest;
+    }
+
+    static int longestClearRun(long[] words, int width) {
+        int longest = 0;
+        int start = nextClearBit(words, 0, width);
+        while (width - start > longest) {
+            int end = nextSetBit(words, start, width);
+            longest = Math.max(longest, end - start);
+            start = nextClearBit(words, end, width);
+        }
+        return longest;
+    }
+}
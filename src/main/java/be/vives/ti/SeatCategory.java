@@ -0,0 +1,9 @@
+package be.vives.ti;
+
+public enum SeatCategory {
+    STANDARD,
+    PREMIUM,
+    LOVE_SEAT,
+    // a wheelchair space
+    ACCESSIBLE
+}
@@ -0,0 +1,37 @@
+package be.vives.ti;
+
+public final class SeatChange {
+
+    private final Seat seat;
+    private final SeatState previousState;
+    private final SeatState newState;
+    private final long version;
+
+    SeatChange(Seat seat, SeatState previousState, SeatState newState, long version) {
+        this.seat = seat;
+        this.previousState = previousState;
+        this.newState = newState;
+        this.version = version;
+    }
+
+    public Seat getSeat() {
+        return seat;
+    }
+
+    public SeatState getPreviousState() {
+        return previousState;
+    }
+
+    public SeatState getNewState() {
+        return newState;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return seat + ": " + previousState + " -> " + newState + " (version " + version + ")";
+    }
+}
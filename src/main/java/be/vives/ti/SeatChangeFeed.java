@@ -0,0 +1,88 @@
+package be.vives.ti;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class SeatChangeFeed implements SeatStateListener {
+
+    static final long FIRST_VERSION = 1;
+
+    private static final int CAPACITY = 4096;
+    private static final long UNPUBLISHED = -1;
+    private static final SeatState[] STATES = SeatState.values();
+
+    private final RoomLayout layout;
+    private final AtomicLong lastVersion;
+    // every change of a run of seats is one record: first seat id (24 bits), number of seats (16 bits) and both states
+    private final AtomicLongArray records;
+    private final AtomicLongArray recordVersions;
+
+    SeatChangeFeed(RoomLayout layout) {
+        this.layout = layout;
+        this.lastVersion = new AtomicLong(FIRST_VERSION);
+        this.records = new AtomicLongArray(CAPACITY);
+        this.recordVersions = new AtomicLongArray(CAPACITY);
+    }
+
+    long getLastVersion() {
+        return lastVersion.get();
+    }
+
+    @Override
+    public void seatsChanged(int rowNumber, int startSeatNumber, int numberOfSeats, SeatState previousState, SeatState newState) {
+        long version = lastVersion.incrementAndGet();
+        int slot = (int) (version & (CAPACITY - 1));
+        // readers check the version on both sides of the record, so it is withdrawn while the record is replaced
+        recordVersions.set(slot, UNPUBLISHED);
+        records.set(slot, ((long) layout.seatId(rowNumber, startSeatNumber) << 24)
+                | ((long) numberOfSeats << 8)
+                | (previousState.ordinal() << 4)
+                | newState.ordinal());
+        recordVersions.set(slot, version);
+    }
+
+    // returns null when the changes since the version are no longer in the buffer
+    SeatChanges changesSince(long version) {
+        long currentVersion = lastVersion.get();
+        if (version < FIRST_VERSION || version > currentVersion || currentVersion - version > CAPACITY) {
+            return null;
+        }
+        // the same seats may change several times; the subscriber only needs where each seat started and ended
+        Map<Integer, SeatChange> changesBySeat = new LinkedHashMap<>();
+        long returnedVersion = version;
+        for (long nextVersion = version + 1; nextVersion <= currentVersion; nextVersion++) {
+            int slot = (int) (nextVersion & (CAPACITY - 1));
+            long recordVersion = recordVersions.get(slot);
+            long record = records.get(slot);
+            if (recordVersion != nextVersion || recordVersions.get(slot) != nextVersion) {
+                if (recordVersion > nextVersion || lastVersion.get() - nextVersion >= CAPACITY) {
+                    // a writer that went round the buffer replaced the record
+                    return null;
+                }
+                // the writer of this version did not publish yet, the next call picks it up
+                break;
+            }
+            int firstSeatId = (int) (record >>> 24);
+            int numberOfSeats = (int) ((record >>> 8) & 0xFFFF);
+            SeatState previousState = STATES[(int) ((record >>> 4) & 0xF)];
+            SeatState newState = STATES[(int) (record & 0xF)];
+            for (int seatId = firstSeatId; seatId < firstSeatId + numberOfSeats; seatId++) {
+                SeatChange earlierChange = changesBySeat.get(seatId);
+                SeatState startState = earlierChange == null ? previousState : earlierChange.getPreviousState();
+                changesBySeat.put(seatId, new SeatChange(layout.seat(seatId), startState, newState, nextVersion));
+            }
+            returnedVersion = nextVersion;
+        }
+        List<SeatChange> coalescedChanges = new ArrayList<>(changesBySeat.size());
+        for (SeatChange change : changesBySeat.values()) {
+            if (change.getPreviousState() != change.getNewState()) {
+                coalescedChanges.add(change);
+            }
+        }
+        return new SeatChanges(returnedVersion, false, coalescedChanges);
+    }
+}
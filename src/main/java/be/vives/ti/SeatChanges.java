@@ -0,0 +1,29 @@
+package be.vives.ti;
+
+import java.util.List;
+
+public final class SeatChanges {
+
+    private final long version;
+    private final boolean snapshot;
+    private final List<SeatChange> changes;
+
+    SeatChanges(long version, boolean snapshot, List<SeatChange> changes) {
+        this.version = version;
+        this.snapshot = snapshot;
+        this.changes = changes;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // a snapshot lists every seat that is not available; the subscriber starts again from an empty seat map
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public List<SeatChange> getChanges() {
+        return changes;
+    }
+}
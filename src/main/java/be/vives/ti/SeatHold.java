@@ -0,0 +1,53 @@
+package be.vives.ti;
+
+import java.time.Instant;
+import java.util.List;
+
+public final class SeatHold {
+
+    private final long id;
+    private final int row;
+    private final int startSeatNumber;
+    private final int numberOfSeats;
+    private final List<Seat> seats;
+    private final Instant expiresAt;
+
+    SeatHold(long id, List<Seat> seats, Instant expiresAt) {
+        this.id = id;
+        this.row = seats.get(0).getRow();
+        this.startSeatNumber = seats.get(0).getSeatNumber();
+        this.numberOfSeats = seats.size();
+        this.seats = seats;
+        this.expiresAt = expiresAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getStartSeatNumber() {
+        return startSeatNumber;
+    }
+
+    public int getNumberOfSeats() {
+        return numberOfSeats;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public List<Seat> getSeats() {
+        return seats;
+    }
+
+    @Override
+    public String toString() {
+        return "Hold " + id + " on row " + row + ", seats " + startSeatNumber + "-" + (startSeatNumber + numberOfSeats - 1)
+                + " until " + expiresAt;
+    }
+}
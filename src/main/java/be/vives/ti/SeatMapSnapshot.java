@@ -0,0 +1,131 @@
+package be.vives.ti;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// an immutable seat map of one moment; rows that did not change are shared with the snapshots before and after it
+public final class SeatMapSnapshot {
+
+    private final RoomLayout layout;
+    private final long version;
+    private final Row[] rows;
+
+    SeatMapSnapshot(RoomLayout layout, long version, Row[] rows) {
+        this.layout = layout;
+        this.version = version;
+        this.rows = rows;
+    }
+
+    // a room that is not loaded has no held seats
+    static SeatMapSnapshot fromReservedRows(RoomLayout layout, long version, long[][] reservedRows) {
+        Row[] rows = new Row[layout.getNumberOfRows()];
+        for (int rowIndex = 0; rowIndex < rows.length; rowIndex++) {
+            long[] blocked = layout.blockedWords(rowIndex);
+            long[] words = reservedRows == null ? null : reservedRows[rowIndex];
+            if (words != null) {
+                for (int word = 0; word < words.length; word++) {
+                    words[word] |= blocked[word];
+                }
+            }
+            rows[rowIndex] = new Row(words == null ? blocked : words, null, 0);
+        }
+        return new SeatMapSnapshot(layout, version, rows);
+    }
+
+    public RoomLayout getLayout() {
+        return layout;
+    }
+
+    // counts every change of a seat since the room was created or loaded from a catalog snapshot;
+    // two snapshots of the same room with the same version show the same seats
+    public long getVersion() {
+        return version;
+    }
+
+    public SeatState getState(int rowNumber, int seatNumber) {
+        if (!layout.isSeat(rowNumber, seatNumber)) {
+            throw new IllegalArgumentException("There is no seat " + seatNumber + " in row " + rowNumber);
+        }
+        Row row = rows[rowNumber - 1];
+        if (row.heldWords != null && SeatBitmap.isSet(row.heldWords, seatNumber - 1)) {
+            return SeatState.HELD;
+        }
+        return SeatBitmap.isSet(row.occupiedWords, seatNumber - 1) ? SeatState.RESERVED : SeatState.AVAILABLE;
+    }
+
+    public int getNumberOfAvailableSeats() {
+        int availableSeats = 0;
+        for (Row row : rows) {
+            availableSeats += availableSeats(row);
+        }
+        return availableSeats;
+    }
+
+    public int getNumberOfAvailableSeatsInRow(int rowNumber) {
+        if (rowNumber <= 0 || rowNumber > rows.length) {
+            throw new IllegalArgumentException("Rownumber must be between 1 and " + rows.length);
+        }
+        return availableSeats(rows[rowNumber - 1]);
+    }
+
+    public List<Seat> getAvailableSeats() {
+        return seatsIn(SeatState.AVAILABLE);
+    }
+
+    public List<Seat> getHeldSeats() {
+        return seatsIn(SeatState.HELD);
+    }
+
+    public List<Seat> getReservedSeats() {
+        return seatsIn(SeatState.RESERVED);
+    }
+
+    private List<Seat> seatsIn(SeatState state) {
+        int seatsPerRow = layout.getSeatsPerRow();
+        List<Seat> seats = new ArrayList<>();
+        for (int rowIndex = 0; rowIndex < rows.length; rowIndex++) {
+            Row row = rows[rowIndex];
+            long[] held = row.heldWords == null ? layout.emptyRowWords() : row.heldWords;
+            int seatIndex = nextSeatIndex(state, row.occupiedWords, held, layout.blockedWords(rowIndex), 0);
+            while (seatIndex < seatsPerRow) {
+                seats.add(layout.seat(rowIndex * seatsPerRow + seatIndex));
+                seatIndex = nextSeatIndex(state, row.occupiedWords, held, layout.blockedWords(rowIndex), seatIndex + 1);
+            }
+        }
+        return Collections.unmodifiableList(seats);
+    }
+
+    // positions that are no seat count as occupied, see RoomLayout.blockedWords
+    private int availableSeats(Row row) {
+        return layout.getSeatsPerRow() - SeatBitmap.cardinality(row.occupiedWords);
+    }
+
+    private int nextSeatIndex(SeatState state, long[] occupied, long[] held, long[] blocked, int fromIndex) {
+        int seatsPerRow = layout.getSeatsPerRow();
+        return switch (state) {
+            case AVAILABLE -> SeatBitmap.nextClearBit(occupied, fromIndex, seatsPerRow);
+            case HELD -> SeatBitmap.nextSetBit(held, fromIndex, seatsPerRow);
+            case RESERVED -> SeatBitmap.nextSetBit(occupied, held, blocked, fromIndex, seatsPerRow);
+        };
+    }
+
+    // one row as it was after a change; a new change publishes a new row, so a row is never modified
+    static final class Row {
+
+        private final long[] occupiedWords;
+        // null when no seat in the row is held
+        private final long[] heldWords;
+        private final int version;
+
+        Row(long[] occupiedWords, long[] heldWords, int version) {
+            this.occupiedWords = occupiedWords;
+            this.heldWords = heldWords;
+            this.version = version;
+        }
+
+        int version() {
+            return version;
+        }
+    }
+}
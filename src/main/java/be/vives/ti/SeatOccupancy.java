@@ -0,0 +1,848 @@
+package be.vives.ti;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+final class SeatOccupancy {
+
+    static final int NO_OWNER = 0;
+
+    private static final int MAX_LOCK_STRIPES = 64;
+    // lock-free passes a seat map snapshot tries before it locks every row for a moment
+    private static final int SNAPSHOT_ATTEMPTS = 16;
+    private static final SeatCategory[] CATEGORIES = SeatCategory.values();
+
+    private final RoomLayout layout;
+    private final SeatStateListener listener;
+    private final int seatsPerRow;
+    private final long[][] occupiedSeatBits;
+    private final long[][] heldSeatBits;
+    private final int[][] seatOwners;
+    private final ReentrantLock[] rowLocks;
+    private final FreeRunIndex freeRunIndex;
+    private final AtomicInteger numberOfReservedSeats;
+    private final AtomicInteger numberOfHeldSeats;
+    private final int[] rowVersions;
+    private final int[] occupiedSeatsPerRow;
+    private final AtomicIntegerArray freeRunsPerLength;
+    // per category, only when the layout has more than one; otherwise the room wide index and counts answer for it
+    private final FreeRunIndex[] categoryFreeRunIndexes;
+    private final AtomicIntegerArray occupiedSeatsPerCategory;
+    private final AtomicInteger reservationSequence;
+    private final Supplier<SeatOccupancy> currentOccupancy;
+    private volatile BestBlockIndex bestBlockIndex;
+    // set once the room moved its seats off the heap; from then on every change goes to the occupancy that replaced this one
+    private volatile boolean retired;
+    private long versionsAtLastIdleCheck = -1;
+    // the changes made by the occupancies this one was loaded from
+    private long versionBase;
+    // null until the first seat map snapshot; from then on every change publishes a new immutable copy of its row
+    private volatile AtomicReferenceArray<SeatMapSnapshot.Row> publishedRows;
+    // odd while a change that spans several rows is in progress
+    private volatile int multiRowChanges;
+    // above zero while one thread holds every row lock; the rows it changes publish their copy once, when the locks
+    // are released
+    private int allRowsLockDepth;
+    private long[] rowsChangedWhileLocked;
+
+    // a room that is loaded again keeps its sequence, so no reservation id is ever handed out twice
+    SeatOccupancy(RoomLayout layout, SeatStateListener listener, AtomicInteger reservationSequence,
+                  Supplier<SeatOccupancy> currentOccupancy) {
+        this.layout = layout;
+        this.listener = listener;
+        this.seatsPerRow = layout.getSeatsPerRow();
+        this.occupiedSeatBits = new long[layout.getNumberOfRows()][];
+        this.heldSeatBits = new long[layout.getNumberOfRows()][];
+        this.seatOwners = new int[layout.getNumberOfRows()][];
+        this.rowLocks = new ReentrantLock[Math.min(layout.getNumberOfRows(), MAX_LOCK_STRIPES)];
+        for (int stripe = 0; stripe < rowLocks.length; stripe++) {
+            rowLocks[stripe] = new ReentrantLock();
+        }
+        int[] longestRuns = new int[layout.getNumberOfRows()];
+        for (int rowIndex = 0; rowIndex < longestRuns.length; rowIndex++) {
+            longestRuns[rowIndex] = layout.longestRunInEmptyRow(rowIndex);
+        }
+        this.freeRunIndex = new FreeRunIndex(longestRuns);
+        this.numberOfReservedSeats = new AtomicInteger();
+        this.numberOfHeldSeats = new AtomicInteger();
+        this.rowVersions = new int[layout.getNumberOfRows()];
+        this.occupiedSeatsPerRow = new int[layout.getNumberOfRows()];
+        this.freeRunsPerLength = new AtomicIntegerArray(layout.freeRunsInEmptyRoom());
+        if (layout.hasSingleCategory()) {
+            this.categoryFreeRunIndexes = null;
+            this.occupiedSeatsPerCategory = null;
+        } else {
+            this.categoryFreeRunIndexes = new FreeRunIndex[CATEGORIES.length];
+            for (int ordinal = 0; ordinal < CATEGORIES.length; ordinal++) {
+                int[] categoryRuns = layout.longestCategoryRunsInEmptyRows(ordinal);
+                if (categoryRuns != null) {
+                    categoryFreeRunIndexes[ordinal] = new FreeRunIndex(categoryRuns);
+                }
+            }
+            this.occupiedSeatsPerCategory = new AtomicIntegerArray(CATEGORIES.length);
+        }
+        this.reservationSequence = reservationSequence;
+        this.currentOccupancy = currentOccupancy;
+    }
+
+    // the sequence never wraps: an id that was cancelled long ago would otherwise free the seats of a newer
+    // reservation with the same sequence, so once every sequence was handed out the room refuses new reservations
+    int nextReservationSequence() {
+        return reservationSequence.updateAndGet(sequence -> {
+            if (sequence >= Reservation.SEQUENCE_MASK) {
+                throw new IllegalStateException("Every reservation id of this room has been handed out");
+            }
+            return sequence + 1;
+        });
+    }
+
+    // a rejected attempt hands its sequence back, unless another reservation drew one in the meantime
+    void returnReservationSequence(int sequence) {
+        reservationSequence.compareAndSet(sequence, sequence - 1);
+    }
+
+    int getNumberOfReservedSeats() {
+        return numberOfReservedSeats.get();
+    }
+
+    int getNumberOfHeldSeats() {
+        return numberOfHeldSeats.get();
+    }
+
+    int getNumberOfAvailableSeatsInRow(int rowIndex) {
+        ReentrantLock rowLock = rowLock(rowIndex);
+        rowLock.lock();
+        try {
+            return layout.seatsInRow(rowIndex) - occupiedSeatsPerRow[rowIndex];
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    // without the row lock, like the seat views that use it: a booking in progress may or may not be counted yet
+    int occupiedSeatsInRow(int rowIndex) {
+        return occupiedSeatsPerRow[rowIndex];
+    }
+
+    int getNumberOfAvailableSeats(SeatCategory category) {
+        if (occupiedSeatsPerCategory == null) {
+            return layout.getNumberOfSeats(category) == 0
+                    ? 0
+                    : layout.getCapacity() - numberOfReservedSeats.get() - numberOfHeldSeats.get();
+        }
+        return layout.getNumberOfSeats(category) - occupiedSeatsPerCategory.get(category.ordinal());
+    }
+
+    int getLongestFreeRun() {
+        return freeRunIndex.longestRun();
+    }
+
+    int getLongestFreeRun(SeatCategory category) {
+        FreeRunIndex runIndex = freeRunIndex(category);
+        return runIndex == null ? 0 : runIndex.longestRun();
+    }
+
+    int[] copyFreeRunHistogram() {
+        int[] histogram = new int[freeRunsPerLength.length()];
+        for (int length = 1; length < histogram.length; length++) {
+            histogram[length] = freeRunsPerLength.get(length);
+        }
+        return histogram;
+    }
+
+    // positions that are no seat are always set, see RoomLayout.blockedWords
+    long[] occupiedWords(int rowIndex) {
+        long[] words = occupiedSeatBits[rowIndex];
+        return words == null ? layout.blockedWords(rowIndex) : words;
+    }
+
+    long[] heldWords(int rowIndex) {
+        long[] words = heldSeatBits[rowIndex];
+        return words == null ? layout.emptyRowWords() : words;
+    }
+
+    ReentrantLock rowLock(int rowIndex) {
+        return rowLocks[rowIndex % rowLocks.length];
+    }
+
+    // returns false, with no row locked, when the occupancy was retired; the thread that holds every row lock
+    // may lock them all again, only the outermost call starts a multi-row change
+    boolean lockAllRows() {
+        for (ReentrantLock rowLock : rowLocks) {
+            rowLock.lock();
+        }
+        if (retired) {
+            releaseRowLocks();
+            return false;
+        }
+        if (allRowsLockDepth++ == 0) {
+            multiRowChanges++;
+        }
+        return true;
+    }
+
+    void unlockAllRows() {
+        if (allRowsLockDepth == 1) {
+            // the rows are published before the change ends, so a snapshot never sees half of it
+            publishRowsChangedWhileLocked();
+            multiRowChanges++;
+        }
+        allRowsLockDepth--;
+        releaseRowLocks();
+    }
+
+    void restoreReservedRows(long[][] reservedRows) {
+        for (int rowIndex = 0; rowIndex < reservedRows.length; rowIndex++) {
+            long[] words = reservedRows[rowIndex];
+            if (words != null) {
+                occupiedSeatsPerRow[rowIndex] = SeatBitmap.cardinality(words);
+                numberOfReservedSeats.addAndGet(occupiedSeatsPerRow[rowIndex]);
+                long[] blocked = layout.blockedWords(rowIndex);
+                addFreeRuns(blocked, -1);
+                for (int word = 0; word < words.length; word++) {
+                    words[word] |= blocked[word];
+                }
+                addFreeRuns(words, 1);
+                occupiedSeatBits[rowIndex] = words;
+                freeRunIndex.update(rowIndex, SeatBitmap.longestClearRun(words, seatsPerRow));
+                if (categoryFreeRunIndexes != null) {
+                    restoreCategories(rowIndex, words);
+                }
+            }
+        }
+    }
+
+    long[][] copyReservedRows() {
+        long[][] reservedRows = new long[occupiedSeatBits.length][];
+        copySeatStates(reservedRows, null);
+        return reservedRows;
+    }
+
+    void copySeatStates(long[][] reservedRows, long[][] heldRows) {
+        for (int rowIndex = 0; rowIndex < reservedRows.length; rowIndex++) {
+            ReentrantLock rowLock = rowLock(rowIndex);
+            rowLock.lock();
+            try {
+                long[] occupiedWords = occupiedSeatBits[rowIndex];
+                if (occupiedWords != null) {
+                    long[] heldWords = heldWords(rowIndex);
+                    long[] blocked = layout.blockedWords(rowIndex);
+                    long[] words = new long[occupiedWords.length];
+                    for (int word = 0; word < words.length; word++) {
+                        words[word] = occupiedWords[word] & ~heldWords[word] & ~blocked[word];
+                    }
+                    reservedRows[rowIndex] = words;
+                    if (heldRows != null) {
+                        heldRows[rowIndex] = heldWords.clone();
+                    }
+                }
+            } finally {
+                rowLock.unlock();
+            }
+        }
+    }
+
+    void restoreSeatOwners(int[][] owners) {
+        for (int rowIndex = 0; rowIndex < owners.length; rowIndex++) {
+            if (owners[rowIndex] != null) {
+                seatOwners[rowIndex] = owners[rowIndex];
+            }
+        }
+    }
+
+    void restoreVersion(long version) {
+        versionBase = version;
+    }
+
+    // call with every row locked; true when no seat is held and nothing changed since the previous check
+    boolean isIdleSinceLastCheck() {
+        long versions = version();
+        boolean idle = numberOfHeldSeats.get() == 0 && versions == versionsAtLastIdleCheck;
+        versionsAtLastIdleCheck = versions;
+        return idle;
+    }
+
+    // call with every row locked
+    OffloadedOccupancy offload(OffHeapOccupancyStore store) {
+        retired = true;
+        if (numberOfReservedSeats.get() == 0) {
+            return new OffloadedOccupancy(layout, reservationSequence, version());
+        }
+        long slot = store.store(layout, copyReservedRows(), seatOwners);
+        return new OffloadedOccupancy(layout, store, slot, reservationSequence, version());
+    }
+
+    // returns null when the occupancy was retired; readers take no lock, unless writers keep changing rows under them
+    SeatMapSnapshot seatMapSnapshot() {
+        AtomicReferenceArray<SeatMapSnapshot.Row> rows = publishedRows;
+        if (rows == null) {
+            rows = publishRows();
+            if (rows == null) {
+                return null;
+            }
+        }
+        SeatMapSnapshot.Row[] collected = new SeatMapSnapshot.Row[rows.length()];
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            // a row that still holds the same copy on the second pass did not change in between,
+            // so at the moment between both passes every row held the copy that was collected
+            int changes = multiRowChanges;
+            if ((changes & 1) == 0) {
+                for (int rowIndex = 0; rowIndex < collected.length; rowIndex++) {
+                    collected[rowIndex] = rows.get(rowIndex);
+                }
+                boolean unchanged = true;
+                for (int rowIndex = 0; rowIndex < collected.length && unchanged; rowIndex++) {
+                    unchanged = rows.get(rowIndex) == collected[rowIndex];
+                }
+                if (unchanged && multiRowChanges == changes) {
+                    // a change made after the occupancy retired is not in these rows
+                    return retired ? null : newSeatMapSnapshot(collected);
+                }
+            }
+            Thread.onSpinWait();
+        }
+        if (!lockAllRows()) {
+            return null;
+        }
+        try {
+            for (int rowIndex = 0; rowIndex < collected.length; rowIndex++) {
+                collected[rowIndex] = rows.get(rowIndex);
+            }
+            return newSeatMapSnapshot(collected);
+        } finally {
+            unlockAllRows();
+        }
+    }
+
+    OccupancyGauges gauges() {
+        return new OccupancyGauges(layout.getCapacity(), numberOfReservedSeats.get(), numberOfHeldSeats.get(),
+                freeRunIndex.longestRun(), freeRunIndex.sumOfLongestRuns());
+    }
+
+    int occupyConsecutiveSeats(int numberOfSeats, boolean held, int owner, AllocationStrategy strategy, ReservationMetrics metrics) {
+        return occupyConsecutiveSeats(numberOfSeats, null, held, owner, strategy, metrics);
+    }
+
+    // with a category only its seats count as free, with null every seat does
+    int occupyConsecutiveSeats(int numberOfSeats, SeatCategory category, boolean held, int owner, AllocationStrategy strategy,
+                               ReservationMetrics metrics) {
+        FreeRunIndex runIndex = freeRunIndex(category);
+        if (runIndex == null) {
+            metrics.recordRowsScanned(0);
+            return -1;
+        }
+        int rowsScanned = 0;
+        while (true) {
+            int bestRowIndex = -1;
+            int bestSeatIndex = -1;
+            int bestCost = Integer.MAX_VALUE;
+            int bestRowVersion = 0;
+            for (int rowIndex = runIndex.nextRowWithRun(numberOfSeats, 0);
+                 rowIndex >= 0 && bestCost > 0;
+                 rowIndex = runIndex.nextRowWithRun(numberOfSeats, rowIndex + 1)) {
+                rowsScanned++;
+                ReentrantLock rowLock = rowLock(rowIndex);
+                rowLock.lock();
+                try {
+                    long[] words = occupiedWords(rowIndex);
+                    long[] outside = outsideCategoryWords(category, rowIndex);
+                    int start = nextClearBit(words, outside, 0);
+                    while (start + numberOfSeats <= seatsPerRow) {
+                        int end = nextSetBit(words, outside, start);
+                        int cost = end - start >= numberOfSeats ? strategy.cost(end - start, numberOfSeats) : -1;
+                        if (cost >= 0 && cost < bestCost) {
+                            bestRowIndex = rowIndex;
+                            bestSeatIndex = start;
+                            bestCost = cost;
+                            bestRowVersion = rowVersions[rowIndex];
+                            if (cost == 0) {
+                                break;
+                            }
+                        }
+                        start = nextClearBit(words, outside, end);
+                    }
+                } finally {
+                    rowLock.unlock();
+                }
+            }
+            if (bestRowIndex < 0) {
+                metrics.recordRowsScanned(rowsScanned);
+                return -1;
+            }
+            ReentrantLock rowLock = rowLock(bestRowIndex);
+            rowLock.lock();
+            try {
+                if (retired) {
+                    return currentOccupancy.get().occupyConsecutiveSeats(numberOfSeats, category, held, owner, strategy, metrics);
+                }
+                // another thread may have changed the chosen row after it was scanned
+                if (rowVersions[bestRowIndex] == bestRowVersion) {
+                    markOccupied(bestRowIndex, bestSeatIndex, numberOfSeats, held, owner);
+                    metrics.recordRowsScanned(rowsScanned);
+                    return bestRowIndex * seatsPerRow + bestSeatIndex;
+                }
+            } finally {
+                rowLock.unlock();
+            }
+        }
+    }
+
+    int occupyBestSeats(int numberOfSeats, boolean held, int owner, SeatScores scores) {
+        BestBlockIndex.RowBestBlocks bestBlocks = bestBlockIndex(scores).bestBlocks(numberOfSeats);
+        SeatScores.RowRanking ranking = scores.ranking(numberOfSeats);
+        while (true) {
+            int bestRowIndex = -1;
+            long bestScore = Long.MIN_VALUE;
+            for (int rowIndex : ranking.rowIndexes()) {
+                if (ranking.bestEmptyBlockScore(rowIndex) <= bestScore) {
+                    // rows are ranked by what they offer while empty, no later row can beat the best so far
+                    break;
+                }
+                if (freeRunIndex.longestRunInRow(rowIndex) < numberOfSeats) {
+                    continue;
+                }
+                ReentrantLock rowLock = rowLock(rowIndex);
+                rowLock.lock();
+                try {
+                    if (!bestBlocks.isCurrent(rowIndex, rowVersions[rowIndex])) {
+                        int firstSeatIndex = scores.bestFreeBlock(occupiedWords(rowIndex), rowIndex, numberOfSeats);
+                        long blockScore = firstSeatIndex < 0 ? Long.MIN_VALUE : scores.blockScore(rowIndex, firstSeatIndex, numberOfSeats);
+                        bestBlocks.update(rowIndex, rowVersions[rowIndex], firstSeatIndex, blockScore);
+                    }
+                    if (bestBlocks.firstSeatIndex(rowIndex) >= 0 && bestBlocks.blockScore(rowIndex) > bestScore) {
+                        bestScore = bestBlocks.blockScore(rowIndex);
+                        bestRowIndex = rowIndex;
+                    }
+                } finally {
+                    rowLock.unlock();
+                }
+            }
+            if (bestRowIndex < 0) {
+                return -1;
+            }
+            ReentrantLock rowLock = rowLock(bestRowIndex);
+            rowLock.lock();
+            try {
+                if (retired) {
+                    return currentOccupancy.get().occupyBestSeats(numberOfSeats, held, owner, scores);
+                }
+                // the row may have changed since it was scored, then the whole search starts over
+                if (bestBlocks.isCurrent(bestRowIndex, rowVersions[bestRowIndex])) {
+                    int firstSeatIndex = bestBlocks.firstSeatIndex(bestRowIndex);
+                    markOccupied(bestRowIndex, firstSeatIndex, numberOfSeats, held, owner);
+                    return bestRowIndex * seatsPerRow + firstSeatIndex;
+                }
+            } finally {
+                rowLock.unlock();
+            }
+        }
+    }
+
+    int[] occupySplitSeats(int numberOfSeats, int owner) {
+        // a split placement looks at many rows at once, so this rare fallback locks them all
+        if (!lockAllRows()) {
+            return currentOccupancy.get().occupySplitSeats(numberOfSeats, owner);
+        }
+        try {
+            if (layout.getCapacity() - numberOfReservedSeats.get() - numberOfHeldSeats.get() < numberOfSeats) {
+                return null;
+            }
+            int[] blocks = SplitPlacement.find(this, layout, numberOfSeats);
+            if (blocks != null) {
+                for (int block = 0; block < blocks.length; block += 2) {
+                    markOccupied(blocks[block] / seatsPerRow, blocks[block] % seatsPerRow, blocks[block + 1], false, owner);
+                }
+            }
+            return blocks;
+        } finally {
+            unlockAllRows();
+        }
+    }
+
+    // returns -1 when the seats were occupied, or the index of the first seat in the range that was already taken
+    int occupySeats(int rowIndex, int firstSeatIndex, int numberOfSeats, boolean held, int owner) {
+        ReentrantLock rowLock = rowLock(rowIndex);
+        rowLock.lock();
+        try {
+            if (retired) {
+                return currentOccupancy.get().occupySeats(rowIndex, firstSeatIndex, numberOfSeats, held, owner);
+            }
+            long[] words = occupiedWords(rowIndex);
+            if (!SeatBitmap.isRangeClear(words, firstSeatIndex, numberOfSeats)) {
+                return SeatBitmap.nextSetBit(words, firstSeatIndex, firstSeatIndex + numberOfSeats);
+            }
+            markOccupied(rowIndex, firstSeatIndex, numberOfSeats, held, owner);
+            return -1;
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    void freeSeats(int rowIndex, int firstSeatIndex, int numberOfSeats, boolean held) {
+        ReentrantLock rowLock = rowLock(rowIndex);
+        rowLock.lock();
+        try {
+            if (retired) {
+                currentOccupancy.get().freeSeats(rowIndex, firstSeatIndex, numberOfSeats, held);
+                return;
+            }
+            markFree(rowIndex, firstSeatIndex, numberOfSeats, held);
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    boolean releaseSeats(int rowIndex, int firstSeatIndex, int numberOfSeats) {
+        int toIndex = firstSeatIndex + numberOfSeats;
+        ReentrantLock rowLock = rowLock(rowIndex);
+        rowLock.lock();
+        try {
+            if (retired) {
+                return currentOccupancy.get().releaseSeats(rowIndex, firstSeatIndex, numberOfSeats);
+            }
+            if (SeatBitmap.nextClearBit(occupiedWords(rowIndex), firstSeatIndex, toIndex) < toIndex
+                    || SeatBitmap.nextSetBit(heldWords(rowIndex), firstSeatIndex, toIndex) < toIndex
+                    || SeatBitmap.nextSetBit(layout.blockedWords(rowIndex), firstSeatIndex, toIndex) < toIndex) {
+                return false;
+            }
+            markFree(rowIndex, firstSeatIndex, numberOfSeats, false);
+            return true;
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    int cancelReservation(int rowIndex, int firstSeatIndex, int numberOfSeats, int owner) {
+        int toIndex = firstSeatIndex + numberOfSeats;
+        ReentrantLock rowLock = rowLock(rowIndex);
+        rowLock.lock();
+        try {
+            if (retired) {
+                return currentOccupancy.get().cancelReservation(rowIndex, firstSeatIndex, numberOfSeats, owner);
+            }
+            int[] owners = seatOwners[rowIndex];
+            if (owners == null) {
+                return 0;
+            }
+            // part of the reservation may already be released by seat number, free what is still ours
+            int numberOfFreedSeats = 0;
+            int seatIndex = firstSeatIndex;
+            while (seatIndex < toIndex) {
+                if (owners[seatIndex] != owner) {
+                    seatIndex++;
+                    continue;
+                }
+                int endIndex = seatIndex + 1;
+                while (endIndex < toIndex && owners[endIndex] == owner) {
+                    endIndex++;
+                }
+                markFree(rowIndex, seatIndex, endIndex - seatIndex, false);
+                numberOfFreedSeats += endIndex - seatIndex;
+                seatIndex = endIndex;
+            }
+            return numberOfFreedSeats;
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    void confirmHeldSeats(int rowIndex, int firstSeatIndex, int numberOfSeats, int owner) {
+        ReentrantLock rowLock = rowLock(rowIndex);
+        rowLock.lock();
+        try {
+            if (retired) {
+                currentOccupancy.get().confirmHeldSeats(rowIndex, firstSeatIndex, numberOfSeats, owner);
+                return;
+            }
+            SeatBitmap.clearRange(heldSeatBits[rowIndex], firstSeatIndex, numberOfSeats);
+            Arrays.fill(rowOwners(rowIndex), firstSeatIndex, firstSeatIndex + numberOfSeats, owner);
+            numberOfHeldSeats.addAndGet(-numberOfSeats);
+            numberOfReservedSeats.addAndGet(numberOfSeats);
+            rowVersions[rowIndex]++;
+            publishRow(rowIndex);
+            try {
+                listener.seatsChanged(rowIndex + 1, firstSeatIndex + 1, numberOfSeats, SeatState.HELD, SeatState.RESERVED);
+            } catch (RuntimeException e) {
+                SeatBitmap.setRange(heldSeatBits[rowIndex], firstSeatIndex, numberOfSeats);
+                Arrays.fill(rowOwners(rowIndex), firstSeatIndex, firstSeatIndex + numberOfSeats, NO_OWNER);
+                numberOfHeldSeats.addAndGet(numberOfSeats);
+                numberOfReservedSeats.addAndGet(-numberOfSeats);
+                rowVersions[rowIndex]++;
+                publishRow(rowIndex);
+                throw e;
+            }
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    // a listener that can not record the change, such as a journal that can not be written, vetoes it: the change
+    // is rolled back before the row is unlocked and the failure is passed on
+    private void markOccupied(int rowIndex, int firstSeatIndex, int numberOfSeats, boolean held, int owner) {
+        occupy(rowIndex, firstSeatIndex, numberOfSeats, held, owner);
+        try {
+            listener.seatsChanged(rowIndex + 1, firstSeatIndex + 1, numberOfSeats,
+                    SeatState.AVAILABLE, held ? SeatState.HELD : SeatState.RESERVED);
+        } catch (RuntimeException e) {
+            free(rowIndex, firstSeatIndex, numberOfSeats, held);
+            clearOwners(rowIndex, firstSeatIndex, numberOfSeats, held);
+            throw e;
+        }
+    }
+
+    // the owners are only cleared once the change is accepted, so a rollback finds them back
+    private void markFree(int rowIndex, int firstSeatIndex, int numberOfSeats, boolean held) {
+        free(rowIndex, firstSeatIndex, numberOfSeats, held);
+        try {
+            listener.seatsChanged(rowIndex + 1, firstSeatIndex + 1, numberOfSeats,
+                    held ? SeatState.HELD : SeatState.RESERVED, SeatState.AVAILABLE);
+        } catch (RuntimeException e) {
+            occupy(rowIndex, firstSeatIndex, numberOfSeats, held, NO_OWNER);
+            throw e;
+        }
+        clearOwners(rowIndex, firstSeatIndex, numberOfSeats, held);
+    }
+
+    private void occupy(int rowIndex, int firstSeatIndex, int numberOfSeats, boolean held, int owner) {
+        long[] words = rowWords(occupiedSeatBits, rowIndex);
+        // the seats split the free run around them in at most two shorter runs
+        int runStart = SeatBitmap.previousSetBit(words, firstSeatIndex - 1) + 1;
+        int runEnd = SeatBitmap.nextSetBit(words, firstSeatIndex + numberOfSeats, seatsPerRow);
+        updateFreeRuns(runEnd - runStart, -1);
+        updateFreeRuns(firstSeatIndex - runStart, 1);
+        updateFreeRuns(runEnd - firstSeatIndex - numberOfSeats, 1);
+        SeatBitmap.setRange(words, firstSeatIndex, numberOfSeats);
+        occupiedSeatsPerRow[rowIndex] += numberOfSeats;
+        rowVersions[rowIndex]++;
+        freeRunIndex.update(rowIndex, SeatBitmap.longestClearRun(words, seatsPerRow));
+        if (categoryFreeRunIndexes != null) {
+            updateCategories(rowIndex, words, firstSeatIndex, numberOfSeats, 1);
+        }
+        if (held) {
+            SeatBitmap.setRange(rowWords(heldSeatBits, rowIndex), firstSeatIndex, numberOfSeats);
+            numberOfHeldSeats.addAndGet(numberOfSeats);
+        } else {
+            if (owner != NO_OWNER) {
+                Arrays.fill(rowOwners(rowIndex), firstSeatIndex, firstSeatIndex + numberOfSeats, owner);
+            }
+            numberOfReservedSeats.addAndGet(numberOfSeats);
+        }
+        publishChangedRow(rowIndex);
+    }
+
+    private void free(int rowIndex, int firstSeatIndex, int numberOfSeats, boolean held) {
+        long[] words = occupiedSeatBits[rowIndex];
+        // the freed seats join the free runs on either side of them
+        int runStart = SeatBitmap.previousSetBit(words, firstSeatIndex - 1) + 1;
+        int runEnd = SeatBitmap.nextSetBit(words, firstSeatIndex + numberOfSeats, seatsPerRow);
+        updateFreeRuns(firstSeatIndex - runStart, -1);
+        updateFreeRuns(runEnd - firstSeatIndex - numberOfSeats, -1);
+        updateFreeRuns(runEnd - runStart, 1);
+        SeatBitmap.clearRange(words, firstSeatIndex, numberOfSeats);
+        occupiedSeatsPerRow[rowIndex] -= numberOfSeats;
+        rowVersions[rowIndex]++;
+        freeRunIndex.update(rowIndex, SeatBitmap.longestClearRun(words, seatsPerRow));
+        if (categoryFreeRunIndexes != null) {
+            updateCategories(rowIndex, words, firstSeatIndex, numberOfSeats, -1);
+        }
+        if (held) {
+            SeatBitmap.clearRange(heldSeatBits[rowIndex], firstSeatIndex, numberOfSeats);
+            numberOfHeldSeats.addAndGet(-numberOfSeats);
+        } else {
+            numberOfReservedSeats.addAndGet(-numberOfSeats);
+        }
+        publishChangedRow(rowIndex);
+    }
+
+    private void clearOwners(int rowIndex, int firstSeatIndex, int numberOfSeats, boolean held) {
+        int[] owners = seatOwners[rowIndex];
+        if (!held && owners != null) {
+            Arrays.fill(owners, firstSeatIndex, firstSeatIndex + numberOfSeats, NO_OWNER);
+        }
+    }
+
+    // only the categories with a seat in the row can change; the range itself never contains a position without seat
+    private void updateCategories(int rowIndex, long[] words, int firstSeatIndex, int numberOfSeats, int sign) {
+        for (int categories = layout.categoriesInRow(rowIndex); categories != 0; categories &= categories - 1) {
+            int ordinal = Integer.numberOfTrailingZeros(categories);
+            long[] outside = layout.outsideCategoryWords(ordinal, rowIndex);
+            int seatsOfCategory = numberOfSeats - SeatBitmap.cardinality(outside, firstSeatIndex, numberOfSeats);
+            if (seatsOfCategory > 0) {
+                occupiedSeatsPerCategory.addAndGet(ordinal, sign * seatsOfCategory);
+                categoryFreeRunIndexes[ordinal].update(rowIndex, SeatBitmap.longestClearRunOfUnion(words, outside, seatsPerRow));
+            }
+        }
+    }
+
+    // call with the row locked; the free run indexes are already up to date, because a search that trusts a stale
+    // index scans rows that are full, but while every row is locked a row is copied for the seat map snapshots
+    // only once, when the locks are released
+    private void publishChangedRow(int rowIndex) {
+        if (allRowsLockDepth == 0) {
+            publishRow(rowIndex);
+            return;
+        }
+        if (publishedRows == null) {
+            return;
+        }
+        if (rowsChangedWhileLocked == null) {
+            rowsChangedWhileLocked = new long[SeatBitmap.wordsFor(occupiedSeatBits.length)];
+        }
+        SeatBitmap.setRange(rowsChangedWhileLocked, rowIndex, 1);
+    }
+
+    private void publishRowsChangedWhileLocked() {
+        long[] changedRows = rowsChangedWhileLocked;
+        if (changedRows == null) {
+            return;
+        }
+        int numberOfRows = occupiedSeatBits.length;
+        for (int rowIndex = SeatBitmap.nextSetBit(changedRows, 0, numberOfRows); rowIndex < numberOfRows;
+             rowIndex = SeatBitmap.nextSetBit(changedRows, rowIndex + 1, numberOfRows)) {
+            publishRow(rowIndex);
+        }
+        Arrays.fill(changedRows, 0L);
+    }
+
+    private void restoreCategories(int rowIndex, long[] words) {
+        for (int categories = layout.categoriesInRow(rowIndex); categories != 0; categories &= categories - 1) {
+            int ordinal = Integer.numberOfTrailingZeros(categories);
+            long[] outside = layout.outsideCategoryWords(ordinal, rowIndex);
+            int seatsOfCategory = 0;
+            for (int word = 0; word < words.length; word++) {
+                seatsOfCategory += Long.bitCount(words[word] & ~outside[word]);
+            }
+            occupiedSeatsPerCategory.addAndGet(ordinal, seatsOfCategory);
+            categoryFreeRunIndexes[ordinal].update(rowIndex, SeatBitmap.longestClearRunOfUnion(words, outside, seatsPerRow));
+        }
+    }
+
+    // null when the room has no seat of the category
+    private FreeRunIndex freeRunIndex(SeatCategory category) {
+        if (category == null) {
+            return freeRunIndex;
+        }
+        if (categoryFreeRunIndexes == null) {
+            return layout.getNumberOfSeats(category) == 0 ? null : freeRunIndex;
+        }
+        return categoryFreeRunIndexes[category.ordinal()];
+    }
+
+    // the positions a search skips on top of the occupied ones, or null when skipping the occupied ones is enough
+    private long[] outsideCategoryWords(SeatCategory category, int rowIndex) {
+        return category == null || categoryFreeRunIndexes == null ? null : layout.outsideCategoryWords(category.ordinal(), rowIndex);
+    }
+
+    private int nextClearBit(long[] words, long[] outside, int fromIndex) {
+        return outside == null
+                ? SeatBitmap.nextClearBit(words, fromIndex, seatsPerRow)
+                : SeatBitmap.nextClearBitOfUnion(words, outside, fromIndex, seatsPerRow);
+    }
+
+    private int nextSetBit(long[] words, long[] outside, int fromIndex) {
+        return outside == null
+                ? SeatBitmap.nextSetBit(words, fromIndex, seatsPerRow)
+                : SeatBitmap.nextSetBitOfUnion(words, outside, fromIndex, seatsPerRow);
+    }
+
+    private void addFreeRuns(long[] words, int delta) {
+        int start = SeatBitmap.nextClearBit(words, 0, seatsPerRow);
+        while (start < seatsPerRow) {
+            int end = SeatBitmap.nextSetBit(words, start, seatsPerRow);
+            freeRunsPerLength.addAndGet(end - start, delta);
+            start = SeatBitmap.nextClearBit(words, end, seatsPerRow);
+        }
+    }
+
+    private void updateFreeRuns(int runLength, int delta) {
+        if (runLength > 0) {
+            freeRunsPerLength.addAndGet(runLength, delta);
+        }
+    }
+
+    private BestBlockIndex bestBlockIndex(SeatScores scores) {
+        BestBlockIndex currentIndex = bestBlockIndex;
+        if (currentIndex == null || currentIndex.getScores() != scores) {
+            // a room is normally booked with one set of scores; switching simply starts a fresh cache
+            currentIndex = new BestBlockIndex(scores);
+            bestBlockIndex = currentIndex;
+        }
+        return currentIndex;
+    }
+
+    private int[] rowOwners(int rowIndex) {
+        int[] owners = seatOwners[rowIndex];
+        if (owners == null) {
+            owners = new int[seatsPerRow];
+            seatOwners[rowIndex] = owners;
+        }
+        return owners;
+    }
+
+    private void releaseRowLocks() {
+        for (int stripe = rowLocks.length - 1; stripe >= 0; stripe--) {
+            rowLocks[stripe].unlock();
+        }
+    }
+
+    // call with every row locked
+    private long version() {
+        long version = versionBase;
+        for (int rowVersion : rowVersions) {
+            version += rowVersion;
+        }
+        return version;
+    }
+
+    // rooms nobody takes a seat map snapshot of do not pay for publishing their rows
+    private AtomicReferenceArray<SeatMapSnapshot.Row> publishRows() {
+        if (!lockAllRows()) {
+            return null;
+        }
+        try {
+            AtomicReferenceArray<SeatMapSnapshot.Row> rows = publishedRows;
+            if (rows == null) {
+                rows = new AtomicReferenceArray<>(occupiedSeatBits.length);
+                publishedRows = rows;
+                for (int rowIndex = 0; rowIndex < occupiedSeatBits.length; rowIndex++) {
+                    publishRow(rowIndex);
+                }
+            }
+            return rows;
+        } finally {
+            unlockAllRows();
+        }
+    }
+
+    // call with the row locked
+    private void publishRow(int rowIndex) {
+        AtomicReferenceArray<SeatMapSnapshot.Row> rows = publishedRows;
+        if (rows != null) {
+            long[] occupied = occupiedSeatBits[rowIndex];
+            long[] held = heldSeatBits[rowIndex];
+            rows.set(rowIndex, new SeatMapSnapshot.Row(occupied == null ? layout.blockedWords(rowIndex) : occupied.clone(),
+                    held == null || SeatBitmap.cardinality(held) == 0 ? null : held.clone(), rowVersions[rowIndex]));
+        }
+    }
+
+    private SeatMapSnapshot newSeatMapSnapshot(SeatMapSnapshot.Row[] rows) {
+        long version = versionBase;
+        for (SeatMapSnapshot.Row row : rows) {
+            version += row.version();
+        }
+        return new SeatMapSnapshot(layout, version, rows);
+    }
+
+    private long[] rowWords(long[][] bits, int rowIndex) {
+        long[] words = bits[rowIndex];
+        if (words == null) {
+            words = bits == occupiedSeatBits ? layout.blockedWords(rowIndex).clone() : new long[SeatBitmap.wordsFor(seatsPerRow)];
+            bits[rowIndex] = words;
+        }
+        return words;
+    }
+}
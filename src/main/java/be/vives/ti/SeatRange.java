@@ -0,0 +1,30 @@
+package be.vives.ti;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+final class SeatRange extends AbstractList<Seat> implements RandomAccess {
+
+    private final RoomLayout layout;
+    private final int firstSeatId;
+    private final int numberOfSeats;
+
+    SeatRange(RoomLayout layout, int firstSeatId, int numberOfSeats) {
+        this.layout = layout;
+        this.firstSeatId = firstSeatId;
+        this.numberOfSeats = numberOfSeats;
+    }
+
+    @Override
+    public Seat get(int index) {
+        if (index < 0 || index >= numberOfSeats) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + numberOfSeats);
+        }
+        return layout.seat(firstSeatId + index);
+    }
+
+    @Override
+    public int size() {
+        return numberOfSeats;
+    }
+}
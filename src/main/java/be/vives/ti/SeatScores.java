@@ -0,0 +1,102 @@
+package be.vives.ti;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public final class SeatScores {
+
+    private final RoomLayout layout;
+    private final int seatsPerRow;
+    private final long[] prefixSums;
+    private final AtomicReferenceArray<RowRanking> rankingsByPartySize;
+
+    private SeatScores(RoomLayout layout, SeatScoring scoring) {
+        this.layout = layout;
+        this.seatsPerRow = layout.getSeatsPerRow();
+        this.prefixSums = new long[layout.getNumberOfRows() * (seatsPerRow + 1)];
+        for (int row = 0; row < layout.getNumberOfRows(); row++) {
+            int rowStart = row * (seatsPerRow + 1);
+            for (int seat = 0; seat < seatsPerRow; seat++) {
+                prefixSums[rowStart + seat + 1] = prefixSums[rowStart + seat] + scoring.score(row + 1, seat + 1, layout);
+            }
+        }
+        this.rankingsByPartySize = new AtomicReferenceArray<>(seatsPerRow + 1);
+    }
+
+    public static SeatScores of(RoomLayout layout, SeatScoring scoring) {
+        return new SeatScores(layout, scoring);
+    }
+
+    public RoomLayout getLayout() {
+        return layout;
+    }
+
+    public long getScore(int rowNumber, int seatNumber) {
+        return blockScore(rowNumber - 1, seatNumber - 1, 1);
+    }
+
+    long blockScore(int rowIndex, int firstSeatIndex, int numberOfSeats) {
+        int rowStart = rowIndex * (seatsPerRow + 1);
+        return prefixSums[rowStart + firstSeatIndex + numberOfSeats] - prefixSums[rowStart + firstSeatIndex];
+    }
+
+    int bestFreeBlock(long[] occupiedWords, int rowIndex, int numberOfSeats) {
+        int bestStart = -1;
+        long bestScore = Long.MIN_VALUE;
+        int start = SeatBitmap.nextClearBit(occupiedWords, 0, seatsPerRow);
+        while (start + numberOfSeats <= seatsPerRow) {
+            int end = SeatBitmap.nextSetBit(occupiedWords, start, seatsPerRow);
+            for (int firstSeat = start; firstSeat + numberOfSeats <= end; firstSeat++) {
+                long score = blockScore(rowIndex, firstSeat, numberOfSeats);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestStart = firstSeat;
+                }
+            }
+            start = SeatBitmap.nextClearBit(occupiedWords, end, seatsPerRow);
+        }
+        return bestStart;
+    }
+
+    RowRanking ranking(int numberOfSeats) {
+        RowRanking ranking = rankingsByPartySize.get(numberOfSeats);
+        if (ranking == null) {
+            // racing threads compute the same immutable ranking, either one may win
+            ranking = new RowRanking(this, numberOfSeats);
+            rankingsByPartySize.set(numberOfSeats, ranking);
+        }
+        return ranking;
+    }
+
+    // rows ordered by the best block they can offer while empty, an upper bound for what they offer later
+    static final class RowRanking {
+
+        private final int[] rowIndexes;
+        private final long[] bestEmptyBlockScores;
+
+        private RowRanking(SeatScores scores, int numberOfSeats) {
+            int numberOfRows = scores.layout.getNumberOfRows();
+            this.bestEmptyBlockScores = new long[numberOfRows];
+            Integer[] order = new Integer[numberOfRows];
+            for (int row = 0; row < numberOfRows; row++) {
+                int firstSeatIndex = scores.bestFreeBlock(scores.layout.blockedWords(row), row, numberOfSeats);
+                // a row whose runs are all too short for the party never offers a block
+                bestEmptyBlockScores[row] = firstSeatIndex < 0 ? Long.MIN_VALUE : scores.blockScore(row, firstSeatIndex, numberOfSeats);
+                order[row] = row;
+            }
+            Arrays.sort(order, (first, second) -> Long.compare(bestEmptyBlockScores[second], bestEmptyBlockScores[first]));
+            this.rowIndexes = new int[numberOfRows];
+            for (int i = 0; i < numberOfRows; i++) {
+                rowIndexes[i] = order[i];
+            }
+        }
+
+        int[] rowIndexes() {
+            return rowIndexes;
+        }
+
+        long bestEmptyBlockScore(int rowIndex) {
+            return bestEmptyBlockScores[rowIndex];
+        }
+    }
+}
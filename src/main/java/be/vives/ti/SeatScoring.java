@@ -0,0 +1,18 @@
+package be.vives.ti;
+
+@FunctionalInterface
+public interface SeatScoring {
+
+    // higher is better
+    int score(int rowNumber, int seatNumber, RoomLayout layout);
+
+    static SeatScoring centreOfRoom() {
+        return (rowNumber, seatNumber, layout) -> {
+            // measured in half seats so the centre line of an even row lies between two seats
+            int horizontal = Math.abs(2 * seatNumber - layout.getSeatsPerRow() - 1);
+            int preferredRow = (2 * layout.getNumberOfRows() + 2) / 3;
+            int vertical = 2 * Math.abs(rowNumber - preferredRow);
+            return -(horizontal * horizontal + vertical * vertical);
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package be.vives.ti;
+
+public enum SeatState {
+    AVAILABLE,
+    HELD,
+    RESERVED
+}
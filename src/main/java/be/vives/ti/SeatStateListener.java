@@ -0,0 +1,7 @@
+package be.vives.ti;
+
+@FunctionalInterface
+public interface SeatStateListener {
+
+    void seatsChanged(int rowNumber, int startSeatNumber, int numberOfSeats, SeatState previousState, SeatState newState);
+}
@@ -0,0 +1,134 @@
+package be.vives.ti;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+public class ShowtimeCatalog {
+
+    private static final int DEFAULT_NUMBER_OF_SHARDS = 64;
+
+    private final Clock clock;
+    private final Map<String, RoomLayout> auditoriums;
+    private final List<Map<Long, CinemaRoom>> shards;
+    private final ReservationMetrics metrics;
+
+    public ShowtimeCatalog() {
+        this(DEFAULT_NUMBER_OF_SHARDS, Clock.systemUTC());
+    }
+
+    public ShowtimeCatalog(int numberOfShards, Clock clock) {
+        if (numberOfShards < 1 || Integer.bitCount(numberOfShards) != 1) {
+            throw new IllegalArgumentException("Number of shards must be a power of two");
+        }
+        this.clock = clock;
+        this.auditoriums = new ConcurrentHashMap<>();
+        this.metrics = new ReservationMetrics();
+        List<Map<Long, CinemaRoom>> newShards = new ArrayList<>(numberOfShards);
+        for (int shard = 0; shard < numberOfShards; shard++) {
+            newShards.add(new ConcurrentHashMap<>());
+        }
+        this.shards = List.copyOf(newShards);
+    }
+
+    public void addAuditorium(String auditoriumName, RoomLayout layout) {
+        if (auditoriums.putIfAbsent(auditoriumName, layout) != null) {
+            throw new IllegalArgumentException("Auditorium " + auditoriumName + " already exists");
+        }
+    }
+
+    public RoomLayout getAuditorium(String auditoriumName) {
+        RoomLayout layout = auditoriums.get(auditoriumName);
+        if (layout == null) {
+            throw new IllegalArgumentException("Unknown auditorium " + auditoriumName);
+        }
+        return layout;
+    }
+
+    public CinemaRoom addScreening(long showtimeId, String auditoriumName, String movieName) {
+        CinemaRoom screening = new CinemaRoom(movieName, getAuditorium(auditoriumName), clock);
+        addScreening(showtimeId, screening);
+        return screening;
+    }
+
+    public CinemaRoom getScreening(long showtimeId) {
+        CinemaRoom screening = shard(showtimeId).get(showtimeId);
+        if (screening == null) {
+            throw new ScreeningNotFoundException(showtimeId);
+        }
+        return screening;
+    }
+
+    public boolean containsScreening(long showtimeId) {
+        return shard(showtimeId).containsKey(showtimeId);
+    }
+
+    public void removeScreening(long showtimeId) {
+        CinemaRoom screening = shard(showtimeId).remove(showtimeId);
+        if (screening == null) {
+            throw new ScreeningNotFoundException(showtimeId);
+        }
+        screening.discardOffloadedSeats();
+    }
+
+    // moves every screening whose seats did not change since the previous call, and that holds no seats, into the store;
+    // its next use loads it back, so calling this periodically keeps only the busy screenings on the heap
+    public int offloadIdleScreenings(OffHeapOccupancyStore store) {
+        int[] numberOfOffloadedScreenings = new int[1];
+        forEachScreening((showtimeId, screening) -> {
+            if (screening.offload(store)) {
+                numberOfOffloadedScreenings[0]++;
+            }
+        });
+        return numberOfOffloadedScreenings[0];
+    }
+
+    public ReservationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void reportMetrics(MetricsReporter reporter) {
+        reporter.reportReservationMetrics(metrics);
+        forEachScreening((showtimeId, screening) ->
+                reporter.reportOccupancy(Long.toString(showtimeId), screening.getOccupancyGauges()));
+    }
+
+    public int getNumberOfScreenings() {
+        int numberOfScreenings = 0;
+        for (Map<Long, CinemaRoom> shard : shards) {
+            numberOfScreenings += shard.size();
+        }
+        return numberOfScreenings;
+    }
+
+    Clock getClock() {
+        return clock;
+    }
+
+    Map<String, RoomLayout> getAuditoriums() {
+        return auditoriums;
+    }
+
+    void addScreening(long showtimeId, CinemaRoom screening) {
+        // one set of histograms for the whole catalog keeps unsold screenings small
+        screening.useMetrics(metrics);
+        if (shard(showtimeId).putIfAbsent(showtimeId, screening) != null) {
+            throw new IllegalArgumentException("Screening with showtime id " + showtimeId + " already exists");
+        }
+    }
+
+    void forEachScreening(BiConsumer<Long, CinemaRoom> action) {
+        for (Map<Long, CinemaRoom> shard : shards) {
+            shard.forEach(action);
+        }
+    }
+
+    private Map<Long, CinemaRoom> shard(long showtimeId) {
+        // spread sequential ids over all shards
+        long hash = showtimeId * 0x9E3779B97F4A7C15L;
+        return shards.get((int) (hash >>> 32) & (shards.size() - 1));
+    }
+}
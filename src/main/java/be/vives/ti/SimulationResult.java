@@ -0,0 +1,42 @@
+package be.vives.ti;
+
+public final class SimulationResult {
+
+    private final int numberOfRequests;
+    private final int rejectedRequests;
+    private final int seatsSold;
+    private final int capacity;
+
+    SimulationResult(int numberOfRequests, int rejectedRequests, int seatsSold, int capacity) {
+        this.numberOfRequests = numberOfRequests;
+        this.rejectedRequests = rejectedRequests;
+        this.seatsSold = seatsSold;
+        this.capacity = capacity;
+    }
+
+    public int getNumberOfRequests() {
+        return numberOfRequests;
+    }
+
+    public int getRejectedRequests() {
+        return rejectedRequests;
+    }
+
+    public int getSeatsSold() {
+        return seatsSold;
+    }
+
+    public double getFillRate() {
+        return (double) seatsSold / capacity;
+    }
+
+    public double getRejectionRate() {
+        return numberOfRequests == 0 ? 0 : (double) rejectedRequests / numberOfRequests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d of %d seats sold (fill rate %.1f%%), %d of %d requests rejected (%.1f%%)",
+                seatsSold, capacity, 100 * getFillRate(), rejectedRequests, numberOfRequests, 100 * getRejectionRate());
+    }
+}
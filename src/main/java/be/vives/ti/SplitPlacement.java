@@ -0,0 +1,194 @@
+package be.vives.ti;
+
+import java.util.Arrays;
+
+final class SplitPlacement {
+
+    private SplitPlacement() {
+    }
+
+    // blocks are returned as pairs of first seat id and number of seats, or null when the free seats do not add up
+    static int[] find(SeatOccupancy occupancy, RoomLayout layout, int numberOfSeats) {
+        int[] longestRuns = new int[layout.getNumberOfRows()];
+        int[] runsPerLength = new int[layout.getSeatsPerRow() + 1];
+        countFreeRuns(occupancy, layout, longestRuns, runsPerLength);
+        int numberOfBlocks = fewestBlocks(runsPerLength, numberOfSeats);
+        if (numberOfBlocks < 0) {
+            return null;
+        }
+        int[] blocks = alignedInAdjacentRows(occupancy, layout, longestRuns, numberOfBlocks, numberOfSeats);
+        if (blocks == null) {
+            blocks = inAdjacentRows(occupancy, layout, longestRuns, numberOfBlocks, numberOfSeats);
+        }
+        return blocks != null ? blocks : inLargestRuns(occupancy, layout, runsPerLength, numberOfBlocks, numberOfSeats);
+    }
+
+    private static int[] partSizes(int[] capacities, int numberOfSeats) {
+        // spread the party as evenly as the runs allow, filling the smallest runs first
+        Integer[] order = new Integer[capacities.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(capacities[a], capacities[b]));
+        int[] sizes = new int[capacities.length];
+        int remaining = numberOfSeats;
+        for (int i = 0; i < order.length; i++) {
+            int partsLeft = order.length - i;
+            int size = Math.min(capacities[order[i]], (remaining + partsLeft - 1) / partsLeft);
+            if (size == 0) {
+                return null;
+            }
+            sizes[order[i]] = size;
+            remaining -= size;
+        }
+        return remaining == 0 ? sizes : null;
+    }
+
+    private static void countFreeRuns(SeatOccupancy occupancy, RoomLayout layout, int[] longestRuns, int[] runsPerLength) {
+        int seatsPerRow = layout.getSeatsPerRow();
+        for (int rowIndex = 0; rowIndex < longestRuns.length; rowIndex++) {
+            long[] words = occupancy.occupiedWords(rowIndex);
+            int start = SeatBitmap.nextClearBit(words, 0, seatsPerRow);
+            while (start < seatsPerRow) {
+                int end = SeatBitmap.nextSetBit(words, start, seatsPerRow);
+                runsPerLength[end - start]++;
+                longestRuns[rowIndex] = Math.max(longestRuns[rowIndex], end - start);
+                start = SeatBitmap.nextClearBit(words, end, seatsPerRow);
+            }
+        }
+    }
+
+    private static int fewestBlocks(int[] runsPerLength, int numberOfSeats) {
+        int numberOfBlocks = 0;
+        int remaining = numberOfSeats;
+        for (int length = runsPerLength.length - 1; length > 0; length--) {
+            int runs = Math.min(runsPerLength[length], (remaining + length - 1) / length);
+            numberOfBlocks += runs;
+            remaining -= runs * length;
+            if (remaining <= 0) {
+                return numberOfBlocks;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] alignedInAdjacentRows(SeatOccupancy occupancy, RoomLayout layout, int[] longestRuns,
+                                               int numberOfBlocks, int numberOfSeats) {
+        int seatsPerRow = layout.getSeatsPerRow();
+        int largestPart = (numberOfSeats + numberOfBlocks - 1) / numberOfBlocks;
+        long[] combinedWords = new long[SeatBitmap.wordsFor(seatsPerRow)];
+        for (int firstRowIndex = 0; firstRowIndex + numberOfBlocks <= longestRuns.length; firstRowIndex++) {
+            if (!allRowsHaveRun(longestRuns, firstRowIndex, numberOfBlocks, largestPart)) {
+                continue;
+            }
+            // a seat is free in every row of the window exactly when it is clear in the union of their bitmaps
+            Arrays.fill(combinedWords, 0);
+            for (int rowIndex = firstRowIndex; rowIndex < firstRowIndex + numberOfBlocks; rowIndex++) {
+                long[] words = occupancy.occupiedWords(rowIndex);
+                for (int word = 0; word < combinedWords.length; word++) {
+                    combinedWords[word] |= words[word];
+                }
+            }
+            int firstSeatIndex = SeatBitmap.findClearRun(combinedWords, seatsPerRow, largestPart);
+            if (firstSeatIndex >= 0) {
+                int[] blocks = new int[2 * numberOfBlocks];
+                for (int block = 0; block < numberOfBlocks; block++) {
+                    blocks[2 * block] = (firstRowIndex + block) * seatsPerRow + firstSeatIndex;
+                    blocks[2 * block + 1] = numberOfSeats / numberOfBlocks + (block < numberOfSeats % numberOfBlocks ? 1 : 0);
+                }
+                return blocks;
+            }
+        }
+        return null;
+    }
+
+    private static int[] inAdjacentRows(SeatOccupancy occupancy, RoomLayout layout, int[] longestRuns,
+                                        int numberOfBlocks, int numberOfSeats) {
+        int seatsPerRow = layout.getSeatsPerRow();
+        int[] bestBlocks = null;
+        int bestOffset = Integer.MAX_VALUE;
+        int seatsInWindow = 0;
+        for (int firstRowIndex = 0; firstRowIndex + numberOfBlocks <= longestRuns.length && bestOffset > 0; firstRowIndex++) {
+            // the window holds the longest run of each of its rows
+            if (firstRowIndex == 0) {
+                for (int rowIndex = 0; rowIndex < numberOfBlocks; rowIndex++) {
+                    seatsInWindow += longestRuns[rowIndex];
+                }
+            } else {
+                seatsInWindow += longestRuns[firstRowIndex + numberOfBlocks - 1] - longestRuns[firstRowIndex - 1];
+            }
+            if (seatsInWindow < numberOfSeats) {
+                continue;
+            }
+            int[] sizes = partSizes(Arrays.copyOfRange(longestRuns, firstRowIndex, firstRowIndex + numberOfBlocks), numberOfSeats);
+            if (sizes == null) {
+                continue;
+            }
+            // every block starts as close as possible to the block in front of it
+            int[] blocks = new int[2 * numberOfBlocks];
+            int offset = 0;
+            int previousSeatIndex = -1;
+            for (int block = 0; block < numberOfBlocks; block++) {
+                long[] words = occupancy.occupiedWords(firstRowIndex + block);
+                int seatIndex = previousSeatIndex < 0
+                        ? SeatBitmap.findClearRun(words, seatsPerRow, sizes[block])
+                        : SeatBitmap.closestClearRun(words, seatsPerRow, sizes[block], previousSeatIndex);
+                if (previousSeatIndex >= 0) {
+                    offset += Math.abs(seatIndex - previousSeatIndex);
+                }
+                blocks[2 * block] = (firstRowIndex + block) * seatsPerRow + seatIndex;
+                blocks[2 * block + 1] = sizes[block];
+                previousSeatIndex = seatIndex;
+            }
+            if (offset < bestOffset) {
+                bestBlocks = blocks;
+                bestOffset = offset;
+            }
+        }
+        return bestBlocks;
+    }
+
+    private static int[] inLargestRuns(SeatOccupancy occupancy, RoomLayout layout, int[] runsPerLength,
+                                       int numberOfBlocks, int numberOfSeats) {
+        // the blocks take every run longer than the shortest length needed and as many runs of that length as remain
+        int shortestLength = runsPerLength.length - 1;
+        int longerRuns = 0;
+        while (longerRuns + runsPerLength[shortestLength] < numberOfBlocks) {
+            longerRuns += runsPerLength[shortestLength];
+            shortestLength--;
+        }
+        int runsOfShortestLength = numberOfBlocks - longerRuns;
+        int seatsPerRow = layout.getSeatsPerRow();
+        int[] firstSeatIds = new int[numberOfBlocks];
+        int[] capacities = new int[numberOfBlocks];
+        int block = 0;
+        for (int rowIndex = 0; rowIndex < layout.getNumberOfRows() && block < numberOfBlocks; rowIndex++) {
+            long[] words = occupancy.occupiedWords(rowIndex);
+            int start = SeatBitmap.nextClearBit(words, 0, seatsPerRow);
+            while (start < seatsPerRow && block < numberOfBlocks) {
+                int end = SeatBitmap.nextSetBit(words, start, seatsPerRow);
+                if (end - start > shortestLength || (end - start == shortestLength && runsOfShortestLength-- > 0)) {
+                    firstSeatIds[block] = rowIndex * seatsPerRow + start;
+                    capacities[block++] = end - start;
+                }
+                start = SeatBitmap.nextClearBit(words, end, seatsPerRow);
+            }
+        }
+        int[] sizes = partSizes(capacities, numberOfSeats);
+        int[] blocks = new int[2 * numberOfBlocks];
+        for (block = 0; block < numberOfBlocks; block++) {
+            blocks[2 * block] = firstSeatIds[block];
+            blocks[2 * block + 1] = sizes[block];
+        }
+        return blocks;
+    }
+
+    private static boolean allRowsHaveRun(int[] longestRuns, int firstRowIndex, int numberOfRows, int runLength) {
+        for (int rowIndex = firstRowIndex; rowIndex < firstRowIndex + numberOfRows; rowIndex++) {
+            if (longestRuns[rowIndex] < runLength) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,58 @@
+package be.vives.ti;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// hands out the same value for equal keys while someone still uses it; a value nobody references any more
+// is left to the garbage collector and its entry is removed on a later lookup
+final class WeakValueCache<K, V> {
+
+    private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<V> collectedValues = new ReferenceQueue<>();
+
+    V computeIfAbsent(K key, Function<K, V> factory) {
+        expungeCollectedValues();
+        while (true) {
+            Entry<K, V> entry = entries.get(key);
+            V value = entry == null ? null : entry.get();
+            if (value != null) {
+                return value;
+            }
+            V newValue = factory.apply(key);
+            Entry<K, V> newEntry = new Entry<>(key, newValue, collectedValues);
+            // another thread may have stored a value for the key meanwhile, then that value wins
+            if (entry == null ? entries.putIfAbsent(key, newEntry) == null : entries.replace(key, entry, newEntry)) {
+                return newValue;
+            }
+        }
+    }
+
+    int size() {
+        expungeCollectedValues();
+        return entries.size();
+    }
+
+    WeakReference<V> referenceTo(K key) {
+        return entries.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expungeCollectedValues() {
+        for (Entry<K, V> entry = (Entry<K, V>) collectedValues.poll(); entry != null; entry = (Entry<K, V>) collectedValues.poll()) {
+            entries.remove(entry.key, entry);
+        }
+    }
+
+    private static final class Entry<K, V> extends WeakReference<V> {
+
+        private final K key;
+
+        Entry(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
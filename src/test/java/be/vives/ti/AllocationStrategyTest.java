@@ -0,0 +1,141 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static be.vives.ti.ReservationRequest.consecutiveSeats;
+import static be.vives.ti.ReservationRequest.seatByNumber;
+import static org.assertj.core.api.Assertions.*;
+
+class AllocationStrategyTest {
+
+    @TempDir
+    Path directory;
+
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        // row 1 has a run of 3 seats, row 2 a run of 4 seats and row 3 is empty
+        cinemaRoom = new CinemaRoom("The Dark Knight", 3, 10);
+        cinemaRoom.reserveSeatByNumber(1, 4, 7);
+        cinemaRoom.reserveSeatByNumber(2, 1, 6);
+    }
+
+    @Test
+    void firstFitIsTheDefault() {
+        // operate
+        List<Seat> seats = cinemaRoom.reserveConsecutiveSeats(3);
+
+        // test
+        assertThat(seats).containsExactly(new Seat(1, 1), new Seat(1, 2), new Seat(1, 3));
+    }
+
+    @Test
+    void firstFitTakesTheFirstRunThatIsLongEnough() {
+        // build
+        cinemaRoom.setAllocationStrategy(AllocationStrategy.firstFit());
+
+        // operate
+        List<Seat> seats = cinemaRoom.reserveConsecutiveSeats(2);
+
+        // test
+        assertThat(seats).containsExactly(new Seat(1, 1), new Seat(1, 2));
+    }
+
+    @Test
+    void bestFitTakesTheSmallestRunThatFits() {
+        // build
+        cinemaRoom.setAllocationStrategy(AllocationStrategy.bestFit());
+
+        // operate
+        List<Seat> seats = cinemaRoom.reserveConsecutiveSeats(4);
+
+        // test
+        assertThat(seats).containsExactly(new Seat(2, 7), new Seat(2, 8), new Seat(2, 9), new Seat(2, 10));
+    }
+
+    @Test
+    void gapAvoidingSkipsRunsThatWouldLeaveASingleSeat() {
+        // build
+        cinemaRoom.setAllocationStrategy(AllocationStrategy.gapAvoiding());
+
+        // operate
+        List<Seat> seats = cinemaRoom.reserveConsecutiveSeats(2);
+
+        // test
+        assertThat(seats).containsExactly(new Seat(2, 7), new Seat(2, 8));
+    }
+
+    @Test
+    void gapAvoidingRefusesWhenEveryRunWouldLeaveASingleSeat() {
+        // build
+        cinemaRoom.reserveSeatByNumber(2, 7, 4);
+        cinemaRoom.reserveSeatByNumber(3, 1, 7);
+        cinemaRoom.setAllocationStrategy(AllocationStrategy.gapAvoiding());
+
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.reserveConsecutiveSeats(2))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+        assertThat(cinemaRoom.reserveConsecutiveSeats(3)).containsExactly(new Seat(1, 1), new Seat(1, 2), new Seat(1, 3));
+    }
+
+    @Test
+    void cantSetAnEmptyStrategy() {
+        assertThatThrownBy(() -> cinemaRoom.setAllocationStrategy(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Allocation strategy must not be null");
+    }
+
+    @Test
+    void simulatorReportsFillRateAndRejections() {
+        // build
+        RoomLayout layout = RoomLayout.rectangular(1, 6);
+        List<ReservationRequest> requests = List.of(seatByNumber(1, 4, 1), consecutiveSeats(2), consecutiveSeats(3));
+
+        // operate
+        SimulationResult firstFit = AllocationSimulator.simulate(layout, requests, AllocationStrategy.firstFit());
+        SimulationResult bestFit = AllocationSimulator.simulate(layout, requests, AllocationStrategy.bestFit());
+
+        // test
+        assertThat(firstFit.getSeatsSold()).isEqualTo(3);
+        assertThat(firstFit.getFillRate()).isEqualTo(0.5);
+        assertThat(firstFit.getRejectedRequests()).isEqualTo(1);
+        assertThat(bestFit.getSeatsSold()).isEqualTo(6);
+        assertThat(bestFit.getFillRate()).isEqualTo(1.0);
+        assertThat(bestFit.getRejectionRate()).isZero();
+    }
+
+    @Test
+    void simulatorReadsRecordedRequests() throws Exception {
+        // build
+        Path requestFile = directory.resolve("requests.txt");
+        Files.writeString(requestFile, "# evening sale\n4\n\n2 5 3\n");
+
+        // operate
+        List<ReservationRequest> requests = AllocationSimulator.readRequests(requestFile);
+
+        // test
+        assertThat(requests).hasSize(2);
+        assertThat(requests.get(0).isConsecutiveSeats()).isTrue();
+        assertThat(requests.get(0).getNumberOfSeats()).isEqualTo(4);
+        assertThat(requests.get(1).getRowNumber()).isEqualTo(2);
+        assertThat(requests.get(1).getStartSeatNumber()).isEqualTo(5);
+        assertThat(requests.get(1).getNumberOfSeats()).isEqualTo(3);
+    }
+
+    @Test
+    void simulatorRejectsMalformedRequestLines() throws Exception {
+        Path requestFile = directory.resolve("requests.txt");
+        Files.writeString(requestFile, "4\n2 5\n");
+
+        assertThatThrownBy(() -> AllocationSimulator.readRequests(requestFile))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid request on line 2: 2 5");
+    }
+}
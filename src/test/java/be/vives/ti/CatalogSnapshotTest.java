@@ -0,0 +1,152 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private Path snapshotFile;
+    private ShowtimeCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        snapshotFile = directory.resolve("catalog.snapshot");
+        catalog = new ShowtimeCatalog(4, Clock.systemUTC());
+        catalog.addAuditorium("Zaal 1", RoomLayout.rectangular(5, 10));
+        catalog.addAuditorium("Zaal 2", RoomLayout.rectangular(3, 70));
+        catalog.addScreening(1, "Zaal 1", "The Dark Knight");
+        catalog.addScreening(2, "Zaal 2", "Inception");
+        catalog.addScreening(3, "Zaal 1", "Oppenheimer");
+    }
+
+    @Test
+    void loadedCatalogHasTheSameScreeningsAndReservedSeats() {
+        // build
+        catalog.getScreening(1).reserveConsecutiveSeats(4);
+        catalog.getScreening(1).reserveSeatByNumber(5, 7, 3);
+        catalog.getScreening(2).reserveSeatByNumber(2, 60, 11);
+
+        // operate
+        CatalogSnapshot.write(catalog, snapshotFile);
+        ShowtimeCatalog loadedCatalog = CatalogSnapshot.load(snapshotFile, 4, Clock.systemUTC());
+
+        // test
+        assertThat(loadedCatalog.getNumberOfScreenings()).isEqualTo(3);
+        assertThat(loadedCatalog.getAuditorium("Zaal 2")).isSameAs(catalog.getAuditorium("Zaal 2"));
+        for (long showtimeId = 1; showtimeId <= 3; showtimeId++) {
+            CinemaRoom original = catalog.getScreening(showtimeId);
+            CinemaRoom loaded = loadedCatalog.getScreening(showtimeId);
+            assertThat(loaded.getMovieName()).isEqualTo(original.getMovieName());
+            assertThat(loaded.getLayout()).isSameAs(original.getLayout());
+            assertThat(loaded.getReservedSeats()).containsExactlyElementsOf(original.getReservedSeats());
+            assertThat(loaded.getAvailableSeats()).hasSameSizeAs(original.getAvailableSeats());
+            assertThat(loaded.getFreeRunHistogram()).containsExactly(original.getFreeRunHistogram());
+        }
+    }
+
+    @Test
+    void loadedScreeningContinuesBookingAfterTheRestoredSeats() {
+        // build
+        catalog.getScreening(1).reserveConsecutiveSeats(8);
+        CatalogSnapshot.write(catalog, snapshotFile);
+        CinemaRoom loaded = CatalogSnapshot.load(snapshotFile).getScreening(1);
+
+        // operate
+        List<Seat> seats = loaded.reserveConsecutiveSeats(3);
+
+        // test
+        assertThat(seats).containsExactly(new Seat(2, 1), new Seat(2, 2), new Seat(2, 3));
+        assertThatThrownBy(() -> loaded.reserveSeatByNumber(1, 8, 1))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+        assertThat(loaded.getReservedSeats()).hasSize(11);
+    }
+
+    @Test
+    void irregularLayoutSurvivesTheSnapshot() {
+        // build
+        RoomLayout balcony = RoomLayout.fromPlan("SS..SS", "WSS.SSW", "SSSS");
+        catalog.addAuditorium("Balkon", balcony);
+        catalog.addScreening(4, "Balkon", "Anatomy of a Fall");
+        catalog.getScreening(4).reserveSeatByNumber(2, 5, 3);
+
+        // operate
+        CatalogSnapshot.write(catalog, snapshotFile);
+        CinemaRoom loaded = CatalogSnapshot.load(snapshotFile).getScreening(4);
+
+        // test
+        assertThat(loaded.getLayout()).isSameAs(balcony);
+        assertThat(loaded.getReservedSeats()).containsExactly(new Seat(2, 5), new Seat(2, 6), new Seat(2, 7));
+        assertThat(loaded.getNumberOfAvailableSeats()).isEqualTo(11);
+        assertThat(loaded.getFreeRunHistogram()).containsExactly(catalog.getScreening(4).getFreeRunHistogram());
+        assertThat(loaded.reserveConsecutiveSeats(3)).containsExactly(new Seat(2, 1), new Seat(2, 2), new Seat(2, 3));
+    }
+
+    @Test
+    void seatCategoriesSurviveTheSnapshot() {
+        // build
+        catalog.addAuditorium("Zaal 3", RoomLayout.fromPlan("SPPPS", "LLSLL"));
+        catalog.addScreening(4, "Zaal 3", "Past Lives");
+        catalog.getScreening(4).reserveSeatByNumber(1, 1, 3);
+
+        // operate
+        CatalogSnapshot.write(catalog, snapshotFile);
+        CinemaRoom loaded = CatalogSnapshot.load(snapshotFile).getScreening(4);
+
+        // test
+        assertThat(loaded.getNumberOfAvailableSeats(SeatCategory.PREMIUM)).isEqualTo(1);
+        assertThat(loaded.getNumberOfAvailableSeats(SeatCategory.STANDARD)).isEqualTo(2);
+        assertThat(loaded.getLongestFreeRun(SeatCategory.LOVE_SEAT)).isEqualTo(2);
+        assertThat(loaded.reserveConsecutiveSeats(1, SeatCategory.PREMIUM)).containsExactly(new Seat(1, 4));
+    }
+
+    @Test
+    void heldSeatsAreNotPartOfTheSnapshot() {
+        // build
+        CinemaRoom screening = catalog.getScreening(1);
+        screening.holdConsecutiveSeats(5, Duration.ofMinutes(10));
+        screening.reserveSeatByNumber(1, 6, 2);
+
+        // operate
+        CatalogSnapshot.write(catalog, snapshotFile);
+        CinemaRoom loaded = CatalogSnapshot.load(snapshotFile).getScreening(1);
+
+        // test
+        assertThat(loaded.getReservedSeats()).containsExactly(new Seat(1, 6), new Seat(1, 7));
+        assertThat(loaded.getAvailableSeats()).hasSize(48);
+    }
+
+    @Test
+    void snapshotOfAnUntouchedLoadedCatalogIsIdentical() throws Exception {
+        // build
+        catalog.getScreening(3).reserveSeatByNumber(4, 2, 9);
+        CatalogSnapshot.write(catalog, snapshotFile);
+        Path secondSnapshotFile = directory.resolve("second.snapshot");
+
+        // operate
+        CatalogSnapshot.write(CatalogSnapshot.load(snapshotFile, 4, Clock.systemUTC()), secondSnapshotFile);
+
+        // test
+        assertThat(Files.readAllBytes(secondSnapshotFile)).isEqualTo(Files.readAllBytes(snapshotFile));
+    }
+
+    @Test
+    void cantLoadAFileThatIsNoSnapshot() throws Exception {
+        Files.write(snapshotFile, new byte[64]);
+
+        assertThatThrownBy(() -> CatalogSnapshot.load(snapshotFile))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Not a catalog snapshot");
+    }
+}
@@ -0,0 +1,154 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomAvailabilityTest {
+
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        cinemaRoom = new CinemaRoom("Poor Things", 4, 10);
+    }
+
+    @Test
+    void emptyRoom() {
+        // operate + test
+        assertThat(cinemaRoom.getNumberOfAvailableSeats()).isEqualTo(40);
+        assertThat(cinemaRoom.getNumberOfAvailableSeatsInRow(3)).isEqualTo(10);
+        assertThat(cinemaRoom.getLongestFreeRun()).isEqualTo(10);
+        assertThat(cinemaRoom.canSeatParty(10)).isTrue();
+        assertThat(cinemaRoom.canSeatParty(11)).isFalse();
+        assertThat(cinemaRoom.getFreeRunHistogram()).containsExactly(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 4);
+    }
+
+    @Test
+    void reservationsAndHoldsAreNotAvailable() {
+        // build
+        cinemaRoom.reserveSeatByNumber(1, 4, 3);
+        cinemaRoom.holdSeatByNumber(2, 1, 2, Duration.ofMinutes(10));
+
+        // operate + test
+        assertThat(cinemaRoom.getNumberOfAvailableSeats()).isEqualTo(35);
+        assertThat(cinemaRoom.getNumberOfAvailableSeatsInRow(1)).isEqualTo(7);
+        assertThat(cinemaRoom.getNumberOfAvailableSeatsInRow(2)).isEqualTo(8);
+        assertThat(cinemaRoom.getFreeRunHistogram()).containsExactly(0, 0, 0, 1, 1, 0, 0, 0, 1, 0, 2);
+    }
+
+    @Test
+    void freedSeatsJoinTheirNeighbours() {
+        // build
+        Reservation reservation = cinemaRoom.reserveSeatByNumber(1, 4, 3);
+        for (int row = 2; row <= 4; row++) {
+            cinemaRoom.reserveSeatByNumber(row, 5, 1);
+        }
+
+        // operate
+        cinemaRoom.cancelReservation(reservation.getId());
+
+        // test
+        assertThat(cinemaRoom.getLongestFreeRun()).isEqualTo(10);
+        assertThat(cinemaRoom.canSeatParty(6)).isTrue();
+        assertThat(cinemaRoom.getFreeRunHistogram()).containsExactly(0, 0, 0, 0, 3, 3, 0, 0, 0, 0, 1);
+    }
+
+    @Test
+    void canSeatPartyRejectsInvalidPartySize() {
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.canSeatParty(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Number of seats must be greater than zero");
+        assertThatThrownBy(() -> cinemaRoom.getNumberOfAvailableSeatsInRow(5))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Rownumber must be between 1 and 4");
+    }
+
+    @Test
+    void queriesMatchTheSeatListAfterRandomBookings() {
+        // build
+        CinemaRoom room = new CinemaRoom("Poor Things", 20, 70);
+        Random random = new Random(7);
+        List<Reservation> reservations = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            try {
+                if (!reservations.isEmpty() && random.nextInt(3) == 0) {
+                    room.cancelReservation(reservations.remove(random.nextInt(reservations.size())).getId());
+                } else if (random.nextBoolean()) {
+                    reservations.add(room.reserveConsecutiveSeats(1 + random.nextInt(6)));
+                } else {
+                    reservations.add(room.reserveSeatByNumber(1 + random.nextInt(20), 1 + random.nextInt(70), 1 + random.nextInt(4)));
+                }
+            } catch (NotEnoughConsecutiveSeatsInRowException e) {
+                // a full row or a taken seat is part of the mix
+            }
+        }
+
+        // operate
+        int[] histogram = room.getFreeRunHistogram();
+
+        // test
+        int[] expectedHistogram = new int[71];
+        int longestRun = 0;
+        for (int row = 1; row <= 20; row++) {
+            int run = 0;
+            int availableInRow = 0;
+            for (int seatNumber = 1; seatNumber <= 71; seatNumber++) {
+                if (seatNumber <= 70 && room.getAvailableSeats().contains(new Seat(row, seatNumber))) {
+                    run++;
+                    availableInRow++;
+                } else if (run > 0) {
+                    expectedHistogram[run]++;
+                    longestRun = Math.max(longestRun, run);
+                    run = 0;
+                }
+            }
+            assertThat(room.getNumberOfAvailableSeatsInRow(row)).isEqualTo(availableInRow);
+        }
+        assertThat(histogram).containsExactly(expectedHistogram);
+        assertThat(room.getLongestFreeRun()).isEqualTo(longestRun);
+        assertThat(room.getNumberOfAvailableSeats()).isEqualTo(room.getAvailableSeats().size());
+    }
+
+    @Test
+    void seatListsAnswerIndexAndContainsFromTheBitmaps() {
+        // build
+        String wideRow = "SSSSSSSSSS".repeat(7) + "..SSSS";
+        CinemaRoom room = new CinemaRoom("Poor Things", RoomLayout.fromPlan(wideRow, "SSS..SSS", wideRow));
+        room.reserveSeatByNumber(1, 60, 8);
+        room.reserveSeatByNumber(3, 73, 2);
+        room.holdSeatByNumber(3, 1, 3, Duration.ofMinutes(10));
+        room.reserveSeatByNumber(2, 2, 2);
+
+        // operate
+        List<Seat> available = new ArrayList<>();
+        List<Seat> reserved = new ArrayList<>();
+        for (int i = 0; i < room.getAvailableSeats().size(); i++) {
+            available.add(room.getAvailableSeats().get(i));
+        }
+        for (int i = 0; i < room.getReservedSeats().size(); i++) {
+            reserved.add(room.getReservedSeats().get(i));
+        }
+
+        // test
+        assertThat(available).containsExactlyElementsOf(new ArrayList<>(room.getAvailableSeats()));
+        assertThat(reserved).containsExactlyElementsOf(new ArrayList<>(room.getReservedSeats()));
+        assertThat(reserved).hasSize(12);
+        assertThat(room.getReservedSeats().contains(new Seat(1, 64))).isTrue();
+        assertThat(room.getAvailableSeats().contains(new Seat(1, 64))).isFalse();
+        assertThat(room.getReservedSeats().contains(new Seat(3, 2))).isFalse();
+        assertThat(room.getAvailableSeats().contains(new Seat(3, 2))).isFalse();
+        assertThat(room.getAvailableSeats().contains(new Seat(3, 76))).isTrue();
+        assertThat(room.getAvailableSeats().contains(new Seat(2, 4))).isFalse();
+        assertThat(room.getAvailableSeats().contains(new Seat(4, 1))).isFalse();
+        assertThat(room.getAvailableSeats().contains(new Seat(1, 77))).isFalse();
+        assertThat(room.getAvailableSeats().contains("1-1")).isFalse();
+    }
+}
@@ -0,0 +1,143 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static be.vives.ti.ReservationRequest.consecutiveSeats;
+import static be.vives.ti.ReservationRequest.seatByNumber;
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomBatchTest {
+
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        cinemaRoom = new CinemaRoom("Inside Out 2", 5, 10);
+    }
+
+    @Test
+    void reserveBatch_placesEveryRequestInOrder() {
+        // operate
+        List<ReservationOutcome> outcomes = cinemaRoom.reserveBatch(List.of(
+                seatByNumber(1, 1, 4),
+                consecutiveSeats(6),
+                consecutiveSeats(3)));
+
+        // test
+        assertThat(outcomes).allMatch(ReservationOutcome::isSuccessful);
+        assertThat(outcomes.get(0).getSeats()).containsExactly(new Seat(1, 1),
+                new Seat(1, 2),
+                new Seat(1, 3),
+                new Seat(1, 4));
+        assertThat(outcomes.get(1).getSeats()).first().isEqualTo(new Seat(1, 5));
+        assertThat(outcomes.get(2).getSeats()).containsExactly(new Seat(2, 1),
+                new Seat(2, 2),
+                new Seat(2, 3));
+        assertThat(cinemaRoom.getReservedSeats()).hasSize(13);
+    }
+
+    @Test
+    void reserveBatch_reportsFailuresPerRequest() {
+        // build
+        cinemaRoom.reserveSeatByNumber(2, 5, 1);
+
+        // operate
+        List<ReservationOutcome> outcomes = cinemaRoom.reserveBatch(List.of(
+                seatByNumber(2, 4, 3),
+                consecutiveSeats(11),
+                consecutiveSeats(0),
+                consecutiveSeats(2)));
+
+        // test
+        assertThat(outcomes).extracting(ReservationOutcome::isSuccessful).containsExactly(false, false, false, true);
+        assertThat(outcomes.get(0).getFailureMessage()).isEqualTo("Not enough consecutive seats available starting from seat 4");
+        assertThat(outcomes.get(1).getFailureMessage()).isEqualTo("Not enough consecutive seats available in any row");
+        assertThat(outcomes.get(2).getFailureMessage()).isEqualTo("Number of seats must be greater than zero");
+        assertThat(outcomes.get(3).getSeats()).containsExactly(new Seat(1, 1), new Seat(1, 2));
+        assertThat(cinemaRoom.getReservedSeats()).hasSize(3);
+    }
+
+    @Test
+    void reserveBatch_allOrNothing_commitsWhenEveryRequestFits() {
+        // operate
+        List<ReservationOutcome> outcomes = cinemaRoom.reserveBatch(List.of(
+                consecutiveSeats(10),
+                consecutiveSeats(10),
+                seatByNumber(5, 1, 10)), true);
+
+        // test
+        assertThat(outcomes).allMatch(ReservationOutcome::isSuccessful);
+        assertThat(cinemaRoom.getReservedSeats()).hasSize(30);
+    }
+
+    @Test
+    void reserveBatch_allOrNothing_rollsBackWhenOneRequestFails() {
+        // build
+        cinemaRoom.reserveSeatByNumber(4, 1, 1);
+
+        // operate
+        List<ReservationOutcome> outcomes = cinemaRoom.reserveBatch(List.of(
+                consecutiveSeats(10),
+                seatByNumber(3, 2, 5),
+                seatByNumber(4, 1, 2),
+                consecutiveSeats(1)), true);
+
+        // test
+        assertThat(outcomes).noneMatch(ReservationOutcome::isSuccessful);
+        assertThat(outcomes).extracting(ReservationOutcome::getFailureMessage).containsExactly(
+                "Batch rolled back because another request failed",
+                "Batch rolled back because another request failed",
+                "Not enough consecutive seats available starting from seat 1",
+                "Batch rolled back because another request failed");
+        assertThat(cinemaRoom.getReservedSeats()).containsExactly(new Seat(4, 1));
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(49);
+        assertThat(cinemaRoom.reserveConsecutiveSeats(10)).first().isEqualTo(new Seat(1, 1));
+    }
+
+    @Test
+    void freeRunsAndSnapshotAreRightAfterABatch() {
+        // build
+        SeatMapSnapshot before = cinemaRoom.snapshot();
+
+        // operate
+        List<ReservationOutcome> outcomes = cinemaRoom.reserveBatch(List.of(
+                consecutiveSeats(10),
+                consecutiveSeats(7),
+                consecutiveSeats(4),
+                consecutiveSeats(3),
+                seatByNumber(5, 3, 8)));
+
+        // test
+        assertThat(outcomes).allMatch(ReservationOutcome::isSuccessful);
+        assertThat(outcomes.get(2).getSeats()).first().isEqualTo(new Seat(3, 1));
+        assertThat(outcomes.get(3).getSeats()).first().isEqualTo(new Seat(2, 8));
+        assertThat(cinemaRoom.getLongestFreeRun()).isEqualTo(10);
+        assertThat(cinemaRoom.getFreeRunHistogram()[10]).isEqualTo(1);
+        assertThat(cinemaRoom.snapshot().getVersion()).isEqualTo(before.getVersion() + 5);
+        assertThat(cinemaRoom.snapshot().getReservedSeats()).containsExactlyElementsOf(cinemaRoom.getReservedSeats());
+        assertThat(cinemaRoom.reserveConsecutiveSeats(10)).first().isEqualTo(new Seat(4, 1));
+    }
+
+    @Test
+    void seatsFreedInsideABatchCanBeTakenInTheSameBatch() {
+        // build
+        for (int rowNumber = 1; rowNumber <= 5; rowNumber++) {
+            cinemaRoom.reserveSeatByNumber(rowNumber, 1, 10);
+        }
+        ReservationAttempt[] attempt = new ReservationAttempt[1];
+
+        // operate
+        cinemaRoom.applyBatch(() -> {
+            cinemaRoom.releaseSeats(3, 4, 5);
+            attempt[0] = cinemaRoom.tryReserveConsecutiveSeats(5);
+        });
+
+        // test
+        assertThat(attempt[0].isSuccessful()).isTrue();
+        assertThat(attempt[0].getReservation()).first().isEqualTo(new Seat(3, 4));
+        assertThat(cinemaRoom.getLongestFreeRun()).isZero();
+    }
+}
@@ -0,0 +1,124 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomBestAvailableTest {
+
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        cinemaRoom = new CinemaRoom("The Dark Knight", 5, 10);
+    }
+
+    @Test
+    void firstPartyGetsTheCentreOfThePreferredRow() {
+        // operate
+        List<Seat> seats = cinemaRoom.reserveBestAvailableSeats(2);
+
+        // test
+        assertThat(seats).containsExactly(new Seat(4, 5), new Seat(4, 6));
+    }
+
+    @Test
+    void nextPartyMovesToTheNextBestRowInsteadOfTheAisle() {
+        // build
+        cinemaRoom.reserveBestAvailableSeats(2);
+
+        // operate
+        List<Seat> seats = cinemaRoom.reserveBestAvailableSeats(2);
+
+        // test
+        assertThat(seats).containsExactly(new Seat(3, 5), new Seat(3, 6));
+    }
+
+    @Test
+    void customScoresDecideWhereThePartySits() {
+        // build
+        SeatScores backRowFirst = SeatScores.of(cinemaRoom.getLayout(), (rowNumber, seatNumber, layout) -> rowNumber);
+        cinemaRoom.reserveSeatByNumber(5, 1, 2);
+
+        // operate
+        List<Seat> seats = cinemaRoom.reserveBestAvailableSeats(3, backRowFirst);
+
+        // test
+        assertThat(seats).containsExactly(new Seat(5, 3), new Seat(5, 4), new Seat(5, 5));
+    }
+
+    @Test
+    void bestAvailableBlockMatchesAnExhaustiveSearch() {
+        // build
+        CinemaRoom largeRoom = new CinemaRoom("Oppenheimer", 25, 40);
+        SeatScores scores = largeRoom.getLayout().getCentreOfRoomScores();
+        Random random = new Random(3);
+        for (int i = 0; i < 300; i++) {
+            try {
+                largeRoom.reserveSeatByNumber(1 + random.nextInt(25), 1 + random.nextInt(38), 1 + random.nextInt(3));
+            } catch (NotEnoughConsecutiveSeatsInRowException e) {
+                // already taken
+            }
+        }
+
+        for (int party = 0; party < 100; party++) {
+            int partySize = 1 + random.nextInt(6);
+            long bestScore = bestScoreByExhaustiveSearch(largeRoom, scores, partySize);
+
+            // operate
+            List<Seat> seats = largeRoom.reserveBestAvailableSeats(partySize);
+
+            // test
+            long score = 0;
+            for (Seat seat : seats) {
+                score += scores.getScore(seat.getRow(), seat.getSeatNumber());
+            }
+            assertThat(score).isEqualTo(bestScore);
+        }
+    }
+
+    @Test
+    void cantReserveBestAvailableSeatsInAFullRoom() {
+        // build
+        for (int row = 1; row <= 5; row++) {
+            cinemaRoom.reserveSeatByNumber(row, 1, 10);
+        }
+
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.reserveBestAvailableSeats(1))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class)
+                .hasMessage("Not enough consecutive seats available in any row");
+    }
+
+    @Test
+    void cantUseScoresOfAnotherLayout() {
+        SeatScores otherScores = RoomLayout.rectangular(6, 10).getCentreOfRoomScores();
+
+        assertThatThrownBy(() -> cinemaRoom.reserveBestAvailableSeats(2, otherScores))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Seat scores belong to another layout");
+    }
+
+    private long bestScoreByExhaustiveSearch(CinemaRoom room, SeatScores scores, int partySize) {
+        List<Seat> reservedSeats = room.getReservedSeats();
+        long bestScore = Long.MIN_VALUE;
+        for (int row = 1; row <= room.getLayout().getNumberOfRows(); row++) {
+            for (int start = 1; start + partySize - 1 <= room.getLayout().getSeatsPerRow(); start++) {
+                long score = 0;
+                boolean free = true;
+                for (int seat = start; seat < start + partySize && free; seat++) {
+                    free = !reservedSeats.contains(new Seat(row, seat));
+                    score += scores.getScore(row, seat);
+                }
+                if (free) {
+                    bestScore = Math.max(bestScore, score);
+                }
+            }
+        }
+        return bestScore;
+    }
+}
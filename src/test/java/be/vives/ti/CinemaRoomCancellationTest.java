@@ -0,0 +1,202 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomCancellationTest {
+
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        cinemaRoom = new CinemaRoom("Oppenheimer", 5, 10);
+    }
+
+    @Test
+    void cancelReservationFreesItsSeats() {
+        // build
+        Reservation reservation = cinemaRoom.reserveConsecutiveSeats(4);
+
+        // operate
+        cinemaRoom.cancelReservation(reservation.getId());
+
+        // test
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(50);
+        assertThat(cinemaRoom.reserveConsecutiveSeats(10)).startsWith(new Seat(1, 1));
+    }
+
+    @Test
+    void cancelReservationLeavesOtherReservationsAlone() {
+        // build
+        Reservation first = cinemaRoom.reserveSeatByNumber(2, 1, 3);
+        Reservation second = cinemaRoom.reserveSeatByNumber(2, 4, 3);
+
+        // operate
+        cinemaRoom.cancelReservation(first.getId());
+
+        // test
+        assertThat(cinemaRoom.getReservedSeats()).containsExactlyElementsOf(second);
+        assertThat(cinemaRoom.getOccupancyGauges().getLongestFreeRun()).isEqualTo(10);
+    }
+
+    @Test
+    void cancelReservationTwiceIsRejected() {
+        // build
+        Reservation reservation = cinemaRoom.reserveBestAvailableSeats(2);
+        cinemaRoom.cancelReservation(reservation.getId());
+
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.cancelReservation(reservation.getId()))
+                .isInstanceOf(ReservationNotFoundException.class)
+                .hasMessage("No reservation with id " + reservation.getId());
+    }
+
+    @Test
+    void cancelReservationDoesNotFreeSeatsBookedAgainByAnotherCustomer() {
+        // build
+        Reservation reservation = cinemaRoom.reserveSeatByNumber(1, 1, 2);
+        cinemaRoom.releaseSeats(1, 1, 2);
+        Reservation rebooked = cinemaRoom.reserveSeatByNumber(1, 1, 2);
+
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.cancelReservation(reservation.getId()))
+                .isInstanceOf(ReservationNotFoundException.class);
+        assertThat(cinemaRoom.getReservedSeats()).containsExactlyElementsOf(rebooked);
+    }
+
+    @Test
+    void cancelReservationAfterPartialRelease() {
+        // build
+        Reservation reservation = cinemaRoom.reserveSeatByNumber(3, 2, 5);
+        cinemaRoom.releaseSeats(3, 4, 1);
+
+        // operate
+        cinemaRoom.cancelReservation(reservation.getId());
+
+        // test
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+    }
+
+    @Test
+    void cancelUnknownReservationIsRejected() {
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.cancelReservation(42))
+                .isInstanceOf(ReservationNotFoundException.class)
+                .hasMessage("No reservation with id 42");
+        cinemaRoom.reserveConsecutiveSeats(1);
+        assertThatThrownBy(() -> cinemaRoom.cancelReservation(-1))
+                .isInstanceOf(ReservationNotFoundException.class);
+    }
+
+    @Test
+    void confirmedHoldCanBeCancelled() {
+        // build
+        SeatHold hold = cinemaRoom.holdSeatByNumber(4, 5, 3, Duration.ofMinutes(10));
+        Reservation reservation = cinemaRoom.confirm(hold.getId());
+
+        // operate
+        cinemaRoom.cancelReservation(reservation.getId());
+
+        // test
+        assertThat(reservation).containsExactlyElementsOf(hold.getSeats());
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(50);
+    }
+
+    @Test
+    void batchOutcomesCarryTheirReservation() {
+        // build
+        List<ReservationOutcome> outcomes = cinemaRoom.reserveBatch(List.of(ReservationRequest.consecutiveSeats(3)));
+
+        // operate
+        cinemaRoom.cancelReservation(outcomes.get(0).getReservation().getId());
+
+        // test
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+    }
+
+    @Test
+    void releaseSeatsAcrossReservations() {
+        // build
+        cinemaRoom.reserveSeatByNumber(1, 1, 3);
+        cinemaRoom.reserveSeatByNumber(1, 4, 3);
+
+        // operate
+        cinemaRoom.releaseSeats(1, 2, 4);
+
+        // test
+        assertThat(cinemaRoom.getReservedSeats()).containsExactly(new Seat(1, 1), new Seat(1, 6));
+        assertThat(cinemaRoom.reserveSeatByNumber(1, 2, 4)).hasSize(4);
+    }
+
+    @Test
+    void releaseSeatsThatAreNotAllReservedIsRejected() {
+        // build
+        cinemaRoom.reserveSeatByNumber(1, 1, 3);
+        cinemaRoom.holdSeatByNumber(2, 1, 3, Duration.ofMinutes(10));
+
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.releaseSeats(1, 2, 3))
+                .isInstanceOf(ReservationNotFoundException.class)
+                .hasMessage("Seats 2 to 4 in row 1 are not all reserved");
+        assertThatThrownBy(() -> cinemaRoom.releaseSeats(2, 1, 3))
+                .isInstanceOf(ReservationNotFoundException.class);
+        assertThatThrownBy(() -> cinemaRoom.releaseSeats(6, 1, 1))
+                .isInstanceOf(ReservationNotFoundException.class);
+        assertThatThrownBy(() -> cinemaRoom.releaseSeats(1, Integer.MAX_VALUE, 2))
+                .isInstanceOf(ReservationNotFoundException.class);
+        assertThatThrownBy(() -> cinemaRoom.releaseSeats(1, 2, Integer.MAX_VALUE))
+                .isInstanceOf(ReservationNotFoundException.class);
+        assertThat(cinemaRoom.getReservedSeats()).hasSize(3);
+    }
+
+    @Test
+    void releasedSeatsAreOfferedAgainAsBestAvailable() {
+        // build
+        Reservation centre = cinemaRoom.reserveBestAvailableSeats(4);
+        cinemaRoom.reserveBestAvailableSeats(4);
+
+        // operate
+        cinemaRoom.releaseSeats(centre.get(0).getRow(), centre.get(0).getSeatNumber(), 4);
+
+        // test
+        assertThat(cinemaRoom.reserveBestAvailableSeats(4)).containsExactlyElementsOf(centre);
+    }
+
+    @Test
+    void rejectedAttemptsDoNotUseUpReservationIds() {
+        // build
+        Reservation fullHouse = cinemaRoom.reserveSeatsAllowingSplit(50).get(0);
+
+        // operate
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            assertThat(cinemaRoom.tryReserveConsecutiveSeats(2).isSuccessful()).isFalse();
+            assertThat(cinemaRoom.tryReserveSeatByNumber(3, 4, 1).isSuccessful()).isFalse();
+        }
+        cinemaRoom.cancelReservation(fullHouse.getId());
+
+        // test
+        assertThat(Reservation.sequence(cinemaRoom.reserveConsecutiveSeats(2).getId()))
+                .isEqualTo(Reservation.sequence(fullHouse.getId()) + 1);
+    }
+
+    @Test
+    void reservationIdsAreNeverHandedOutTwice() {
+        // build
+        SeatOccupancy occupancy = new SeatOccupancy(RoomLayout.rectangular(5, 10), (row, seat, count, from, to) -> {
+        }, new AtomicInteger(Reservation.SEQUENCE_MASK - 1), () -> null);
+
+        // operate + test
+        assertThat(occupancy.nextReservationSequence()).isEqualTo(Reservation.SEQUENCE_MASK);
+        assertThatThrownBy(occupancy::nextReservationSequence)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Every reservation id of this room has been handed out");
+    }
+}
@@ -0,0 +1,171 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomChangeFeedTest {
+
+    private static final Duration TEN_MINUTES = Duration.ofMinutes(10);
+
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        cinemaRoom = new CinemaRoom("Past Lives", 5, 10);
+    }
+
+    @Test
+    void firstCallReturnsASnapshot() {
+        // build
+        cinemaRoom.reserveSeatByNumber(2, 3, 2);
+        cinemaRoom.holdSeatByNumber(4, 1, 1, TEN_MINUTES);
+
+        // operate
+        SeatChanges changes = cinemaRoom.getChangesSince(0);
+
+        // test
+        assertThat(changes.isSnapshot()).isTrue();
+        assertThat(changes.getChanges())
+                .extracting(SeatChange::getSeat, SeatChange::getNewState)
+                .containsExactly(tuple(new Seat(2, 3), SeatState.RESERVED),
+                        tuple(new Seat(2, 4), SeatState.RESERVED),
+                        tuple(new Seat(4, 1), SeatState.HELD));
+    }
+
+    @Test
+    void changesSinceAVersion() {
+        // build
+        long version = cinemaRoom.getChangesSince(0).getVersion();
+        cinemaRoom.reserveSeatByNumber(1, 1, 2);
+        cinemaRoom.holdSeatByNumber(3, 5, 1, TEN_MINUTES);
+
+        // operate
+        SeatChanges changes = cinemaRoom.getChangesSince(version);
+
+        // test
+        assertThat(changes.isSnapshot()).isFalse();
+        assertThat(changes.getVersion()).isEqualTo(version + 2);
+        assertThat(changes.getChanges())
+                .extracting(SeatChange::getSeat, SeatChange::getPreviousState, SeatChange::getNewState, SeatChange::getVersion)
+                .containsExactly(tuple(new Seat(1, 1), SeatState.AVAILABLE, SeatState.RESERVED, version + 1),
+                        tuple(new Seat(1, 2), SeatState.AVAILABLE, SeatState.RESERVED, version + 1),
+                        tuple(new Seat(3, 5), SeatState.AVAILABLE, SeatState.HELD, version + 2));
+        assertThat(cinemaRoom.getChangesSince(changes.getVersion()).getChanges()).isEmpty();
+    }
+
+    @Test
+    void changesToTheSameSeatAreCoalesced() {
+        // build
+        long version = cinemaRoom.getChangesSince(0).getVersion();
+        SeatHold confirmedHold = cinemaRoom.holdSeatByNumber(1, 1, 2, TEN_MINUTES);
+        cinemaRoom.confirm(confirmedHold.getId());
+        SeatHold releasedHold = cinemaRoom.holdSeatByNumber(2, 1, 2, TEN_MINUTES);
+        cinemaRoom.release(releasedHold.getId());
+
+        // operate
+        SeatChanges changes = cinemaRoom.getChangesSince(version);
+
+        // test
+        assertThat(changes.getVersion()).isEqualTo(version + 4);
+        assertThat(changes.getChanges())
+                .extracting(SeatChange::getSeat, SeatChange::getPreviousState, SeatChange::getNewState)
+                .containsExactly(tuple(new Seat(1, 1), SeatState.AVAILABLE, SeatState.RESERVED),
+                        tuple(new Seat(1, 2), SeatState.AVAILABLE, SeatState.RESERVED));
+    }
+
+    @Test
+    void slowSubscriberFallsBackToASnapshot() {
+        // build
+        long version = cinemaRoom.getChangesSince(0).getVersion();
+        for (int i = 0; i < 5_000; i++) {
+            Reservation reservation = cinemaRoom.reserveConsecutiveSeats(1);
+            cinemaRoom.cancelReservation(reservation.getId());
+        }
+        cinemaRoom.reserveSeatByNumber(5, 10, 1);
+
+        // operate
+        SeatChanges changes = cinemaRoom.getChangesSince(version);
+
+        // test
+        assertThat(changes.isSnapshot()).isTrue();
+        assertThat(changes.getVersion()).isEqualTo(version + 10_001);
+        assertThat(changes.getChanges()).extracting(SeatChange::getSeat).containsExactly(new Seat(5, 10));
+    }
+
+    @Test
+    void unknownVersionFallsBackToASnapshot() {
+        // operate
+        SeatChanges changes = cinemaRoom.getChangesSince(1_000);
+
+        // test
+        assertThat(changes.isSnapshot()).isTrue();
+        assertThat(changes.getChanges()).isEmpty();
+    }
+
+    @Test
+    void subscriberFollowsConcurrentBookings() throws Exception {
+        // build
+        CinemaRoom room = new CinemaRoom("Past Lives", 20, 50);
+        Map<Seat, SeatState> seatMap = new HashMap<>();
+        long version = apply(room.getChangesSince(0), seatMap);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // operate
+        try {
+            List<Future<?>> bookers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                Random random = new Random(thread);
+                bookers.add(executor.submit(() -> {
+                    for (int attempt = 0; attempt < 500; attempt++) {
+                        try {
+                            Reservation reservation = room.reserveConsecutiveSeats(1 + random.nextInt(4));
+                            if (random.nextInt(3) == 0) {
+                                room.cancelReservation(reservation.getId());
+                            }
+                        } catch (NotEnoughConsecutiveSeatsInRowException e) {
+                            // the room is full
+                        }
+                    }
+                }));
+            }
+            for (Future<?> booker : bookers) {
+                while (!booker.isDone()) {
+                    version = apply(room.getChangesSince(version), seatMap);
+                }
+                booker.get();
+            }
+            version = apply(room.getChangesSince(version), seatMap);
+        } finally {
+            executor.shutdown();
+        }
+
+        // test
+        assertThat(seatMap.keySet()).containsExactlyInAnyOrderElementsOf(room.getReservedSeats());
+    }
+
+    private long apply(SeatChanges changes, Map<Seat, SeatState> seatMap) {
+        if (changes.isSnapshot()) {
+            seatMap.clear();
+        }
+        for (SeatChange change : changes.getChanges()) {
+            if (change.getNewState() == SeatState.AVAILABLE) {
+                seatMap.remove(change.getSeat());
+            } else {
+                seatMap.put(change.getSeat(), change.getNewState());
+            }
+        }
+        return changes.getVersion();
+    }
+}
@@ -0,0 +1,125 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.RepeatedTest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomConcurrencyTest {
+
+    private static final int NUMBER_OF_THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 2_000;
+
+    @RepeatedTest(5)
+    void noSeatIsEverSoldTwice() throws Exception {
+        // build
+        CinemaRoom cinemaRoom = new CinemaRoom("Barbie", 40, 100);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<List<Seat>>> bookers = new ArrayList<>();
+        for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+            Random random = new Random(thread);
+            bookers.add(() -> {
+                List<Seat> soldSeats = new ArrayList<>();
+                start.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    try {
+                        if (random.nextBoolean()) {
+                            soldSeats.addAll(cinemaRoom.reserveConsecutiveSeats(1 + random.nextInt(6)));
+                        } else {
+                            soldSeats.addAll(cinemaRoom.reserveSeatByNumber(1 + random.nextInt(40), 1 + random.nextInt(96), 1 + random.nextInt(4)));
+                        }
+                    } catch (NotEnoughConsecutiveSeatsInRowException e) {
+                        // seats already taken by another thread, try again
+                    }
+                }
+                return soldSeats;
+            });
+        }
+
+        // operate
+        List<Seat> allSoldSeats = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        try {
+            List<Future<List<Seat>>> results = new ArrayList<>();
+            for (Callable<List<Seat>> booker : bookers) {
+                results.add(executor.submit(booker));
+            }
+            start.countDown();
+            for (Future<List<Seat>> result : results) {
+                allSoldSeats.addAll(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // test
+        Set<Seat> distinctSoldSeats = new HashSet<>(allSoldSeats);
+        assertThat(distinctSoldSeats).hasSameSizeAs(allSoldSeats);
+        assertThat(cinemaRoom.getReservedSeats()).hasSize(allSoldSeats.size());
+        assertThat(new HashSet<>(cinemaRoom.getReservedSeats())).isEqualTo(distinctSoldSeats);
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(4000 - allSoldSeats.size());
+    }
+
+    @RepeatedTest(5)
+    void longestFreeRunIsExactAfterConcurrentBookingsAndCancellations() throws Exception {
+        // build
+        CinemaRoom cinemaRoom = new CinemaRoom("Barbie", 40, 100);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> bookers = new ArrayList<>();
+        for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+            Random random = new Random(thread);
+            bookers.add(() -> {
+                List<Reservation> reservations = new ArrayList<>();
+                start.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    ReservationAttempt reservation = cinemaRoom.tryReserveConsecutiveSeats(1 + random.nextInt(30));
+                    if (reservation.isSuccessful()) {
+                        reservations.add(reservation.getReservation());
+                    }
+                    if (!reservations.isEmpty() && random.nextInt(3) > 0) {
+                        cinemaRoom.cancelReservation(reservations.remove(random.nextInt(reservations.size())).getId());
+                    }
+                }
+                return null;
+            });
+        }
+
+        // operate
+        ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (Callable<Void> booker : bookers) {
+                results.add(executor.submit(booker));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // test
+        SeatMapSnapshot seatMap = cinemaRoom.snapshot();
+        int longestFreeRun = 0;
+        for (int rowNumber = 1; rowNumber <= 40; rowNumber++) {
+            int run = 0;
+            for (int seatNumber = 1; seatNumber <= 100; seatNumber++) {
+                run = seatMap.getState(rowNumber, seatNumber) == SeatState.AVAILABLE ? run + 1 : 0;
+                longestFreeRun = Math.max(longestFreeRun, run);
+            }
+        }
+        assertThat(cinemaRoom.getLongestFreeRun()).isEqualTo(longestFreeRun);
+        assertThat(cinemaRoom.tryReserveConsecutiveSeats(longestFreeRun).isSuccessful()).isTrue();
+    }
+}
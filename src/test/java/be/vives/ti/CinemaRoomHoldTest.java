@@ -0,0 +1,164 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomHoldTest {
+
+    private static final Duration TEN_MINUTES = Duration.ofMinutes(10);
+
+    private MutableClock clock;
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-10-01T19:00:00Z"));
+        cinemaRoom = new CinemaRoom("Dune: Part Two", 5, 10, clock);
+    }
+
+    @Test
+    void holdConsecutiveSeats() {
+        // operate
+        SeatHold hold = cinemaRoom.holdConsecutiveSeats(4, TEN_MINUTES);
+
+        // test
+        assertThat(hold.getSeats()).containsExactly(new Seat(1, 1),
+                new Seat(1, 2),
+                new Seat(1, 3),
+                new Seat(1, 4));
+        assertThat(hold.getExpiresAt()).isEqualTo(Instant.parse("2024-10-01T19:10:00Z"));
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(46);
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+    }
+
+    @Test
+    void heldSeatsAreNotOfferedToOtherCustomers() {
+        // build
+        cinemaRoom.holdConsecutiveSeats(8, TEN_MINUTES);
+
+        // operate
+        List<Seat> reservedConsecutiveSeats = cinemaRoom.reserveConsecutiveSeats(3);
+
+        // test
+        assertThat(reservedConsecutiveSeats).containsExactly(new Seat(2, 1),
+                new Seat(2, 2),
+                new Seat(2, 3));
+        assertThatThrownBy(() -> cinemaRoom.reserveSeatByNumber(1, 8, 2))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class)
+                .hasMessageContaining("Not enough consecutive seats available starting from seat 8");
+    }
+
+    @Test
+    void confirmTurnsAHoldIntoAReservation() {
+        // build
+        SeatHold hold = cinemaRoom.holdSeatByNumber(3, 4, 2, TEN_MINUTES);
+
+        // operate
+        List<Seat> confirmedSeats = cinemaRoom.confirm(hold.getId());
+
+        // test
+        assertThat(confirmedSeats).containsExactly(new Seat(3, 4), new Seat(3, 5));
+        assertThat(cinemaRoom.getReservedSeats()).containsExactly(new Seat(3, 4), new Seat(3, 5));
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(48);
+
+        clock.advance(Duration.ofHours(1));
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(48);
+        assertThatThrownBy(() -> cinemaRoom.release(hold.getId()))
+                .isInstanceOf(HoldNotFoundException.class)
+                .hasMessage("No active hold with id " + hold.getId());
+    }
+
+    @Test
+    void releaseGivesTheSeatsBack() {
+        // build
+        SeatHold hold = cinemaRoom.holdConsecutiveSeats(10, TEN_MINUTES);
+
+        // operate
+        cinemaRoom.release(hold.getId());
+
+        // test
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(50);
+        assertThat(cinemaRoom.reserveConsecutiveSeats(10)).first().isEqualTo(new Seat(1, 1));
+        assertThatThrownBy(() -> cinemaRoom.confirm(hold.getId()))
+                .isInstanceOf(HoldNotFoundException.class);
+    }
+
+    @Test
+    void expiredSeatsAreImmediatelyAvailableForConsecutiveSearch() {
+        // build
+        SeatHold shortHold = cinemaRoom.holdConsecutiveSeats(10, Duration.ofMinutes(5));
+        for (int row = 2; row <= 5; row++) {
+            cinemaRoom.holdConsecutiveSeats(10, TEN_MINUTES);
+        }
+        assertThatThrownBy(() -> cinemaRoom.reserveConsecutiveSeats(6))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+
+        // operate
+        clock.advance(Duration.ofMinutes(5));
+        List<Seat> reservedConsecutiveSeats = cinemaRoom.reserveConsecutiveSeats(6);
+
+        // test
+        assertThat(reservedConsecutiveSeats).first().isEqualTo(new Seat(1, 1));
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(4);
+        assertThatThrownBy(() -> cinemaRoom.confirm(shortHold.getId()))
+                .isInstanceOf(HoldNotFoundException.class);
+    }
+
+    @Test
+    void holdsExpireAfterALongIdlePeriod() {
+        // build
+        SeatHold hold = cinemaRoom.holdSeatByNumber(2, 1, 5, TEN_MINUTES);
+
+        // operate
+        clock.advance(Duration.ofDays(3));
+
+        // test
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(50);
+        assertThatThrownBy(() -> cinemaRoom.release(hold.getId()))
+                .isInstanceOf(HoldNotFoundException.class);
+    }
+
+    @Test
+    void holdWithoutTimeToLive() {
+        assertThatThrownBy(() -> cinemaRoom.holdConsecutiveSeats(2, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Time to live must be greater than zero");
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
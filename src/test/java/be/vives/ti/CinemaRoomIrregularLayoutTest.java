@@ -0,0 +1,171 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomIrregularLayoutTest {
+
+    private RoomLayout layout;
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        layout = RoomLayout.fromPlan(
+                "SSS..SSS",
+                "SSSSSSSS",
+                "WSS..SSW",
+                "SSSS");
+        cinemaRoom = new CinemaRoom("Perfect Days", layout);
+    }
+
+    @Test
+    void layoutOnlyCountsSeats() {
+        // test
+        assertThat(layout.getNumberOfRows()).isEqualTo(4);
+        assertThat(layout.getSeatsPerRow()).isEqualTo(8);
+        assertThat(layout.getCapacity()).isEqualTo(24);
+        assertThat(layout.getNumberOfSeatsInRow(1)).isEqualTo(6);
+        assertThat(layout.getNumberOfSeatsInRow(4)).isEqualTo(4);
+        assertThat(layout.isSeat(1, 3)).isTrue();
+        assertThat(layout.isSeat(1, 4)).isFalse();
+        assertThat(layout.isSeat(4, 5)).isFalse();
+        assertThat(layout.isWheelchairSpace(3, 1)).isTrue();
+        assertThat(layout.isWheelchairSpace(3, 8)).isTrue();
+        assertThat(layout.isWheelchairSpace(3, 2)).isFalse();
+        assertThat(layout.isSeat(3, 1)).isTrue();
+    }
+
+    @Test
+    void emptyRoomOnlyOffersSeats() {
+        // test
+        assertThat(cinemaRoom.getNumberOfAvailableSeats()).isEqualTo(24);
+        assertThat(cinemaRoom.getNumberOfAvailableSeatsInRow(1)).isEqualTo(6);
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(24)
+                .doesNotContain(new Seat(1, 4), new Seat(1, 5), new Seat(3, 4), new Seat(4, 5), new Seat(4, 8));
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+        assertThat(cinemaRoom.getLongestFreeRun()).isEqualTo(8);
+        int[] histogram = cinemaRoom.getFreeRunHistogram();
+        assertThat(histogram[3]).isEqualTo(4);
+        assertThat(histogram[4]).isEqualTo(1);
+        assertThat(histogram[8]).isEqualTo(1);
+        assertThat(cinemaRoom.getOccupancyGauges().getLongestFreeRun()).isEqualTo(8);
+    }
+
+    @Test
+    void consecutiveSeatsNeverSpanAnAisle() {
+        // operate
+        Reservation reservation = cinemaRoom.reserveConsecutiveSeats(4);
+
+        // test
+        assertThat(reservation).containsExactly(new Seat(2, 1), new Seat(2, 2), new Seat(2, 3), new Seat(2, 4));
+    }
+
+    @Test
+    void consecutiveSeatsUseTheRunBehindAnAisle() {
+        // build
+        cinemaRoom.reserveSeatByNumber(1, 1, 3);
+
+        // operate
+        Reservation reservation = cinemaRoom.reserveConsecutiveSeats(3);
+
+        // test
+        assertThat(reservation).containsExactly(new Seat(1, 6), new Seat(1, 7), new Seat(1, 8));
+        assertThat(cinemaRoom.getNumberOfAvailableSeatsInRow(1)).isZero();
+        assertThat(cinemaRoom.getReservedSeats()).hasSize(6);
+        assertThat(cinemaRoom.getAvailableSeats()).hasSize(18);
+    }
+
+    @Test
+    void seatByNumberAcrossAnAisleIsRejected() {
+        // operate
+        ReservationAttempt acrossAisle = cinemaRoom.tryReserveSeatByNumber(1, 3, 2);
+        ReservationAttempt pastShortRow = cinemaRoom.tryReserveSeatByNumber(4, 4, 2);
+
+        // test
+        assertThat(acrossAisle.getRejectionReason()).isEqualTo(RejectionReason.INVALID_SEAT);
+        assertThat(pastShortRow.getRejectionReason()).isEqualTo(RejectionReason.INVALID_SEAT);
+        assertThatThrownBy(() -> cinemaRoom.reserveSeatByNumber(1, 4, 1))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+        assertThat(cinemaRoom.getNumberOfAvailableSeats()).isEqualTo(24);
+    }
+
+    @Test
+    void fullRoomHasNoSeatsLeft() {
+        // build
+        int[][] runs = {{1, 1, 3}, {1, 6, 3}, {2, 1, 8}, {3, 1, 3}, {3, 6, 3}, {4, 1, 4}};
+
+        // operate
+        for (int[] run : runs) {
+            cinemaRoom.reserveSeatByNumber(run[0], run[1], run[2]);
+        }
+
+        // test
+        assertThat(cinemaRoom.getNumberOfAvailableSeats()).isZero();
+        assertThat(cinemaRoom.getAvailableSeats()).isEmpty();
+        assertThat(cinemaRoom.getReservedSeats()).hasSize(24);
+        assertThat(cinemaRoom.getLongestFreeRun()).isZero();
+        assertThat(cinemaRoom.canSeatParty(1)).isFalse();
+        assertThat(cinemaRoom.getOccupancyGauges().getOccupancy()).isEqualTo(1.0);
+    }
+
+    @Test
+    void cancelledSeatsBecomeAvailableAgain() {
+        // build
+        Reservation reservation = cinemaRoom.reserveSeatByNumber(3, 6, 3);
+
+        // operate
+        cinemaRoom.cancelReservation(reservation.getId());
+
+        // test
+        assertThat(cinemaRoom.getNumberOfAvailableSeats()).isEqualTo(24);
+        assertThat(cinemaRoom.getFreeRunHistogram()).containsExactly(RoomLayout.fromPlan(
+                "SSS..SSS", "SSSSSSSS", "WSS..SSW", "SSSS").freeRunsInEmptyRoom());
+    }
+
+    @Test
+    void releaseOverAnAisleFails() {
+        // build
+        cinemaRoom.reserveSeatByNumber(1, 1, 3);
+        cinemaRoom.reserveSeatByNumber(1, 6, 3);
+
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.releaseSeats(1, 1, 8))
+                .isInstanceOf(ReservationNotFoundException.class);
+        assertThat(cinemaRoom.getReservedSeats()).hasSize(6);
+    }
+
+    @Test
+    void samePlanSharesOneLayout() {
+        // operate
+        RoomLayout samePlan = RoomLayout.fromPlan("SSS..SSS", "SSSSSSSS", "WSS..SSW", "SSSS");
+
+        // test
+        assertThat(samePlan).isSameAs(layout);
+    }
+
+    @Test
+    void equalPlanStillInUseIsHandedOutAgain() {
+        // operate
+        RoomLayout samePlan = RoomLayout.fromPlan("SSS..SSS", "SSSSSSSS", "WSS..SSW", "SSSS");
+
+        // test
+        assertThat(samePlan).isSameAs(layout);
+        assertThat(RoomLayout.fromPlan("SSS..SSS", "SSSSSSSS", "WSS..SSW", "SSSSS")).isNotSameAs(layout);
+    }
+
+    @Test
+    void invalidPlansAreRejected() {
+        // operate + test
+        assertThatThrownBy(() -> RoomLayout.fromPlan("SSXSS"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown position 'X' in row 1");
+        assertThatThrownBy(() -> RoomLayout.fromPlan("...", ".."))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("A plan needs at least one seat");
+        assertThatThrownBy(RoomLayout::fromPlan)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("A plan needs at least one seat");
+    }
+}
@@ -0,0 +1,126 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomMetricsTest {
+
+    private CinemaRoom cinemaRoom;
+    private InMemoryMetricsReporter reporter;
+
+    @BeforeEach
+    void setUp() {
+        cinemaRoom = new CinemaRoom("The Dark Knight", 5, 10);
+        reporter = new InMemoryMetricsReporter();
+    }
+
+    @Test
+    void everyReservationIsTimed() {
+        // operate
+        cinemaRoom.reserveConsecutiveSeats(4);
+        cinemaRoom.reserveConsecutiveSeats(2);
+        cinemaRoom.reserveSeatByNumber(3, 1, 5);
+
+        // test
+        ReservationMetrics metrics = cinemaRoom.getMetrics();
+        assertThat(metrics.getConsecutiveSeatsLatency().getCount()).isEqualTo(2);
+        assertThat(metrics.getSeatByNumberLatency().getCount()).isEqualTo(1);
+        assertThat(metrics.getConsecutiveSeatsLatency().getMax()).isPositive();
+        assertThat(metrics.getRowsScanned().getMax()).isEqualTo(1);
+        assertThat(metrics.getRejections()).isZero();
+    }
+
+    @Test
+    void rejectionsAreCountedByPartySize() {
+        // build
+        cinemaRoom.reserveSeatByNumber(1, 1, 5);
+
+        // operate
+        assertThatThrownBy(() -> cinemaRoom.reserveSeatByNumber(1, 3, 2)).isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+        assertThatThrownBy(() -> cinemaRoom.reserveConsecutiveSeats(11)).isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+        assertThatThrownBy(() -> cinemaRoom.reserveConsecutiveSeats(11)).isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+        assertThatThrownBy(() -> cinemaRoom.reserveConsecutiveSeats(0)).isInstanceOf(IllegalArgumentException.class);
+
+        // test
+        ReservationMetrics metrics = cinemaRoom.getMetrics();
+        assertThat(metrics.getRejections(2)).isEqualTo(1);
+        assertThat(metrics.getRejections(11)).isEqualTo(2);
+        assertThat(metrics.getRejections(5)).isZero();
+        assertThat(metrics.getRejections()).isEqualTo(3);
+        assertThat(metrics.getSeatByNumberLatency().getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void occupancyGaugesDescribeTheRoom() {
+        // build
+        for (int row = 1; row <= 5; row++) {
+            cinemaRoom.reserveSeatByNumber(row, 2, 1);
+            cinemaRoom.reserveSeatByNumber(row, 6, 1);
+        }
+
+        // operate
+        cinemaRoom.reportMetrics(reporter);
+
+        // test
+        OccupancyGauges gauges = reporter.getOccupancy("The Dark Knight");
+        assertThat(gauges.getReservedSeats()).isEqualTo(10);
+        assertThat(gauges.getAvailableSeats()).isEqualTo(40);
+        assertThat(gauges.getOccupancy()).isEqualTo(0.2);
+        assertThat(gauges.getLongestFreeRun()).isEqualTo(4);
+        // per row 8 free seats of which the longest block holds 4
+        assertThat(gauges.getFragmentation()).isEqualTo(0.5);
+        assertThat(reporter.getReservationMetrics()).isSameAs(cinemaRoom.getMetrics());
+    }
+
+    @Test
+    void emptyRoomIsNotFragmented() {
+        // operate
+        OccupancyGauges gauges = cinemaRoom.getOccupancyGauges();
+
+        // test
+        assertThat(gauges.getAvailableSeats()).isEqualTo(50);
+        assertThat(gauges.getLongestFreeRun()).isEqualTo(10);
+        assertThat(gauges.getFragmentation()).isZero();
+    }
+
+    @Test
+    void screeningsOfACatalogShareTheirMetrics() {
+        // build
+        ShowtimeCatalog catalog = new ShowtimeCatalog(4, Clock.systemUTC());
+        catalog.addAuditorium("Zaal 1", RoomLayout.rectangular(5, 10));
+        catalog.addScreening(1, "Zaal 1", "The Dark Knight").reserveConsecutiveSeats(3);
+        catalog.addScreening(2, "Zaal 1", "Inception").reserveConsecutiveSeats(3);
+
+        // operate
+        catalog.reportMetrics(reporter);
+
+        // test
+        assertThat(reporter.getReservationMetrics()).isSameAs(catalog.getMetrics());
+        assertThat(catalog.getMetrics().getConsecutiveSeatsLatency().getCount()).isEqualTo(2);
+        assertThat(reporter.getReportedScreenings()).containsExactlyInAnyOrder("1", "2");
+        assertThat(reporter.getOccupancy("2").getReservedSeats()).isEqualTo(3);
+    }
+
+    @Test
+    void histogramPercentilesStayWithinTheBucketPrecision() {
+        // build
+        Histogram histogram = new Histogram();
+
+        // operate
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        // test
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat(histogram.getMax()).isEqualTo(100_000);
+        assertThat(histogram.getMean()).isCloseTo(50_000.5, withinPercentage(1));
+        assertThat(histogram.getValueAtPercentile(50)).isBetween(50_000L, 53_125L);
+        assertThat(histogram.getValueAtPercentile(99)).isBetween(99_000L, 100_000L);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100_000);
+    }
+}
@@ -0,0 +1,327 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomOffloadTest {
+
+    @TempDir
+    Path directory;
+
+    private ShowtimeCatalog catalog;
+    private OffHeapOccupancyStore store;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ShowtimeCatalog(4, Clock.systemUTC());
+        catalog.addAuditorium("Zaal 1", RoomLayout.rectangular(5, 10));
+        catalog.addAuditorium("Zaal 2", RoomLayout.rectangular(3, 70));
+        catalog.addScreening(1, "Zaal 1", "The Dark Knight");
+        catalog.addScreening(2, "Zaal 2", "Inception");
+        store = new OffHeapOccupancyStore(4096);
+    }
+
+    @Test
+    void screeningIsOnlyOffloadedWhenNothingChangedSinceThePreviousSweep() {
+        // build
+        CinemaRoom screening = catalog.getScreening(1);
+        screening.reserveConsecutiveSeats(4);
+
+        // operate
+        int firstSweep = catalog.offloadIdleScreenings(store);
+        screening.reserveConsecutiveSeats(2);
+        int secondSweep = catalog.offloadIdleScreenings(store);
+        int thirdSweep = catalog.offloadIdleScreenings(store);
+
+        // test
+        assertThat(firstSweep).isZero();
+        assertThat(secondSweep).isZero();
+        assertThat(thirdSweep).isEqualTo(1);
+        assertThat(store.getNumberOfStoredRooms()).isEqualTo(1);
+        assertThat(store.getUsedBytes()).isPositive();
+        assertThat(store.getAllocatedBytes()).isEqualTo(4096);
+    }
+
+    @Test
+    void offloadedScreeningLoadsTheSameSeatsAndContinuesBooking() {
+        // build
+        CinemaRoom screening = catalog.getScreening(2);
+        screening.reserveSeatByNumber(1, 60, 11);
+        screening.reserveConsecutiveSeats(30);
+        List<Seat> reservedSeats = screening.getReservedSeats();
+        int[] histogram = screening.getFreeRunHistogram();
+        offloadTwice();
+
+        // operate
+        Reservation seats = screening.reserveConsecutiveSeats(3);
+
+        // test
+        assertThat(store.getNumberOfStoredRooms()).isZero();
+        assertThat(store.getUsedBytes()).isZero();
+        assertThat(seats).containsExactly(new Seat(1, 31), new Seat(1, 32), new Seat(1, 33));
+        assertThat(screening.getReservedSeats()).hasSize(44).containsAll(reservedSeats);
+        screening.cancelReservation(seats.getId());
+        assertThat(screening.getFreeRunHistogram()).containsExactly(histogram);
+    }
+
+    @Test
+    void reservationFromBeforeTheOffloadCanStillBeCancelled() {
+        // build
+        CinemaRoom screening = catalog.getScreening(1);
+        Reservation reservation = screening.reserveSeatByNumber(3, 2, 5);
+        offloadTwice();
+
+        // operate
+        screening.cancelReservation(reservation.getId());
+        Reservation next = screening.reserveSeatByNumber(3, 2, 5);
+
+        // test
+        assertThat(screening.getNumberOfAvailableSeats()).isEqualTo(45);
+        assertThat(next.getId()).isNotEqualTo(reservation.getId());
+        assertThatThrownBy(() -> screening.cancelReservation(reservation.getId()))
+                .isInstanceOf(ReservationNotFoundException.class);
+    }
+
+    @Test
+    void heldSeatsKeepTheScreeningOnTheHeap() {
+        // build
+        CinemaRoom screening = catalog.getScreening(1);
+        catalog.getScreening(2).reserveConsecutiveSeats(1);
+        screening.holdConsecutiveSeats(2, Duration.ofMinutes(10));
+
+        // operate
+        catalog.offloadIdleScreenings(store);
+        int offloaded = catalog.offloadIdleScreenings(store);
+
+        // test
+        assertThat(offloaded).isEqualTo(1);
+        assertThat(screening.getOccupancyGauges().getHeldSeats()).isEqualTo(2);
+    }
+
+    @Test
+    void gaugesAndSnapshotsReadAnOffloadedScreeningWithoutLoadingIt() {
+        // build
+        catalog.getScreening(1).reserveConsecutiveSeats(8);
+        catalog.getScreening(2).reserveSeatByNumber(2, 60, 11);
+        offloadTwice();
+        Path snapshotFile = directory.resolve("catalog.snapshot");
+
+        // operate
+        OccupancyGauges gauges = catalog.getScreening(1).getOccupancyGauges();
+        CatalogSnapshot.write(catalog, snapshotFile);
+        ShowtimeCatalog loadedCatalog = CatalogSnapshot.load(snapshotFile);
+
+        // test
+        assertThat(gauges.getReservedSeats()).isEqualTo(8);
+        assertThat(gauges.getLongestFreeRun()).isEqualTo(10);
+        assertThat(store.getNumberOfStoredRooms()).isEqualTo(2);
+        assertThat(loadedCatalog.getScreening(2).getReservedSeats())
+                .containsExactlyElementsOf(catalog.getScreening(2).getReservedSeats());
+        assertThat(loadedCatalog.getScreening(1).getNumberOfAvailableSeats()).isEqualTo(42);
+    }
+
+    @Test
+    void emptyScreeningTakesNoSlot() {
+        // build
+        catalog.getScreening(1).getNumberOfAvailableSeats();
+
+        // operate
+        offloadTwice();
+
+        // test
+        assertThat(store.getNumberOfStoredRooms()).isZero();
+        assertThat(catalog.getScreening(1).reserveConsecutiveSeats(2)).containsExactly(new Seat(1, 1), new Seat(1, 2));
+    }
+
+    @Test
+    void removedScreeningFreesItsSlotForTheNextScreening() {
+        // build
+        catalog.getScreening(1).reserveConsecutiveSeats(4);
+        catalog.addScreening(3, "Zaal 1", "Oppenheimer").reserveConsecutiveSeats(6);
+        offloadTwice();
+        long usedBytes = store.getUsedBytes();
+
+        // operate
+        catalog.removeScreening(1);
+        catalog.addScreening(4, "Zaal 1", "Barbie").reserveConsecutiveSeats(1);
+        offloadTwice();
+
+        // test
+        assertThat(store.getNumberOfStoredRooms()).isEqualTo(2);
+        assertThat(store.getUsedBytes()).isEqualTo(usedBytes);
+        assertThat(store.getAllocatedBytes()).isEqualTo(4096);
+        assertThat(catalog.getScreening(3).getReservedSeats()).hasSize(6);
+        assertThat(catalog.getScreening(4).getReservedSeats()).containsExactly(new Seat(1, 1));
+    }
+
+    @Test
+    void seatCategoriesSurviveTheOffload() {
+        // build
+        catalog.addAuditorium("Balkon", RoomLayout.fromPlan("SSPPPPSS", "LL....LL", "WSSSSSSW"));
+        CinemaRoom screening = catalog.addScreening(3, "Balkon", "Perfect Days");
+        screening.reserveConsecutiveSeats(3, SeatCategory.PREMIUM);
+        screening.reserveConsecutiveSeats(1, SeatCategory.ACCESSIBLE);
+        offloadTwice();
+
+        // operate
+        ReservationAttempt premium = screening.tryReserveConsecutiveSeats(2, SeatCategory.PREMIUM);
+
+        // test
+        assertThat(premium.getRejectionReason()).isEqualTo(RejectionReason.NO_FREE_RUN);
+        assertThat(screening.getNumberOfAvailableSeats(SeatCategory.PREMIUM)).isEqualTo(1);
+        assertThat(screening.getNumberOfAvailableSeats(SeatCategory.ACCESSIBLE)).isEqualTo(1);
+        assertThat(screening.getNumberOfAvailableSeats()).isEqualTo(16);
+        assertThat(screening.getLongestFreeRun()).isEqualTo(7);
+    }
+
+    @Test
+    void roomLargerThanASlabGetsASlabOfItsOwn() {
+        // build
+        catalog.addAuditorium("Zaal 3", RoomLayout.rectangular(40, 100));
+        CinemaRoom largeScreening = catalog.addScreening(3, "Zaal 3", "Barbie");
+        for (int rowNumber = 1; rowNumber <= 40; rowNumber++) {
+            largeScreening.reserveSeatByNumber(rowNumber, 91, 10);
+        }
+        catalog.getScreening(1).reserveConsecutiveSeats(1);
+
+        // operate
+        offloadTwice();
+
+        // test
+        assertThat(store.getAllocatedBytes()).isGreaterThan(4096 + 40 * 100 * Integer.BYTES);
+        assertThat(largeScreening.getReservedSeats()).hasSize(400).contains(new Seat(40, 100));
+        assertThat(catalog.getScreening(1).getReservedSeats()).containsExactly(new Seat(1, 1));
+    }
+
+    @Test
+    void onlyRowsWithReservationsStoreTheirOwners() {
+        // build
+        catalog.addAuditorium("Zaal 3", RoomLayout.rectangular(40, 100));
+        CinemaRoom screening = catalog.addScreening(3, "Zaal 3", "Barbie");
+        Reservation reservation = screening.reserveSeatByNumber(40, 91, 10);
+
+        // operate
+        offloadTwice();
+        long usedBytes = store.getUsedBytes();
+        screening.cancelReservation(reservation.getId());
+
+        // test
+        assertThat(usedBytes).isLessThan(40 * 100 * Integer.BYTES / 8);
+        assertThat(screening.getReservedSeats()).isEmpty();
+    }
+
+    @Test
+    void slabIsGivenBackOnceItsLastScreeningIsRemoved() {
+        // build
+        catalog.addAuditorium("Zaal 3", RoomLayout.rectangular(40, 100));
+        CinemaRoom largeScreening = catalog.addScreening(3, "Zaal 3", "Barbie");
+        for (int rowNumber = 1; rowNumber <= 40; rowNumber++) {
+            largeScreening.reserveSeatByNumber(rowNumber, 1, 1);
+        }
+        catalog.getScreening(1).reserveConsecutiveSeats(1);
+        offloadTwice();
+        long allocatedBytes = store.getAllocatedBytes();
+
+        // operate
+        catalog.removeScreening(3);
+
+        // test
+        assertThat(allocatedBytes).isGreaterThan(4096);
+        assertThat(store.getAllocatedBytes()).isEqualTo(4096);
+        assertThat(store.getNumberOfStoredRooms()).isEqualTo(1);
+        assertThat(catalog.getScreening(1).getReservedSeats()).containsExactly(new Seat(1, 1));
+    }
+
+    @Test
+    void removedScreeningIsNotLoadedToFreeItsSlot() {
+        // build
+        CinemaRoom screening = catalog.getScreening(1);
+        Reservation reservation = screening.reserveConsecutiveSeats(4);
+        offloadTwice();
+
+        // operate
+        catalog.removeScreening(1);
+
+        // test
+        assertThat(store.getNumberOfStoredRooms()).isZero();
+        assertThat(screening.getOccupancyGauges().getReservedSeats()).isZero();
+        assertThat(Reservation.sequence(screening.reserveConsecutiveSeats(1).getId()))
+                .isGreaterThan(Reservation.sequence(reservation.getId()));
+    }
+
+    @Test
+    void slabSizeMustHoldALong() {
+        // operate + test
+        assertThatThrownBy(() -> new OffHeapOccupancyStore(4))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Slab size must be at least 8 bytes");
+    }
+
+    @RepeatedTest(5)
+    void noReservationIsLostWhileScreeningsAreOffloaded() throws Exception {
+        // build
+        AtomicBoolean booking = new AtomicBoolean(true);
+        List<Future<List<Seat>>> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        // operate
+        try {
+            for (int thread = 0; thread < 4; thread++) {
+                long showtimeId = 1 + thread % 2;
+                results.add(executor.submit(() -> {
+                    List<Seat> soldSeats = new ArrayList<>();
+                    CinemaRoom screening = catalog.getScreening(showtimeId);
+                    for (int attempt = 0; attempt < 200; attempt++) {
+                        ReservationAttempt reservation = screening.tryReserveConsecutiveSeats(1);
+                        if (reservation.isSuccessful()) {
+                            soldSeats.addAll(reservation.getReservation());
+                        }
+                        Thread.onSpinWait();
+                    }
+                    return soldSeats;
+                }));
+            }
+            Future<?> sweeper = executor.submit(() -> {
+                while (booking.get()) {
+                    catalog.offloadIdleScreenings(store);
+                }
+            });
+            for (Future<List<Seat>> result : results) {
+                result.get();
+            }
+            booking.set(false);
+            sweeper.get();
+
+            // test
+            for (int thread = 0; thread < 2; thread++) {
+                List<Seat> soldSeats = new ArrayList<>(results.get(thread).get());
+                soldSeats.addAll(results.get(thread + 2).get());
+                List<Seat> reservedSeats = catalog.getScreening(1 + thread).getReservedSeats();
+                assertThat(new HashSet<>(soldSeats)).hasSameSizeAs(soldSeats).isEqualTo(new HashSet<>(reservedSeats));
+                assertThat(reservedSeats).hasSize(thread == 0 ? 50 : 210);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void offloadTwice() {
+        catalog.offloadIdleScreenings(store);
+        catalog.offloadIdleScreenings(store);
+    }
+}
@@ -0,0 +1,129 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomSeatCategoryTest {
+
+    private RoomLayout layout;
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        layout = RoomLayout.fromPlan(
+                "SSPPPPSS",
+                "SSPPPPSS",
+                "LL....LL",
+                "WSSSSSSW");
+        cinemaRoom = new CinemaRoom("Dune: Part Two", layout);
+    }
+
+    @Test
+    void layoutKnowsTheCategoryOfEverySeat() {
+        // test
+        assertThat(layout.getCategory(1, 1)).isEqualTo(SeatCategory.STANDARD);
+        assertThat(layout.getCategory(1, 3)).isEqualTo(SeatCategory.PREMIUM);
+        assertThat(layout.getCategory(3, 2)).isEqualTo(SeatCategory.LOVE_SEAT);
+        assertThat(layout.getCategory(3, 3)).isNull();
+        assertThat(layout.getCategory(4, 8)).isEqualTo(SeatCategory.ACCESSIBLE);
+        assertThat(layout.isWheelchairSpace(4, 1)).isTrue();
+        assertThat(layout.getNumberOfSeats(SeatCategory.STANDARD)).isEqualTo(14);
+        assertThat(layout.getNumberOfSeats(SeatCategory.PREMIUM)).isEqualTo(8);
+        assertThat(layout.getNumberOfSeats(SeatCategory.LOVE_SEAT)).isEqualTo(4);
+        assertThat(layout.getNumberOfSeats(SeatCategory.ACCESSIBLE)).isEqualTo(2);
+    }
+
+    @Test
+    void emptyRoomCountsEveryCategory() {
+        // test
+        assertThat(cinemaRoom.getNumberOfAvailableSeats(SeatCategory.PREMIUM)).isEqualTo(8);
+        assertThat(cinemaRoom.getNumberOfAvailableSeats(SeatCategory.ACCESSIBLE)).isEqualTo(2);
+        assertThat(cinemaRoom.getLongestFreeRun(SeatCategory.PREMIUM)).isEqualTo(4);
+        assertThat(cinemaRoom.getLongestFreeRun(SeatCategory.LOVE_SEAT)).isEqualTo(2);
+        assertThat(cinemaRoom.getLongestFreeRun(SeatCategory.STANDARD)).isEqualTo(6);
+    }
+
+    @Test
+    void consecutiveSeatsStayInTheirCategory() {
+        // operate
+        Reservation first = cinemaRoom.reserveConsecutiveSeats(3, SeatCategory.PREMIUM);
+        Reservation second = cinemaRoom.reserveConsecutiveSeats(2, SeatCategory.PREMIUM);
+
+        // test
+        assertThat(first).containsExactly(new Seat(1, 3), new Seat(1, 4), new Seat(1, 5));
+        assertThat(second).containsExactly(new Seat(2, 3), new Seat(2, 4));
+        assertThat(cinemaRoom.getNumberOfAvailableSeats(SeatCategory.PREMIUM)).isEqualTo(3);
+        assertThat(cinemaRoom.getNumberOfAvailableSeats(SeatCategory.STANDARD)).isEqualTo(14);
+        assertThat(cinemaRoom.getLongestFreeRun(SeatCategory.PREMIUM)).isEqualTo(2);
+    }
+
+    @Test
+    void categoryRunNeverBorrowsOtherSeats() {
+        // operate
+        ReservationAttempt attempt = cinemaRoom.tryReserveConsecutiveSeats(5, SeatCategory.PREMIUM);
+
+        // test
+        assertThat(attempt.getRejectionReason()).isEqualTo(RejectionReason.NO_FREE_RUN);
+        assertThat(cinemaRoom.reserveConsecutiveSeats(5)).containsExactly(
+                new Seat(1, 1), new Seat(1, 2), new Seat(1, 3), new Seat(1, 4), new Seat(1, 5));
+    }
+
+    @Test
+    void bookingsWithoutCategoryUpdateTheCategoryCounts() {
+        // operate
+        cinemaRoom.reserveSeatByNumber(1, 1, 8);
+        cinemaRoom.holdSeatByNumber(3, 7, 2, Duration.ofMinutes(10));
+
+        // test
+        assertThat(cinemaRoom.getNumberOfAvailableSeats(SeatCategory.PREMIUM)).isEqualTo(4);
+        assertThat(cinemaRoom.getNumberOfAvailableSeats(SeatCategory.STANDARD)).isEqualTo(10);
+        assertThat(cinemaRoom.getNumberOfAvailableSeats(SeatCategory.LOVE_SEAT)).isEqualTo(2);
+        assertThat(cinemaRoom.reserveConsecutiveSeats(4, SeatCategory.PREMIUM))
+                .containsExactly(new Seat(2, 3), new Seat(2, 4), new Seat(2, 5), new Seat(2, 6));
+    }
+
+    @Test
+    void lastAccessibleSeatsAreCountedDown() {
+        // build
+        Reservation first = cinemaRoom.reserveConsecutiveSeats(1, SeatCategory.ACCESSIBLE);
+        cinemaRoom.reserveConsecutiveSeats(1, SeatCategory.ACCESSIBLE);
+
+        // operate
+        ReservationAttempt soldOut = cinemaRoom.tryReserveConsecutiveSeats(1, SeatCategory.ACCESSIBLE);
+        cinemaRoom.cancelReservation(first.getId());
+
+        // test
+        assertThat(soldOut.getRejectionReason()).isEqualTo(RejectionReason.NO_FREE_RUN);
+        assertThat(cinemaRoom.getNumberOfAvailableSeats(SeatCategory.ACCESSIBLE)).isEqualTo(1);
+        assertThat(cinemaRoom.reserveConsecutiveSeats(1, SeatCategory.ACCESSIBLE)).containsExactly(new Seat(4, 1));
+    }
+
+    @Test
+    void rectangularRoomOnlyHasStandardSeats() {
+        // build
+        CinemaRoom rectangularRoom = new CinemaRoom("Dune: Part Two", 3, 8);
+
+        // operate
+        Reservation reservation = rectangularRoom.reserveConsecutiveSeats(4, SeatCategory.STANDARD);
+
+        // test
+        assertThat(reservation).containsExactly(new Seat(1, 1), new Seat(1, 2), new Seat(1, 3), new Seat(1, 4));
+        assertThat(rectangularRoom.getNumberOfAvailableSeats(SeatCategory.STANDARD)).isEqualTo(20);
+        assertThat(rectangularRoom.getNumberOfAvailableSeats(SeatCategory.PREMIUM)).isZero();
+        assertThat(rectangularRoom.getLongestFreeRun(SeatCategory.PREMIUM)).isZero();
+        assertThatThrownBy(() -> rectangularRoom.reserveConsecutiveSeats(1, SeatCategory.PREMIUM))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+    }
+
+    @Test
+    void categoryMustBeGiven() {
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.reserveConsecutiveSeats(2, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Seat category must not be null");
+    }
+}
@@ -0,0 +1,208 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static be.vives.ti.ReservationRequest.seatByNumber;
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomSnapshotTest {
+
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        cinemaRoom = new CinemaRoom("Past Lives", 5, 10);
+    }
+
+    @Test
+    void emptyRoomShowsEverySeatAvailable() {
+        // operate
+        SeatMapSnapshot seatMap = cinemaRoom.snapshot();
+
+        // test
+        assertThat(seatMap.getVersion()).isZero();
+        assertThat(seatMap.getNumberOfAvailableSeats()).isEqualTo(50);
+        assertThat(seatMap.getAvailableSeats()).hasSize(50).first().isEqualTo(new Seat(1, 1));
+        assertThat(seatMap.getReservedSeats()).isEmpty();
+        assertThat(seatMap.getState(5, 10)).isEqualTo(SeatState.AVAILABLE);
+    }
+
+    @Test
+    void snapshotShowsReservedAndHeldSeats() {
+        // build
+        cinemaRoom.reserveSeatByNumber(2, 3, 4);
+        cinemaRoom.holdSeatByNumber(4, 9, 2, Duration.ofMinutes(10));
+
+        // operate
+        SeatMapSnapshot seatMap = cinemaRoom.snapshot();
+
+        // test
+        assertThat(seatMap.getVersion()).isEqualTo(2);
+        assertThat(seatMap.getState(2, 3)).isEqualTo(SeatState.RESERVED);
+        assertThat(seatMap.getState(2, 7)).isEqualTo(SeatState.AVAILABLE);
+        assertThat(seatMap.getState(4, 10)).isEqualTo(SeatState.HELD);
+        assertThat(seatMap.getReservedSeats()).containsExactly(new Seat(2, 3), new Seat(2, 4), new Seat(2, 5), new Seat(2, 6));
+        assertThat(seatMap.getHeldSeats()).containsExactly(new Seat(4, 9), new Seat(4, 10));
+        assertThat(seatMap.getNumberOfAvailableSeats()).isEqualTo(44);
+        assertThat(seatMap.getNumberOfAvailableSeatsInRow(4)).isEqualTo(8);
+        assertThat(seatMap.getAvailableSeats()).containsExactlyElementsOf(cinemaRoom.getAvailableSeats());
+    }
+
+    @Test
+    void snapshotNeverChangesAfterItWasTaken() {
+        // build
+        Reservation reservation = cinemaRoom.reserveSeatByNumber(1, 1, 2);
+        SeatMapSnapshot before = cinemaRoom.snapshot();
+
+        // operate
+        cinemaRoom.cancelReservation(reservation.getId());
+        cinemaRoom.reserveSeatByNumber(3, 5, 3);
+        SeatMapSnapshot after = cinemaRoom.snapshot();
+
+        // test
+        assertThat(before.getReservedSeats()).containsExactly(new Seat(1, 1), new Seat(1, 2));
+        assertThat(before.getState(3, 5)).isEqualTo(SeatState.AVAILABLE);
+        assertThat(after.getReservedSeats()).containsExactly(new Seat(3, 5), new Seat(3, 6), new Seat(3, 7));
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 2);
+        assertThat(cinemaRoom.snapshot().getVersion()).isEqualTo(after.getVersion());
+    }
+
+    @Test
+    void confirmedHoldIsANewVersion() {
+        // build
+        SeatHold hold = cinemaRoom.holdConsecutiveSeats(3, Duration.ofMinutes(10));
+        SeatMapSnapshot held = cinemaRoom.snapshot();
+
+        // operate
+        cinemaRoom.confirm(hold.getId());
+        SeatMapSnapshot confirmed = cinemaRoom.snapshot();
+
+        // test
+        assertThat(held.getState(1, 2)).isEqualTo(SeatState.HELD);
+        assertThat(confirmed.getState(1, 2)).isEqualTo(SeatState.RESERVED);
+        assertThat(confirmed.getHeldSeats()).isEmpty();
+        assertThat(confirmed.getVersion()).isGreaterThan(held.getVersion());
+    }
+
+    @Test
+    void irregularRoomOnlyShowsSeats() {
+        // build
+        CinemaRoom irregularRoom = new CinemaRoom("Past Lives", RoomLayout.fromPlan("SS..SS", "SSSS"));
+        irregularRoom.reserveSeatByNumber(1, 5, 2);
+
+        // operate
+        SeatMapSnapshot seatMap = irregularRoom.snapshot();
+
+        // test
+        assertThat(seatMap.getNumberOfAvailableSeats()).isEqualTo(6);
+        assertThat(seatMap.getNumberOfAvailableSeatsInRow(1)).isEqualTo(2);
+        assertThat(seatMap.getAvailableSeats()).doesNotContain(new Seat(1, 3), new Seat(2, 5));
+        assertThat(seatMap.getReservedSeats()).containsExactly(new Seat(1, 5), new Seat(1, 6));
+        assertThatThrownBy(() -> seatMap.getState(1, 3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("There is no seat 3 in row 1");
+        assertThatThrownBy(() -> seatMap.getNumberOfAvailableSeatsInRow(3))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Rownumber must be between 1 and 2");
+    }
+
+    @Test
+    void offloadedScreeningIsReadWithoutLoadingIt() {
+        // build
+        ShowtimeCatalog catalog = new ShowtimeCatalog(4, Clock.systemUTC());
+        catalog.addAuditorium("Zaal 1", RoomLayout.rectangular(5, 10));
+        CinemaRoom screening = catalog.addScreening(1, "Zaal 1", "Past Lives");
+        screening.reserveSeatByNumber(5, 1, 10);
+        long version = screening.snapshot().getVersion();
+        OffHeapOccupancyStore store = new OffHeapOccupancyStore(4096);
+        catalog.offloadIdleScreenings(store);
+        catalog.offloadIdleScreenings(store);
+
+        // operate
+        SeatMapSnapshot seatMap = screening.snapshot();
+
+        // test
+        assertThat(store.getNumberOfStoredRooms()).isEqualTo(1);
+        assertThat(seatMap.getVersion()).isEqualTo(version);
+        assertThat(seatMap.getNumberOfAvailableSeatsInRow(5)).isZero();
+        screening.reserveSeatByNumber(1, 1, 1);
+        assertThat(screening.snapshot().getVersion()).isEqualTo(version + 1);
+    }
+
+    @RepeatedTest(5)
+    void readersNeverSeeHalfABatch() throws Exception {
+        // build
+        CinemaRoom bigRoom = new CinemaRoom("Past Lives", 20, 50);
+        AtomicBoolean booking = new AtomicBoolean(true);
+        CountDownLatch readersStarted = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+
+        // operate
+        try {
+            List<Future<?>> bookers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                Random random = new Random(thread);
+                bookers.add(executor.submit(() -> {
+                    readersStarted.await();
+                    for (int attempt = 0; attempt < 5_000; attempt++) {
+                        int rowNumber = 1 + random.nextInt(10);
+                        int seatNumber = 1 + random.nextInt(50);
+                        // a seat in the front half always comes with the same seat ten rows further
+                        bigRoom.reserveBatch(List.of(seatByNumber(rowNumber, seatNumber, 1), seatByNumber(rowNumber + 10, seatNumber, 1)), true);
+                        if (random.nextInt(4) == 0) {
+                            // a front seat on its own changes a single row without breaking the rule
+                            bigRoom.tryReserveSeatByNumber(rowNumber, 1 + random.nextInt(50), 1);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            List<Future<?>> readers = new ArrayList<>();
+            for (int thread = 0; thread < 2; thread++) {
+                readers.add(executor.submit(() -> {
+                    long lastVersion = -1;
+                    while (booking.get()) {
+                        SeatMapSnapshot seatMap = bigRoom.snapshot();
+                        assertThat(seatMap.getVersion()).isGreaterThanOrEqualTo(lastVersion);
+                        lastVersion = seatMap.getVersion();
+                        for (int rowNumber = 11; rowNumber <= 20; rowNumber++) {
+                            for (int seatNumber = 1; seatNumber <= 50; seatNumber++) {
+                                if (seatMap.getState(rowNumber, seatNumber) == SeatState.RESERVED) {
+                                    assertThat(seatMap.getState(rowNumber - 10, seatNumber)).isEqualTo(SeatState.RESERVED);
+                                }
+                            }
+                        }
+                        readersStarted.countDown();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> booker : bookers) {
+                booker.get();
+            }
+            booking.set(false);
+
+            // test
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+            SeatMapSnapshot seatMap = bigRoom.snapshot();
+            assertThat(seatMap.getReservedSeats()).containsExactlyElementsOf(bigRoom.getReservedSeats());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
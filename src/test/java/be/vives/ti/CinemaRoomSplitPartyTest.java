@@ -0,0 +1,119 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomSplitPartyTest {
+
+    @Test
+    void partyThatFitsInOneRowIsNotSplit() {
+        // build
+        CinemaRoom cinemaRoom = new CinemaRoom("Barbie", 3, 10);
+
+        // operate
+        List<Reservation> reservations = cinemaRoom.reserveSeatsAllowingSplit(4);
+
+        // test
+        assertThat(reservations).hasSize(1);
+        assertThat(reservations.get(0)).containsExactly(new Seat(1, 1), new Seat(1, 2), new Seat(1, 3), new Seat(1, 4));
+    }
+
+    @Test
+    void partyLargerThanARowSitsInTheSameColumnsOfAdjacentRows() {
+        // build
+        CinemaRoom cinemaRoom = new CinemaRoom("Barbie", 3, 5);
+
+        // operate
+        List<Reservation> reservations = cinemaRoom.reserveSeatsAllowingSplit(6);
+
+        // test
+        assertThat(reservations).hasSize(2);
+        assertThat(reservations.get(0)).containsExactly(new Seat(1, 1), new Seat(1, 2), new Seat(1, 3));
+        assertThat(reservations.get(1)).containsExactly(new Seat(2, 1), new Seat(2, 2), new Seat(2, 3));
+    }
+
+    @Test
+    void alignedBlocksArePreferredOverTheFrontRows() {
+        // build
+        CinemaRoom cinemaRoom = new CinemaRoom("Barbie", 4, 10);
+        cinemaRoom.reserveSeatByNumber(1, 1, 6);
+        cinemaRoom.reserveSeatByNumber(2, 5, 6);
+        cinemaRoom.reserveSeatByNumber(3, 1, 3);
+        cinemaRoom.reserveSeatByNumber(3, 8, 3);
+        cinemaRoom.reserveSeatByNumber(4, 1, 3);
+        cinemaRoom.reserveSeatByNumber(4, 8, 3);
+
+        // operate
+        List<Reservation> reservations = cinemaRoom.reserveSeatsAllowingSplit(8);
+
+        // test
+        assertThat(reservations).hasSize(2);
+        assertThat(reservations.get(0)).containsExactly(new Seat(3, 4), new Seat(3, 5), new Seat(3, 6), new Seat(3, 7));
+        assertThat(reservations.get(1)).containsExactly(new Seat(4, 4), new Seat(4, 5), new Seat(4, 6), new Seat(4, 7));
+    }
+
+    @Test
+    void unevenRunsInAdjacentRowsAreFilledAsTheyAllow() {
+        // build
+        CinemaRoom cinemaRoom = new CinemaRoom("Barbie", 2, 10);
+        cinemaRoom.reserveSeatByNumber(1, 6, 5);
+        cinemaRoom.reserveSeatByNumber(2, 1, 7);
+
+        // operate
+        List<Reservation> reservations = cinemaRoom.reserveSeatsAllowingSplit(8);
+
+        // test
+        assertThat(reservations).extracting(Reservation::size).containsExactly(5, 3);
+        assertThat(reservations.get(1)).containsExactly(new Seat(2, 8), new Seat(2, 9), new Seat(2, 10));
+        assertThat(cinemaRoom.getAvailableSeats()).isEmpty();
+    }
+
+    @Test
+    void fewestBlocksWinOverAdjacentRows() {
+        // build
+        CinemaRoom cinemaRoom = new CinemaRoom("Barbie", 3, 10);
+        cinemaRoom.reserveSeatByNumber(1, 5, 6);
+        cinemaRoom.reserveSeatByNumber(2, 1, 3);
+        cinemaRoom.reserveSeatByNumber(2, 6, 5);
+        cinemaRoom.reserveSeatByNumber(3, 5, 6);
+
+        // operate
+        List<Reservation> reservations = cinemaRoom.reserveSeatsAllowingSplit(8);
+
+        // test
+        assertThat(reservations).hasSize(2);
+        assertThat(reservations).allSatisfy(reservation -> assertThat(reservation).hasSize(4));
+        assertThat(reservations.get(0).get(0)).isEqualTo(new Seat(1, 1));
+        assertThat(reservations.get(1).get(0)).isEqualTo(new Seat(3, 1));
+    }
+
+    @Test
+    void blocksCanBeCancelledOneByOne() {
+        // build
+        CinemaRoom cinemaRoom = new CinemaRoom("Barbie", 3, 5);
+        List<Reservation> reservations = cinemaRoom.reserveSeatsAllowingSplit(7);
+
+        // operate
+        cinemaRoom.cancelReservation(reservations.get(1).getId());
+
+        // test
+        assertThat(cinemaRoom.getReservedSeats()).containsExactlyElementsOf(reservations.get(0));
+    }
+
+    @Test
+    void partyLargerThanTheFreeSeatsIsRejected() {
+        // build
+        CinemaRoom cinemaRoom = new CinemaRoom("Barbie", 2, 5);
+        cinemaRoom.reserveSeatByNumber(1, 2, 3);
+
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.reserveSeatsAllowingSplit(8))
+                .isInstanceOf(NotEnoughSeatsAvailableException.class)
+                .hasMessage("Not enough seats available for a party of 8");
+        assertThat(cinemaRoom.getReservedSeats()).hasSize(3);
+        assertThat(cinemaRoom.reserveSeatsAllowingSplit(7)).hasSize(3);
+    }
+}
@@ -3,6 +3,7 @@ package be.vives.ti;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -431,6 +432,18 @@ class CinemaRoomTest {
         assertThat(cinemaRoom.getReservedSeats()).isEmpty();
     }
 
+    @Test
+    void reserveBySeatNumber_HugeNumbersAreRejected() {
+        // operate + test
+        assertThatThrownBy(() -> cinemaRoom.reserveSeatByNumber(1, Integer.MAX_VALUE, 2))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+        assertThatThrownBy(() -> cinemaRoom.reserveSeatByNumber(1, 2, Integer.MAX_VALUE))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+        assertThatThrownBy(() -> cinemaRoom.holdSeatByNumber(1, Integer.MAX_VALUE, Integer.MAX_VALUE, Duration.ofMinutes(10)))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+    }
+
     @Test
     void startSeatIsNotAvailable() {
         // build
@@ -507,4 +520,82 @@ class CinemaRoomTest {
                 .hasMessageContaining("Number of seats must be greater than zero");
     }
 
-}
\ No newline at end of file
+    @Test
+    void availableAndReservedSeatsAreReadOnlyViews() {
+        List<Seat> availableSeats = cinemaRoom.getAvailableSeats();
+        List<Seat> reservedSeats = cinemaRoom.getReservedSeats();
+
+        cinemaRoom.reserveSeatByNumber(2, 4, 2);
+
+        assertThat(availableSeats).hasSize(48).doesNotContain(new Seat(2, 4), new Seat(2, 5));
+        assertThat(reservedSeats).containsExactly(new Seat(2, 4), new Seat(2, 5));
+        assertThatThrownBy(() -> availableSeats.add(new Seat(1, 1)))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> reservedSeats.remove(0))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void reserveConsecutiveSeatsAcrossWordBoundaryInAWideRow() {
+        // build
+        CinemaRoom wideRoom = new CinemaRoom("Oppenheimer", 2, 150);
+        wideRoom.reserveSeatByNumber(1, 1, 60);
+        wideRoom.reserveSeatByNumber(1, 71, 80);
+
+        // operate
+        List<Seat> reservedConsecutiveSeats = wideRoom.reserveConsecutiveSeats(12);
+
+        // test
+        assertThat(reservedConsecutiveSeats).first().isEqualTo(new Seat(2, 1));
+        assertThat(wideRoom.reserveSeatByNumber(1, 61, 10)).hasSize(10).last().isEqualTo(new Seat(1, 70));
+        assertThat(wideRoom.getAvailableSeats()).hasSize(138).first().isEqualTo(new Seat(2, 13));
+        assertThat(wideRoom.getReservedSeats()).hasSize(162);
+        assertThat(wideRoom.getReservedSeats().get(150)).isEqualTo(new Seat(2, 1));
+    }
+
+    @Test
+    void reserveConsecutiveSeats_skipsFragmentedRowsInALargeRoom() {
+        // build
+        CinemaRoom largeRoom = new CinemaRoom("Avatar", 300, 20);
+        for (int row = 1; row <= 300; row++) {
+            largeRoom.reserveSeatByNumber(row, 5, 1);
+            largeRoom.reserveSeatByNumber(row, 10, 1);
+            largeRoom.reserveSeatByNumber(row, 15, 1);
+            if (row != 213) {
+                largeRoom.reserveSeatByNumber(row, 20, 1);
+            }
+        }
+        largeRoom.reserveSeatByNumber(213, 1, 4);
+        largeRoom.reserveSeatByNumber(213, 6, 4);
+        largeRoom.reserveSeatByNumber(213, 11, 4);
+
+        // operate
+        List<Seat> reservedConsecutiveSeats = largeRoom.reserveConsecutiveSeats(5);
+
+        // test
+        assertThat(reservedConsecutiveSeats).containsExactly(new Seat(213, 16),
+                new Seat(213, 17),
+                new Seat(213, 18),
+                new Seat(213, 19),
+                new Seat(213, 20));
+        assertThatThrownBy(() -> largeRoom.reserveConsecutiveSeats(5))
+                .isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class);
+    }
+
+    @Test
+    void roomsWithTheSameLayoutShareTheirSeatInstances() {
+        // build
+        CinemaRoom otherScreening = new CinemaRoom("Batman Begins", 5, 10);
+
+        // operate
+        List<Seat> reservedSeats = cinemaRoom.reserveSeatByNumber(2, 3, 2);
+        List<Seat> otherReservedSeats = otherScreening.reserveConsecutiveSeats(4);
+
+        // test
+        assertThat(reservedSeats.get(0)).isSameAs(otherScreening.getAvailableSeats().get(8));
+        assertThat(otherReservedSeats.get(0)).isSameAs(cinemaRoom.getAvailableSeats().get(0));
+        assertThatThrownBy(() -> reservedSeats.add(new Seat(1, 1)))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+}
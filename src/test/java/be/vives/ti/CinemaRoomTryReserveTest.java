@@ -0,0 +1,143 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CinemaRoomTryReserveTest {
+
+    private CinemaRoom cinemaRoom;
+
+    @BeforeEach
+    void setUp() {
+        cinemaRoom = new CinemaRoom("Past Lives", 3, 8);
+    }
+
+    @Test
+    void tryReserveConsecutiveSeatsReserves() {
+        // operate
+        ReservationAttempt attempt = cinemaRoom.tryReserveConsecutiveSeats(3);
+
+        // test
+        assertThat(attempt.isSuccessful()).isTrue();
+        assertThat(attempt.getRejectionReason()).isNull();
+        assertThat(attempt.getReservation()).containsExactly(new Seat(1, 1), new Seat(1, 2), new Seat(1, 3));
+        assertThat(cinemaRoom.getReservedSeats()).containsExactlyElementsOf(attempt.getReservation());
+    }
+
+    @Test
+    void tryReserveConsecutiveSeatsWithoutFreeRun() {
+        // build
+        for (int row = 1; row <= 3; row++) {
+            cinemaRoom.reserveSeatByNumber(row, 4, 1);
+        }
+
+        // operate
+        ReservationAttempt attempt = cinemaRoom.tryReserveConsecutiveSeats(5);
+
+        // test
+        assertThat(attempt.isSuccessful()).isFalse();
+        assertThat(attempt.getReservation()).isNull();
+        assertThat(attempt.getRejectionReason()).isEqualTo(RejectionReason.NO_FREE_RUN);
+        assertThat(cinemaRoom.getMetrics().getRejections(5)).isEqualTo(1);
+    }
+
+    @Test
+    void tryReserveConsecutiveSeatsLargerThanRow() {
+        // operate
+        ReservationAttempt attempt = cinemaRoom.tryReserveConsecutiveSeats(9);
+
+        // test
+        assertThat(attempt.getRejectionReason()).isEqualTo(RejectionReason.NO_FREE_RUN);
+    }
+
+    @Test
+    void tryReserveSeatByNumberReserves() {
+        // operate
+        ReservationAttempt attempt = cinemaRoom.tryReserveSeatByNumber(2, 5, 2);
+
+        // test
+        assertThat(attempt.isSuccessful()).isTrue();
+        assertThat(attempt.getReservation()).containsExactly(new Seat(2, 5), new Seat(2, 6));
+    }
+
+    @Test
+    void tryReserveSeatByNumberReportsFirstTakenSeat() {
+        // build
+        cinemaRoom.reserveSeatByNumber(2, 6, 2);
+
+        // operate
+        ReservationAttempt attempt = cinemaRoom.tryReserveSeatByNumber(2, 3, 5);
+
+        // test
+        assertThat(attempt.isSuccessful()).isFalse();
+        assertThat(attempt.getRejectionReason()).isEqualTo(RejectionReason.SEAT_TAKEN);
+        assertThat(attempt.getTakenSeat()).isEqualTo(new Seat(2, 6));
+        assertThat(cinemaRoom.getReservedSeats()).containsExactly(new Seat(2, 6), new Seat(2, 7));
+    }
+
+    @Test
+    void tryReserveSeatByNumberOnHeldSeat() {
+        // build
+        cinemaRoom.holdSeatByNumber(1, 2, 1, Duration.ofMinutes(5));
+
+        // operate
+        ReservationAttempt attempt = cinemaRoom.tryReserveSeatByNumber(1, 1, 3);
+
+        // test
+        assertThat(attempt.getRejectionReason()).isEqualTo(RejectionReason.SEAT_TAKEN);
+        assertThat(attempt.getTakenSeat()).isEqualTo(new Seat(1, 2));
+    }
+
+    @Test
+    void tryReserveSeatByNumberWithInvalidRow() {
+        // operate + test
+        assertThat(cinemaRoom.tryReserveSeatByNumber(0, 1, 2).getRejectionReason()).isEqualTo(RejectionReason.INVALID_ROW);
+        assertThat(cinemaRoom.tryReserveSeatByNumber(4, 1, 2).getRejectionReason()).isEqualTo(RejectionReason.INVALID_ROW);
+    }
+
+    @Test
+    void tryReserveSeatByNumberWithInvalidSeat() {
+        // operate + test
+        assertThat(cinemaRoom.tryReserveSeatByNumber(1, 0, 2).getRejectionReason()).isEqualTo(RejectionReason.INVALID_SEAT);
+        assertThat(cinemaRoom.tryReserveSeatByNumber(1, 7, 3).getRejectionReason()).isEqualTo(RejectionReason.INVALID_SEAT);
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+    }
+
+    @Test
+    void tryReserveSeatByNumberWithHugeNumbers() {
+        // operate + test
+        assertThat(cinemaRoom.tryReserveSeatByNumber(1, Integer.MAX_VALUE, 2).getRejectionReason()).isEqualTo(RejectionReason.INVALID_SEAT);
+        assertThat(cinemaRoom.tryReserveSeatByNumber(1, 2, Integer.MAX_VALUE).getRejectionReason()).isEqualTo(RejectionReason.INVALID_SEAT);
+        assertThat(cinemaRoom.tryReserveSeatByNumber(1, Integer.MAX_VALUE, Integer.MAX_VALUE).getRejectionReason()).isEqualTo(RejectionReason.INVALID_SEAT);
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+    }
+
+    @Test
+    void tryReserveWithInvalidNumberOfSeats() {
+        // operate + test
+        assertThat(cinemaRoom.tryReserveConsecutiveSeats(0).getRejectionReason()).isEqualTo(RejectionReason.INVALID_NUMBER_OF_SEATS);
+        assertThat(cinemaRoom.tryReserveSeatByNumber(1, 1, -1).getRejectionReason()).isEqualTo(RejectionReason.INVALID_NUMBER_OF_SEATS);
+    }
+
+    @Test
+    void rejectionExceptionHasNoStackTrace() {
+        // build
+        cinemaRoom.reserveSeatByNumber(1, 1, 8);
+
+        // operate
+        Throwable consecutive = catchThrowable(() -> cinemaRoom.reserveConsecutiveSeats(9));
+        Throwable byNumber = catchThrowable(() -> cinemaRoom.reserveSeatByNumber(1, 3, 2));
+
+        // test
+        assertThat(consecutive).isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class)
+                .hasMessage("Not enough consecutive seats available in any row");
+        assertThat(consecutive.getStackTrace()).isEmpty();
+        assertThat(byNumber).isInstanceOf(NotEnoughConsecutiveSeatsInRowException.class)
+                .hasMessage("Not enough consecutive seats available starting from seat 3");
+        assertThat(byNumber.getStackTrace()).isEmpty();
+    }
+}
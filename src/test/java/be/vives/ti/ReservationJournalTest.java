@@ -0,0 +1,314 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static be.vives.ti.ReservationRequest.consecutiveSeats;
+import static be.vives.ti.ReservationRequest.seatByNumber;
+import static org.assertj.core.api.Assertions.*;
+
+class ReservationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private Path journalFile;
+    private ShowtimeCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        journalFile = directory.resolve("reservations.journal");
+        catalog = newCatalog();
+    }
+
+    @Test
+    void replayRebuildsEveryScreening() {
+        // build
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            journal.attach(1, catalog.getScreening(1));
+            journal.attach(2, catalog.getScreening(2));
+            catalog.getScreening(1).reserveConsecutiveSeats(4);
+            catalog.getScreening(2).reserveSeatByNumber(3, 2, 5);
+            catalog.getScreening(1).reserveSeatByNumber(5, 9, 2);
+            assertThat(journal.getNumberOfRecords()).isEqualTo(3);
+        }
+
+        // operate
+        ShowtimeCatalog restoredCatalog = newCatalog();
+        long replayedRecords = ReservationJournal.replay(journalFile, restoredCatalog);
+
+        // test
+        assertThat(replayedRecords).isEqualTo(3);
+        assertThat(restoredCatalog.getScreening(1).getReservedSeats())
+                .containsExactlyElementsOf(catalog.getScreening(1).getReservedSeats());
+        assertThat(restoredCatalog.getScreening(2).getReservedSeats())
+                .containsExactlyElementsOf(catalog.getScreening(2).getReservedSeats());
+        assertThat(restoredCatalog.getScreening(1).reserveConsecutiveSeats(6)).first().isEqualTo(new Seat(1, 5));
+    }
+
+    @Test
+    void onlyConfirmedSeatsAreJournaled() {
+        // build
+        CinemaRoom screening = catalog.getScreening(1);
+        try (ReservationJournal journal = ReservationJournal.open(journalFile, Duration.ZERO)) {
+            journal.attach(1, screening);
+            SeatHold releasedHold = screening.holdConsecutiveSeats(3, Duration.ofMinutes(10));
+            SeatHold confirmedHold = screening.holdConsecutiveSeats(2, Duration.ofMinutes(10));
+            screening.release(releasedHold.getId());
+            screening.confirm(confirmedHold.getId());
+            screening.reserveBatch(List.of(consecutiveSeats(10), seatByNumber(1, 4, 1)), true);
+        }
+
+        // operate
+        ShowtimeCatalog restoredCatalog = newCatalog();
+        ReservationJournal.replay(journalFile, restoredCatalog);
+
+        // test
+        assertThat(restoredCatalog.getScreening(1).getReservedSeats()).containsExactly(new Seat(1, 4), new Seat(1, 5));
+        assertThat(restoredCatalog.getScreening(1).getAvailableSeats()).hasSize(48);
+    }
+
+    @Test
+    void reopenedJournalAppendsAfterTheExistingRecords() {
+        // build
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            journal.attach(1, catalog.getScreening(1));
+            catalog.getScreening(1).reserveConsecutiveSeats(10);
+        }
+        CinemaRoom screening = newCatalog().getScreening(1);
+
+        // operate
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            journal.attach(1, screening);
+            screening.reserveSeatByNumber(2, 1, 3);
+            assertThat(journal.getNumberOfRecords()).isEqualTo(2);
+        }
+
+        // test
+        ShowtimeCatalog restoredCatalog = newCatalog();
+        assertThat(ReservationJournal.replay(journalFile, restoredCatalog)).isEqualTo(2);
+        assertThat(restoredCatalog.getScreening(1).getReservedSeats()).hasSize(13);
+    }
+
+    @Test
+    void recordsOfRemovedScreeningsAreSkipped() {
+        // build
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            journal.attach(1, catalog.getScreening(1));
+            journal.attach(2, catalog.getScreening(2));
+            catalog.getScreening(1).reserveConsecutiveSeats(2);
+            catalog.getScreening(2).reserveConsecutiveSeats(2);
+        }
+        ShowtimeCatalog restoredCatalog = newCatalog();
+        restoredCatalog.removeScreening(1);
+
+        // operate
+        long replayedRecords = ReservationJournal.replay(journalFile, restoredCatalog);
+
+        // test
+        assertThat(replayedRecords).isEqualTo(1);
+        assertThat(restoredCatalog.getScreening(2).getReservedSeats()).hasSize(2);
+    }
+
+    @Test
+    void replayOverASnapshotTakenMidJournalRestoresTheSameSeats() {
+        // build
+        CinemaRoom screening = catalog.getScreening(1);
+        Path snapshotFile = directory.resolve("catalog.snapshot");
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            journal.attach(1, screening);
+            screening.reserveSeatByNumber(1, 1, 2);
+            screening.releaseSeats(1, 2, 1);
+            screening.reserveSeatByNumber(1, 2, 2);
+            CatalogSnapshot.write(catalog, snapshotFile);
+            screening.reserveSeatByNumber(2, 1, 3);
+            screening.releaseSeats(1, 1, 1);
+        }
+
+        // operate
+        ShowtimeCatalog restoredCatalog = CatalogSnapshot.load(snapshotFile);
+        long replayedRecords = ReservationJournal.replay(journalFile, restoredCatalog);
+        ReservationJournal.replay(journalFile, restoredCatalog);
+
+        // test
+        assertThat(replayedRecords).isEqualTo(5);
+        assertThat(restoredCatalog.getScreening(1).getReservedSeats())
+                .containsExactly(new Seat(1, 2), new Seat(1, 3), new Seat(2, 1), new Seat(2, 2), new Seat(2, 3))
+                .containsExactlyElementsOf(screening.getReservedSeats());
+    }
+
+    @Test
+    void replayStopsAtATornRecord() throws Exception {
+        // build
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            journal.attach(1, catalog.getScreening(1));
+            catalog.getScreening(1).reserveSeatByNumber(1, 1, 2);
+            catalog.getScreening(1).reserveSeatByNumber(2, 1, 2);
+            catalog.getScreening(1).reserveSeatByNumber(3, 1, 2);
+        }
+        // the last record lost its row number, as if the machine went down while it was written
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), 32 + 2 * 32 + 8);
+        }
+
+        // operate
+        ShowtimeCatalog restoredCatalog = newCatalog();
+        long replayedRecords = ReservationJournal.replay(journalFile, restoredCatalog);
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            journal.attach(1, restoredCatalog.getScreening(1));
+            restoredCatalog.getScreening(1).reserveSeatByNumber(4, 1, 2);
+            assertThat(journal.getNumberOfRecords()).isEqualTo(3);
+        }
+
+        // test
+        assertThat(replayedRecords).isEqualTo(2);
+        ShowtimeCatalog secondRestore = newCatalog();
+        assertThat(ReservationJournal.replay(journalFile, secondRestore)).isEqualTo(3);
+        assertThat(secondRestore.getScreening(1).getReservedSeats())
+                .containsExactly(new Seat(1, 1), new Seat(1, 2), new Seat(2, 1), new Seat(2, 2), new Seat(4, 1), new Seat(4, 2));
+    }
+
+    @Test
+    void journalAttachedBeforeReplayDoesNotRecordTheReplayedSeats() {
+        // build
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            journal.attach(1, catalog.getScreening(1));
+            catalog.getScreening(1).reserveSeatByNumber(1, 1, 2);
+            catalog.getScreening(1).reserveSeatByNumber(2, 4, 3);
+        }
+        ShowtimeCatalog restoredCatalog = newCatalog();
+        Path nextJournalFile = directory.resolve("next.journal");
+
+        // operate
+        try (ReservationJournal nextJournal = ReservationJournal.open(nextJournalFile)) {
+            nextJournal.attach(1, restoredCatalog.getScreening(1));
+            ReservationJournal.replay(journalFile, restoredCatalog);
+            restoredCatalog.getScreening(1).reserveSeatByNumber(3, 1, 1);
+
+            // test
+            assertThat(nextJournal.getNumberOfRecords()).isEqualTo(1);
+        }
+        assertThat(restoredCatalog.getScreening(1).getReservedSeats()).hasSize(6);
+        ShowtimeCatalog secondRestore = newCatalog();
+        assertThat(ReservationJournal.replay(nextJournalFile, secondRestore)).isEqualTo(1);
+        assertThat(secondRestore.getScreening(1).getReservedSeats()).containsExactly(new Seat(3, 1));
+    }
+
+    @Test
+    void bookingIsRolledBackWhenTheJournalCantRecordIt() {
+        // build
+        CinemaRoom screening = catalog.getScreening(1);
+        List<String> changesSeen = new ArrayList<>();
+        screening.addSeatStateListener((rowNumber, startSeatNumber, numberOfSeats, previousState, newState) ->
+                changesSeen.add(rowNumber + "." + startSeatNumber + "+" + numberOfSeats + " " + newState));
+        ReservationJournal journal = ReservationJournal.open(journalFile);
+        journal.attach(1, screening);
+        Reservation reservation = screening.tryReserveConsecutiveSeats(3).getReservation();
+        journal.close();
+
+        // operate + test
+        assertThatThrownBy(() -> screening.reserveSeatByNumber(2, 1, 4))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Reservation journal is closed");
+        assertThatThrownBy(() -> screening.cancelReservation(reservation.getId()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(screening.getReservedSeats()).containsExactly(new Seat(1, 1), new Seat(1, 2), new Seat(1, 3));
+        assertThat(screening.getLongestFreeRun()).isEqualTo(10);
+        assertThat(screening.tryReserveSeatByNumber(1, 3, 1).isSuccessful()).isFalse();
+        assertThat(changesSeen).containsExactly("1.1+3 RESERVED", "2.1+4 RESERVED", "2.1+4 AVAILABLE",
+                "1.1+3 AVAILABLE", "1.1+3 RESERVED");
+    }
+
+    @Test
+    void bookingsFromManyThreadsAreAllJournaled() throws Exception {
+        // build
+        ShowtimeCatalog busyCatalog = new ShowtimeCatalog(4, Clock.systemUTC());
+        busyCatalog.addAuditorium("Zaal 1", RoomLayout.rectangular(200, 20));
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            for (long showtimeId = 1; showtimeId <= 4; showtimeId++) {
+                journal.attach(showtimeId, busyCatalog.addScreening(showtimeId, "Zaal 1", "Tenet"));
+            }
+
+            // operate
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<?>> bookings = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                CinemaRoom screening = busyCatalog.getScreening(1 + thread % 4);
+                bookings.add(executor.submit(() -> {
+                    for (int booking = 0; booking < 500; booking++) {
+                        screening.tryReserveConsecutiveSeats(2);
+                    }
+                }));
+            }
+            for (Future<?> booking : bookings) {
+                booking.get();
+            }
+            executor.shutdown();
+            assertThat(journal.getNumberOfRecords()).isEqualTo(4000);
+        }
+
+        // test
+        ShowtimeCatalog restoredCatalog = new ShowtimeCatalog(4, Clock.systemUTC());
+        restoredCatalog.addAuditorium("Zaal 1", RoomLayout.rectangular(200, 20));
+        for (long showtimeId = 1; showtimeId <= 4; showtimeId++) {
+            restoredCatalog.addScreening(showtimeId, "Zaal 1", "Tenet");
+        }
+        assertThat(ReservationJournal.replay(journalFile, restoredCatalog)).isEqualTo(4000);
+        for (long showtimeId = 1; showtimeId <= 4; showtimeId++) {
+            assertThat(restoredCatalog.getScreening(showtimeId).getReservedSeats())
+                    .hasSize(2000)
+                    .containsExactlyElementsOf(busyCatalog.getScreening(showtimeId).getReservedSeats());
+        }
+    }
+
+    @Test
+    void rowNumbersAboveACharAreJournaled() {
+        // build
+        ShowtimeCatalog longCatalog = new ShowtimeCatalog(4, Clock.systemUTC());
+        longCatalog.addAuditorium("Gang", RoomLayout.rectangular(70_000, 2));
+        try (ReservationJournal journal = ReservationJournal.open(journalFile)) {
+            journal.attach(1, longCatalog.addScreening(1, "Gang", "The Long Walk"));
+            longCatalog.getScreening(1).reserveSeatByNumber(70_000, 1, 2);
+        }
+
+        // operate
+        ShowtimeCatalog restoredCatalog = new ShowtimeCatalog(4, Clock.systemUTC());
+        restoredCatalog.addAuditorium("Gang", RoomLayout.rectangular(70_000, 2));
+        restoredCatalog.addScreening(1, "Gang", "The Long Walk");
+        ReservationJournal.replay(journalFile, restoredCatalog);
+
+        // test
+        assertThat(restoredCatalog.getScreening(1).getReservedSeats()).containsExactly(new Seat(70_000, 1), new Seat(70_000, 2));
+    }
+
+    @Test
+    void cantReplayAFileThatIsNoJournal() throws Exception {
+        Files.write(journalFile, new byte[64]);
+
+        assertThatThrownBy(() -> ReservationJournal.replay(journalFile, catalog))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Not a reservation journal");
+    }
+
+    private ShowtimeCatalog newCatalog() {
+        ShowtimeCatalog newCatalog = new ShowtimeCatalog(4, Clock.systemUTC());
+        newCatalog.addAuditorium("Zaal 1", RoomLayout.rectangular(5, 10));
+        newCatalog.addScreening(1, "Zaal 1", "The Dark Knight");
+        newCatalog.addScreening(2, "Zaal 1", "Inception");
+        return newCatalog;
+    }
+}
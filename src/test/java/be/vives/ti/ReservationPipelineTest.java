@@ -0,0 +1,203 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReservationPipelineTest {
+
+    private CinemaRoom cinemaRoom;
+    private ReservationPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        cinemaRoom = new CinemaRoom("Anatomy of a Fall", 10, 20);
+        pipeline = new ReservationPipeline(cinemaRoom, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    void submittedRequestIsReserved() throws Exception {
+        // operate
+        ReservationOutcome outcome = pipeline.submit(ReservationRequest.consecutiveSeats(3)).get();
+
+        // test
+        assertThat(outcome.isSuccessful()).isTrue();
+        assertThat(outcome.getSeats()).containsExactly(new Seat(1, 1), new Seat(1, 2), new Seat(1, 3));
+        assertThat(cinemaRoom.getReservedSeats()).containsExactlyElementsOf(outcome.getSeats());
+    }
+
+    @Test
+    void failedRequestCompletesWithAFailedOutcome() throws Exception {
+        // build
+        cinemaRoom.reserveSeatByNumber(2, 5, 1);
+
+        // operate
+        ReservationOutcome outcome = pipeline.submit(ReservationRequest.seatByNumber(2, 4, 2)).get();
+
+        // test
+        assertThat(outcome.isSuccessful()).isFalse();
+        assertThat(outcome.getFailureMessage()).isEqualTo("Not enough consecutive seats available starting from seat 4");
+    }
+
+    @Test
+    void cancelReservationThroughThePipeline() throws Exception {
+        // build
+        Reservation reservation = pipeline.submit(ReservationRequest.consecutiveSeats(4)).get().getReservation();
+
+        // operate
+        pipeline.cancelReservation(reservation.getId()).get();
+
+        // test
+        assertThat(cinemaRoom.getReservedSeats()).isEmpty();
+        assertThatThrownBy(() -> pipeline.cancelReservation(reservation.getId()).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ReservationNotFoundException.class);
+    }
+
+    @Test
+    void concurrentProducersNeverSellASeatTwice() throws Exception {
+        // build
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<List<ReservationOutcome>>> producers = new ArrayList<>();
+
+        // operate
+        try {
+            for (int thread = 0; thread < 16; thread++) {
+                producers.add(executor.submit(() -> {
+                    List<CompletableFuture<ReservationOutcome>> futures = new ArrayList<>();
+                    for (int request = 0; request < 100; request++) {
+                        futures.add(pipeline.submit(ReservationRequest.consecutiveSeats(1 + request % 3)));
+                    }
+                    List<ReservationOutcome> outcomes = new ArrayList<>();
+                    for (CompletableFuture<ReservationOutcome> future : futures) {
+                        outcomes.add(future.get());
+                    }
+                    return outcomes;
+                }));
+            }
+            List<Seat> soldSeats = new ArrayList<>();
+            for (Future<List<ReservationOutcome>> producer : producers) {
+                for (ReservationOutcome outcome : producer.get()) {
+                    soldSeats.addAll(outcome.getSeats());
+                }
+            }
+
+            // test
+            Set<Seat> uniqueSeats = new HashSet<>(soldSeats);
+            assertThat(uniqueSeats).hasSameSizeAs(soldSeats);
+            assertThat(cinemaRoom.getReservedSeats()).hasSize(soldSeats.size());
+            assertThat(cinemaRoom.getAvailableSeats()).hasSizeLessThan(3);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void closedPipelineRejectsNewRequests() throws Exception {
+        // build
+        CompletableFuture<ReservationOutcome> pending = pipeline.submit(ReservationRequest.consecutiveSeats(2));
+
+        // operate
+        pipeline.close();
+
+        // test
+        assertThat(pending.get().isSuccessful()).isTrue();
+        assertThatThrownBy(() -> pipeline.submit(ReservationRequest.consecutiveSeats(2)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Reservation pipeline is closed");
+    }
+
+    @RepeatedTest(20)
+    void everyRequestPublishedWhileClosingIsAnswered() throws Exception {
+        // build
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch producersStarted = new CountDownLatch(8);
+        List<Future<List<CompletableFuture<ReservationOutcome>>>> producers = new ArrayList<>();
+
+        // operate
+        try {
+            for (int thread = 0; thread < 8; thread++) {
+                producers.add(executor.submit(() -> {
+                    List<CompletableFuture<ReservationOutcome>> futures = new ArrayList<>();
+                    producersStarted.countDown();
+                    try {
+                        // producers claim and store their slots in any order until the pipeline refuses them
+                        while (true) {
+                            futures.add(pipeline.submit(ReservationRequest.consecutiveSeats(1)));
+                        }
+                    } catch (IllegalStateException e) {
+                        return futures;
+                    }
+                }));
+            }
+            producersStarted.await();
+            pipeline.close();
+
+            // test
+            for (Future<List<CompletableFuture<ReservationOutcome>>> producer : producers) {
+                for (CompletableFuture<ReservationOutcome> future : producer.get()) {
+                    assertThat(future.get(10, TimeUnit.SECONDS)).isNotNull();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void nullRequestIsRejected() throws Exception {
+        // operate + test
+        assertThatThrownBy(() -> pipeline.submit(null))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessage("Request must not be null");
+        assertThat(pipeline.submit(ReservationRequest.consecutiveSeats(2)).get().isSuccessful()).isTrue();
+    }
+
+    @Test
+    void writerSurvivesAnUnexpectedError() throws Exception {
+        // build
+        SeatStateListener failingListener = (rowNumber, startSeatNumber, numberOfSeats, previousState, newState) -> {
+            throw new Error("Listener failed");
+        };
+        cinemaRoom.addSeatStateListener(failingListener);
+
+        // operate
+        CompletableFuture<ReservationOutcome> failed = pipeline.submit(ReservationRequest.consecutiveSeats(2));
+        assertThatThrownBy(failed::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("Listener failed");
+        cinemaRoom.removeSeatStateListener(failingListener);
+        ReservationOutcome outcome = pipeline.submit(ReservationRequest.consecutiveSeats(3)).get();
+
+        // test
+        assertThat(outcome.isSuccessful()).isTrue();
+    }
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        // operate + test
+        assertThatThrownBy(() -> new ReservationPipeline(cinemaRoom, 100))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Capacity must be a power of two");
+    }
+}
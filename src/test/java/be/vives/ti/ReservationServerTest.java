@@ -0,0 +1,157 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReservationServerTest {
+
+    private ShowtimeCatalog catalog;
+    private ReservationServer server;
+    private HttpClient client;
+    private URI screening;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ShowtimeCatalog();
+        catalog.addAuditorium("Zaal 1", RoomLayout.rectangular(5, 10));
+        catalog.addScreening(1, "Zaal 1", "Perfect Days");
+        server = ReservationServer.start(catalog, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = HttpClient.newHttpClient();
+        screening = URI.create("http://127.0.0.1:" + server.getPort() + "/screenings/1/");
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void reserveConsecutiveSeats() throws Exception {
+        // operate
+        HttpResponse<String> response = post("reservations/consecutive?seats=2");
+
+        // test
+        long id = idOf(response);
+        assertThat(response.statusCode()).isEqualTo(201);
+        assertThat(response.body()).isEqualTo("{\"id\":" + id + ",\"seats\":[{\"row\":1,\"seat\":1},{\"row\":1,\"seat\":2}]}");
+        assertThat(catalog.getScreening(1).getReservedSeats()).containsExactly(new Seat(1, 1), new Seat(1, 2));
+    }
+
+    @Test
+    void reserveSeatByNumber() throws Exception {
+        // operate
+        HttpResponse<String> response = post("reservations/by-number?row=3&seat=4&seats=2");
+
+        // test
+        assertThat(response.statusCode()).isEqualTo(201);
+        assertThat(catalog.getScreening(1).getReservedSeats()).containsExactly(new Seat(3, 4), new Seat(3, 5));
+    }
+
+    @Test
+    void takenSeatsGiveAConflict() throws Exception {
+        // build
+        post("reservations/by-number?row=3&seat=4&seats=2");
+
+        // operate
+        HttpResponse<String> response = post("reservations/by-number?row=3&seat=5&seats=1");
+
+        // test
+        assertThat(response.statusCode()).isEqualTo(409);
+        assertThat(response.body()).isEqualTo("{\"error\":\"Not enough consecutive seats available starting from seat 5\"}");
+    }
+
+    @Test
+    void seatsOutsideTheRoomGiveABadRequest() throws Exception {
+        // operate
+        HttpResponse<String> unknownRow = post("reservations/by-number?row=99&seat=1&seats=2");
+        HttpResponse<String> pastTheEndOfTheRow = post("reservations/by-number?row=3&seat=9&seats=4");
+
+        // test
+        assertThat(unknownRow.statusCode()).isEqualTo(400);
+        assertThat(unknownRow.body()).isEqualTo("{\"error\":\"Row 99 is not in the room\"}");
+        assertThat(pastTheEndOfTheRow.statusCode()).isEqualTo(400);
+        assertThat(pastTheEndOfTheRow.body()).isEqualTo("{\"error\":\"Seats 9 to 12 are not all in row 3\"}");
+    }
+
+    @Test
+    void missingParameterGivesABadRequest() throws Exception {
+        // operate
+        HttpResponse<String> response = post("reservations/by-number?row=3&seats=2");
+
+        // test
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).isEqualTo("{\"error\":\"Missing parameter seat\"}");
+    }
+
+    @Test
+    void unknownScreeningIsNotFound() throws Exception {
+        // operate
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(screening.resolve("/screenings/2/availability")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // test
+        assertThat(response.statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void availabilityReflectsReservations() throws Exception {
+        // build
+        post("reservations/by-number?row=1&seat=4&seats=3");
+
+        // operate
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(screening.resolve("availability")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // test
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("{\"available\":47,\"reserved\":3,\"longestFreeRun\":10}");
+    }
+
+    @Test
+    void cancelReservationOnlyOnce() throws Exception {
+        // build
+        long id = idOf(post("reservations/consecutive?seats=4"));
+        HttpRequest cancellation = HttpRequest.newBuilder(screening.resolve("reservations/" + id)).DELETE().build();
+
+        // operate
+        HttpResponse<String> first = client.send(cancellation, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = client.send(cancellation, HttpResponse.BodyHandlers.ofString());
+
+        // test
+        assertThat(first.statusCode()).isEqualTo(204);
+        assertThat(second.statusCode()).isEqualTo(404);
+        assertThat(catalog.getScreening(1).getReservedSeats()).isEmpty();
+    }
+
+    @Test
+    void loadGeneratorRunsWithoutFailures() {
+        // operate
+        LoadTestResult result = ReservationLoadGenerator.run(screening, RoomLayout.rectangular(5, 10), 20, Duration.ofMillis(500), 7);
+
+        // test
+        assertThat(result.getNumberOfRequests()).isPositive();
+        assertThat(result.getFailedRequests()).isZero();
+    }
+
+    private HttpResponse<String> post(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(screening.resolve(path)).POST(HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long idOf(HttpResponse<String> response) {
+        String body = response.body();
+        return Long.parseLong(body.substring(body.indexOf(':') + 1, body.indexOf(',')));
+    }
+}
@@ -0,0 +1,137 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RushSimulatorTest {
+
+    private static final RoomLayout LAYOUT = RoomLayout.rectangular(10, 20);
+
+    @Test
+    void sameSeedGivesSameDemand() {
+        // build
+        RushScenario scenario = RushScenario.defaults().withNumberOfRequests(500);
+
+        // operate
+        List<RushSimulator.Arrival> first = RushSimulator.generateDemand(LAYOUT, scenario);
+        List<RushSimulator.Arrival> second = RushSimulator.generateDemand(LAYOUT, scenario);
+
+        // test
+        assertThat(first).hasSize(500);
+        for (int i = 0; i < first.size(); i++) {
+            assertThat(second.get(i).getOffsetNanos()).isEqualTo(first.get(i).getOffsetNanos());
+            assertThat(second.get(i).getRequest().toString()).isEqualTo(first.get(i).getRequest().toString());
+            assertThat(second.get(i).isHeld()).isEqualTo(first.get(i).isHeld());
+            assertThat(second.get(i).isAbandoned()).isEqualTo(first.get(i).isAbandoned());
+        }
+    }
+
+    @Test
+    void demandFollowsTheScenario() {
+        // build
+        RushScenario scenario = RushScenario.defaults().withNumberOfRequests(2000)
+                .withPartySizeWeights(0, 1, 0, 1).withByNumberShare(0).withHoldShare(1).withAbandonShare(0);
+
+        // operate
+        List<RushSimulator.Arrival> arrivals = RushSimulator.generateDemand(LAYOUT, scenario);
+
+        // test
+        assertThat(arrivals).allSatisfy(arrival -> {
+            assertThat(arrival.getRequest().isConsecutiveSeats()).isTrue();
+            assertThat(arrival.getRequest().getNumberOfSeats()).isIn(2, 4);
+            assertThat(arrival.isHeld()).isTrue();
+            assertThat(arrival.isAbandoned()).isFalse();
+        });
+        assertThat(arrivals).extracting(RushSimulator.Arrival::getOffsetNanos).isSorted();
+    }
+
+    @Test
+    void singleThreadedRunWithoutHoldsIsRepeatable() {
+        // build
+        RushScenario scenario = RushScenario.defaults().withNumberOfRequests(400).withHoldShare(0)
+                .withConcurrency(1).withMeanBurstInterval(Duration.ZERO);
+
+        // operate
+        RushResult first = RushSimulator.simulate(LAYOUT, scenario);
+        RushResult second = RushSimulator.simulate(LAYOUT, scenario);
+
+        // test
+        assertThat(first.getNumberOfRequests()).isEqualTo(400);
+        assertThat(second.getRejectedRequests()).isEqualTo(first.getRejectedRequests());
+        assertThat(second.getFinalOccupancy().getReservedSeats()).isEqualTo(first.getFinalOccupancy().getReservedSeats());
+        assertThat(second.getFinalOccupancy().getFragmentation()).isEqualTo(first.getFinalOccupancy().getFragmentation());
+    }
+
+    @Test
+    void abandonedHoldsExpireBeforeTheFinalOccupancy() {
+        // build
+        RushScenario scenario = RushScenario.defaults().withNumberOfRequests(50).withPartySizeWeights(1)
+                .withHoldShare(1).withAbandonShare(1).withHoldTimeToLive(Duration.ofMillis(10)).withConcurrency(2);
+
+        // operate
+        RushResult result = RushSimulator.simulate(LAYOUT, scenario);
+
+        // test
+        assertThat(result.getAbandonedHolds()).isEqualTo(50 - result.getRejectedRequests());
+        assertThat(result.getFinalOccupancy().getReservedSeats()).isZero();
+        assertThat(result.getFinalOccupancy().getHeldSeats()).isZero();
+    }
+
+    @Test
+    void resultIsWrittenAsJson() {
+        // build
+        RushScenario scenario = RushScenario.defaults().withNumberOfRequests(100).withConcurrency(2);
+
+        // operate
+        String json = RushSimulator.simulate(LAYOUT, scenario).toJson();
+
+        // test
+        assertThat(json).startsWith("{\"rows\":10,\"seatsPerRow\":20,\"scenario\":{\"seed\":42,\"numberOfRequests\":100,");
+        assertThat(json).contains("\"requests\":100,", "\"rejectionRate\":", "\"requestsPerSecond\":",
+                "\"latencyNanos\":{\"p50\":", "\"p999\":", "\"fragmentation\":").endsWith("}");
+    }
+
+    @Test
+    void scenarioIsReadFromProperties() {
+        // build
+        Properties properties = new Properties();
+        properties.setProperty("seed", "7");
+        properties.setProperty("partySizeWeights", "1, 2, 3");
+        properties.setProperty("holdTimeToLiveMillis", "500");
+
+        // operate
+        RushScenario scenario = RushScenario.fromProperties(properties);
+
+        // test
+        assertThat(scenario.getSeed()).isEqualTo(7);
+        assertThat(scenario.getPartySizeWeights()).containsExactly(1, 2, 3);
+        assertThat(scenario.getHoldTimeToLive()).isEqualTo(Duration.ofMillis(500));
+        assertThat(scenario.getNumberOfRequests()).isEqualTo(RushScenario.defaults().getNumberOfRequests());
+        assertThat(scenario.getConcurrency()).isEqualTo(8);
+    }
+
+    @Test
+    void unknownPropertyIsRejected() {
+        // build
+        Properties properties = new Properties();
+        properties.setProperty("numberOfRequest", "10");
+
+        // operate + test
+        assertThatThrownBy(() -> RushScenario.fromProperties(properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown scenario property numberOfRequest");
+    }
+
+    @Test
+    void invalidShareIsRejected() {
+        // operate + test
+        assertThatThrownBy(() -> RushScenario.defaults().withHoldShare(1.5))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Hold share must be between 0 and 1");
+    }
+}
@@ -0,0 +1,102 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ShowtimeCatalogTest {
+
+    private ShowtimeCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ShowtimeCatalog(8, Clock.systemUTC());
+        catalog.addAuditorium("Zaal 1", RoomLayout.rectangular(5, 10));
+    }
+
+    @Test
+    void screeningsOfTheSameAuditoriumShareOneLayout() {
+        // operate
+        CinemaRoom evening = catalog.addScreening(1001, "Zaal 1", "The Dark Knight");
+        CinemaRoom lateNight = catalog.addScreening(1002, "Zaal 1", "Inception");
+
+        // test
+        assertThat(evening.getLayout()).isSameAs(lateNight.getLayout()).isSameAs(catalog.getAuditorium("Zaal 1"));
+        assertThat(catalog.getScreening(1001)).isSameAs(evening);
+        assertThat(catalog.getScreening(1002)).isSameAs(lateNight);
+        assertThat(catalog.getNumberOfScreenings()).isEqualTo(2);
+    }
+
+    @Test
+    void layoutStillInUseIsHandedOutAgain() {
+        // operate
+        RoomLayout sameDimensions = RoomLayout.rectangular(5, 10);
+
+        // test
+        assertThat(sameDimensions).isSameAs(catalog.getAuditorium("Zaal 1"));
+        assertThat(RoomLayout.rectangular(10, 5)).isNotSameAs(sameDimensions);
+    }
+
+    @Test
+    void screeningsKeepTheirOwnOccupancy() {
+        // build
+        CinemaRoom evening = catalog.addScreening(1001, "Zaal 1", "The Dark Knight");
+        CinemaRoom lateNight = catalog.addScreening(1002, "Zaal 1", "Inception");
+
+        // operate
+        evening.reserveConsecutiveSeats(10);
+
+        // test
+        assertThat(evening.getAvailableSeats()).hasSize(40);
+        assertThat(lateNight.getAvailableSeats()).hasSize(50);
+        assertThat(lateNight.getReservedSeats()).isEmpty();
+        assertThat(lateNight.reserveConsecutiveSeats(10)).first().isEqualTo(new Seat(1, 1));
+    }
+
+    @Test
+    void manyScreeningsCanBeLookedUpById() {
+        // operate
+        for (long showtimeId = 1; showtimeId <= 10_000; showtimeId++) {
+            catalog.addScreening(showtimeId, "Zaal 1", "Movie " + showtimeId);
+        }
+
+        // test
+        assertThat(catalog.getNumberOfScreenings()).isEqualTo(10_000);
+        assertThat(catalog.getScreening(4321).getMovieName()).isEqualTo("Movie 4321");
+        assertThat(catalog.getScreening(10_000).getAvailableSeats()).hasSize(50);
+    }
+
+    @Test
+    void removeScreening() {
+        // build
+        catalog.addScreening(1001, "Zaal 1", "The Dark Knight");
+
+        // operate
+        catalog.removeScreening(1001);
+
+        // test
+        assertThat(catalog.containsScreening(1001)).isFalse();
+        assertThatThrownBy(() -> catalog.getScreening(1001))
+                .isInstanceOf(ScreeningNotFoundException.class)
+                .hasMessage("No screening with showtime id 1001");
+    }
+
+    @Test
+    void cantAddScreeningTwice() {
+        catalog.addScreening(1001, "Zaal 1", "The Dark Knight");
+
+        assertThatThrownBy(() -> catalog.addScreening(1001, "Zaal 1", "Inception"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Screening with showtime id 1001 already exists");
+    }
+
+    @Test
+    void cantAddScreeningInUnknownAuditorium() {
+        assertThatThrownBy(() -> catalog.addScreening(1001, "Zaal 9", "The Dark Knight"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown auditorium Zaal 9");
+    }
+}
@@ -0,0 +1,43 @@
+package be.vives.ti;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WeakValueCacheTest {
+
+    private final WeakValueCache<String, StringBuilder> cache = new WeakValueCache<>();
+
+    @Test
+    void valueStillInUseIsHandedOutAgain() {
+        // build
+        StringBuilder value = cache.computeIfAbsent("Zaal 1", StringBuilder::new);
+
+        // operate
+        StringBuilder again = cache.computeIfAbsent("Zaal 1", key -> fail("value was created twice"));
+
+        // test
+        assertThat(again).isSameAs(value);
+        assertThat(cache.computeIfAbsent("Zaal 2", StringBuilder::new)).isNotSameAs(value);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void valuesAreOnlyWeaklyReachableFromTheCache() {
+        // build
+        StringBuilder value = cache.computeIfAbsent("Zaal 1", StringBuilder::new);
+        WeakReference<StringBuilder> reference = cache.referenceTo("Zaal 1");
+
+        // operate: do what the garbage collector does once nothing else uses the value
+        reference.clear();
+        reference.enqueue();
+
+        // test
+        assertThat(reference).isInstanceOf(WeakReference.class);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.computeIfAbsent("Zaal 1", StringBuilder::new)).isNotSameAs(value).hasToString("Zaal 1");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}